@@ -23,8 +23,8 @@ import ca.ualberta.codarc.codarc_events.R;
 import ca.ualberta.codarc.codarc_events.controllers.JoinWaitlistController;
 import ca.ualberta.codarc.codarc_events.data.EntrantDB;
 import ca.ualberta.codarc.codarc_events.data.EventDB;
+import ca.ualberta.codarc.codarc_events.data.Session;
 import ca.ualberta.codarc.codarc_events.models.Event;
-import ca.ualberta.codarc.codarc_events.utils.Identity;
 import ca.ualberta.codarc.codarc_events.views.EventDetailsActivity;
 import ca.ualberta.codarc.codarc_events.views.ProfileCreationActivity;
 
@@ -49,7 +49,7 @@ public class EventCardAdapter extends RecyclerView.Adapter<EventCardAdapter.View
     public EventCardAdapter(Context context, List<Event> events) {
         this.context = context;
         this.events = events;
-        this.currentDeviceId = Identity.getOrCreateDeviceId(context);
+        this.currentDeviceId = Session.get(context).getDeviceId();
         this.joinWaitlistController = new JoinWaitlistController(new EventDB(), new EntrantDB());
     }
 
@@ -69,8 +69,13 @@ public class EventCardAdapter extends RecyclerView.Adapter<EventCardAdapter.View
         holder.date.setText(e.getEventDateTime() != null ? e.getEventDateTime() : "");
         holder.status.setText(e.isOpen() ? context.getString(R.string.status_open) : context.getString(R.string.status_closed));
 
-        // Fetch and display waitlist count
-        fetchAndDisplayWaitlistCount(holder, eventId);
+        // Counters ride along with the summary snapshot; only older or sharded events need a query
+        if (e.getWaitlistCount() != null) {
+            holder.waitlistCount.setTag(eventId);
+            holder.waitlistCount.setText(context.getString(R.string.waitlist_count, e.getWaitlistCount()));
+        } else {
+            fetchAndDisplayWaitlistCount(holder, eventId);
+        }
 
         // Hide join button if user is the organizer
         if (e.getOrganizerId() != null && e.getOrganizerId().equals(currentDeviceId)) {
@@ -85,9 +90,8 @@ public class EventCardAdapter extends RecyclerView.Adapter<EventCardAdapter.View
             if (adapterPosition == RecyclerView.NO_POSITION) {
                 return;
             }
-            String deviceId = Identity.getOrCreateDeviceId(v.getContext());
             Event event = events.get(adapterPosition);
-            joinWaitlistController.joinWaitlist(event, deviceId, result -> {
+            joinWaitlistController.joinWaitlist(event, currentDeviceId, result -> {
                 if (result.needsProfileRegistration()) {
                     Intent intent = new Intent(context, ProfileCreationActivity.class);
                     context.startActivity(intent);
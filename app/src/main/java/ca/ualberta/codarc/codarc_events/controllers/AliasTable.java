@@ -0,0 +1,85 @@
+/*
+ * Walker/Vose alias table for drawing an index with probability proportional to its
+ * weight in constant time, used by the weighted lottery.
+ * Outstanding issues: None currently identified.
+ */
+package ca.ualberta.codarc.codarc_events.controllers;
+
+import java.util.Random;
+
+/**
+ * Immutable alias table over a fixed array of weights. Building it is O(n); every
+ * {@link #sample(Random)} afterwards is O(1): one uniform column pick and one biased coin.
+ */
+public class AliasTable {
+
+    private final double[] prob;
+    private final int[] alias;
+
+    /**
+     * @param weights non-negative, finite weights with a positive sum
+     */
+    public AliasTable(double[] weights) {
+        int n = weights.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("weights is empty");
+        }
+        double total = 0;
+        for (double w : weights) {
+            if (!(w >= 0) || Double.isInfinite(w)) {
+                throw new IllegalArgumentException("weights must be finite and non-negative");
+            }
+            total += w;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("weights must not all be zero");
+        }
+
+        prob = new double[n];
+        alias = new int[n];
+        double[] scaled = new double[n];
+        // Worklists as plain int stacks to avoid boxing on large waitlists
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1.0) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+
+        while (smallSize > 0 && largeSize > 0) {
+            int s = small[--smallSize];
+            int l = large[--largeSize];
+            prob[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+            if (scaled[l] < 1.0) {
+                small[smallSize++] = l;
+            } else {
+                large[largeSize++] = l;
+            }
+        }
+        // Leftovers are 1 up to rounding error
+        while (largeSize > 0) {
+            prob[large[--largeSize]] = 1.0;
+        }
+        while (smallSize > 0) {
+            prob[small[--smallSize]] = 1.0;
+        }
+    }
+
+    public int size() {
+        return prob.length;
+    }
+
+    /** Returns index {@code i} with probability {@code weights[i] / sum(weights)}. */
+    public int sample(Random random) {
+        int column = random.nextInt(prob.length);
+        return random.nextDouble() < prob[column] ? column : alias[column];
+    }
+}
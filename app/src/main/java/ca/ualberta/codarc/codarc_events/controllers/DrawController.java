@@ -1,19 +1,35 @@
 /*
  * Controller coordinating random draw execution, bridging entrant data and Firestore
  * updates while handling cancellation and winner promotion.
- * Outstanding issues: Extract randomness strategy for improved testability.
+ * Outstanding issues: Entrants who leave the waitlist between sampling and commit are
+ * skipped rather than replaced, so such a draw invites fewer winners. A single Firestore
+ * call that outlasts the draw lease can let another device take over before the next
+ * renewal notices.
  */
 package ca.ualberta.codarc.codarc_events.controllers;
 
+import android.os.Handler;
+import android.os.Looper;
+
 import androidx.annotation.NonNull;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ca.ualberta.codarc.codarc_events.data.DispatchResult;
+import ca.ualberta.codarc.codarc_events.data.DrawLease;
 import ca.ualberta.codarc.codarc_events.data.EntrantDB;
 import ca.ualberta.codarc.codarc_events.data.EventDB;
+import ca.ualberta.codarc.codarc_events.data.NotificationDispatcher;
+import ca.ualberta.codarc.codarc_events.models.DrawCheckpoint;
+import ca.ualberta.codarc.codarc_events.models.Event;
 
 /**
  * Handles lottery draw - selects winners and replacement pool.
@@ -24,6 +40,51 @@ public class DrawController {
     public interface DrawCallback {
         void onSuccess(List<String> winnerIds, List<String> replacementIds);
         void onError(@NonNull Exception e);
+
+        /**
+         * Progress of one stage of the draw.
+         *
+         * @param stage one of the STAGE_* constants
+         * @param done entrants scanned, moved or notified so far
+         * @param total expected total for the stage, or 0 when unknown
+         */
+        default void onProgress(@NonNull String stage, int done, int total) { }
+
+        /** The draw stopped after {@link DrawHandle#cancel()}; running it again resumes it. */
+        default void onCancelled() { }
+    }
+
+    /** Lets the caller stop a running draw between pages or chunks. */
+    public static class DrawHandle {
+        private volatile boolean cancelled;
+        private DrawLease lease;
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    public static final String STAGE_RESUMING = "resuming";
+    public static final String STAGE_SAMPLING = "sampling";
+    public static final String STAGE_COMMITTING = "committing";
+    public static final String STAGE_NOTIFYING = "notifying";
+
+    // Waitlist ids read per page while sampling
+    static final int WAITLIST_PAGE_SIZE = 500;
+
+    // Draw lease lifetime; renewed between pages and chunks once half of it is used
+    static final long DRAW_LEASE_TTL_MS = 60_000;
+
+    // Entrants sampled for one replacement before giving up on a waitlist that keeps changing
+    static final int REPLACEMENT_ATTEMPTS = 5;
+
+    /** Per-entrant odds for {@link #runWeightedDraw}; 0 excludes the entrant. */
+    public interface EntrantWeights {
+        double weightOf(@NonNull String deviceId);
     }
 
     public interface CountCallback {
@@ -31,8 +92,27 @@ public class DrawController {
         void onError(@NonNull Exception e);
     }
 
+    /** Result of {@link #drawReplacement}. */
+    public interface ReplacementCallback {
+        /** @param entrantId the promoted entrant, or null when the waitlist is empty */
+        void onSuccess(String entrantId);
+        void onError(@NonNull Exception e);
+    }
+
+    public interface SimulationCallback {
+        void onSuccess(@NonNull DrawSimulator.Recommendation recommendation);
+        void onError(@NonNull Exception e);
+    }
+
+    // Simulations are CPU bound; one at a time, each spread over the fork-join pool
+    private static final ExecutorService SIMULATION_EXECUTOR = Executors.newSingleThreadExecutor();
+
     private final EventDB eventDB;
     private final EntrantDB entrantDB;
+    private NotificationDispatcher dispatcher;
+    private LotteryEngine lotteryEngine = new LotteryEngine();
+    private DrawSimulator simulator;
+    private Handler mainHandler;
     private static final int DEFAULT_REPLACEMENT_POOL_SIZE = 3;
 
     public DrawController(EventDB eventDB) {
@@ -45,6 +125,17 @@ public class DrawController {
         this.entrantDB = entrantDB;
     }
 
+    public DrawController(EventDB eventDB, EntrantDB entrantDB, NotificationDispatcher dispatcher) {
+        this(eventDB, entrantDB);
+        this.dispatcher = dispatcher;
+    }
+
+    public DrawController(EventDB eventDB, EntrantDB entrantDB, NotificationDispatcher dispatcher,
+                          LotteryEngine lotteryEngine) {
+        this(eventDB, entrantDB, dispatcher);
+        this.lotteryEngine = lotteryEngine;
+    }
+
     public void loadEntrantCount(String eventId, CountCallback cb) {
         eventDB.getWaitlistCount(eventId, new EventDB.Callback<Integer>() {
             @Override
@@ -59,74 +150,257 @@ public class DrawController {
         });
     }
 
+    /**
+     * Suggests a winners count and replacement pool size for the event by simulating
+     * draws against its capacity, waitlist and the accept/decline history in its
+     * accepted and cancelled lists. Only reads counts; nothing is written. The result is
+     * delivered on the main thread.
+     */
+    public void simulateDraw(String eventId, SimulationCallback cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
+            return;
+        }
+        eventDB.getEvent(eventId, new EventDB.Callback<Event>() {
+            @Override
+            public void onSuccess(Event event) {
+                if (event == null) {
+                    cb.onError(new IllegalStateException("Event not found"));
+                    return;
+                }
+                Integer capacity = event.getMaxCapacity();
+                if (capacity == null || capacity <= 0) {
+                    cb.onError(new IllegalStateException("Set an event capacity to get a suggestion"));
+                    return;
+                }
+                loadSimulationCounts(eventId, capacity, cb);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+    }
+
+    private void loadSimulationCounts(String eventId, int capacity, SimulationCallback cb) {
+        String[] lists = {EventDB.LIST_WAITING, EventDB.LIST_WINNERS, EventDB.LIST_ACCEPTED, EventDB.LIST_CANCELLED};
+        Map<String, Integer> counts = new HashMap<>();
+        AtomicInteger remaining = new AtomicInteger(lists.length);
+        AtomicBoolean failed = new AtomicBoolean(false);
+
+        for (String list : lists) {
+            eventDB.getListCount(eventId, list, new EventDB.Callback<Integer>() {
+                @Override
+                public void onSuccess(Integer value) {
+                    synchronized (counts) {
+                        counts.put(list, value != null ? value : 0);
+                    }
+                    if (remaining.decrementAndGet() == 0 && !failed.get()) {
+                        // Pending winners may still accept, so their seats are not open
+                        int seats = Math.max(0, capacity - counts.get(EventDB.LIST_ACCEPTED)
+                                - counts.get(EventDB.LIST_WINNERS));
+                        runSimulation(new DrawSimulator.Params(counts.get(EventDB.LIST_WAITING), seats,
+                                counts.get(EventDB.LIST_ACCEPTED), counts.get(EventDB.LIST_CANCELLED)), cb);
+                    }
+                }
+
+                @Override
+                public void onError(@NonNull Exception e) {
+                    if (failed.compareAndSet(false, true)) {
+                        cb.onError(e);
+                    }
+                }
+            });
+        }
+    }
+
+    private void runSimulation(DrawSimulator.Params params, SimulationCallback cb) {
+        DrawSimulator sim = simulator();
+        Handler handler = mainHandler();
+        SIMULATION_EXECUTOR.execute(() -> {
+            try {
+                DrawSimulator.Recommendation recommendation = sim.recommend(params);
+                handler.post(() -> cb.onSuccess(recommendation));
+            } catch (RuntimeException e) {
+                handler.post(() -> cb.onError(e));
+            }
+        });
+    }
+
     // Runs lottery with default 3 replacements
-    public void runDraw(String eventId, int numWinners, DrawCallback cb) {
-        runDraw(eventId, numWinners, DEFAULT_REPLACEMENT_POOL_SIZE, cb);
+    public DrawHandle runDraw(String eventId, int numWinners, DrawCallback cb) {
+        return runDraw(eventId, numWinners, DEFAULT_REPLACEMENT_POOL_SIZE, cb);
+    }
+
+    /**
+     * Runs the lottery as a streaming, resumable pipeline.
+     *
+     * <p>The draw first takes the event's draw lease, so a second device or a double tap
+     * fails fast with {@link DrawLease.HeldException} before any read of the waitlist.
+     * The lease is renewed while the draw runs and released when it finishes, fails or
+     * is cancelled.</p>
+     *
+     * <p>The waitlist is read page by page into a reservoir sample, so memory stays at
+     * {@code numWinners + replacementPoolSize} ids. The selection is saved as a
+     * {@link DrawCheckpoint} before anything moves, then committed in chunks that advance
+     * the checkpoint atomically. If an earlier draw for the event was interrupted, that
+     * draw is finished instead of drawing again.</p>
+     *
+     * @return handle to cancel the draw between pages or chunks
+     */
+    public DrawHandle runDraw(String eventId, int numWinners, int replacementPoolSize, DrawCallback cb) {
+        return startDraw(eventId, numWinners, replacementPoolSize, null, cb);
     }
-    
-    // Runs lottery with custom replacement pool size
-    public void runDraw(String eventId, int numWinners, int replacementPoolSize, DrawCallback cb) {
+
+    /**
+     * Same pipeline as {@link #runDraw(String, int, int, DrawCallback)}, but each entrant's
+     * chance is proportional to its weight, e.g. higher odds for people who lost earlier
+     * draws. The waitlist ids are collected page by page and drawn with
+     * {@link LotteryEngine#drawWeighted}, so memory is one id and one weight per entrant.
+     *
+     * @param weights odds per entrant; called once per waitlisted entrant
+     * @return handle to cancel the draw between pages or chunks
+     */
+    public DrawHandle runWeightedDraw(String eventId, int numWinners, int replacementPoolSize,
+                                      EntrantWeights weights, DrawCallback cb) {
+        if (weights == null) {
+            cb.onError(new IllegalArgumentException("weights is null"));
+            return new DrawHandle();
+        }
+        return startDraw(eventId, numWinners, replacementPoolSize, weights, cb);
+    }
+
+    private DrawHandle startDraw(String eventId, int numWinners, int replacementPoolSize,
+                                 EntrantWeights weights, DrawCallback cb) {
+        DrawHandle handle = new DrawHandle();
         if (eventId == null || eventId.isEmpty()) {
             cb.onError(new IllegalArgumentException("eventId is empty"));
-            return;
+            return handle;
         }
         if (numWinners <= 0) {
             cb.onError(new IllegalArgumentException("Number of winners must be > 0"));
-            return;
+            return handle;
         }
         if (replacementPoolSize < 0) {
             cb.onError(new IllegalArgumentException("Replacement pool size cannot be negative"));
-            return;
+            return handle;
         }
 
-        eventDB.getWaitlist(eventId, new EventDB.Callback<List<Map<String, Object>>>() {
+        String ownerId = UUID.randomUUID().toString();
+        eventDB.acquireDrawLease(eventId, ownerId, DRAW_LEASE_TTL_MS, new EventDB.Callback<DrawLease>() {
+            @Override
+            public void onSuccess(DrawLease lease) {
+                handle.lease = lease;
+                loadCheckpoint(eventId, numWinners, replacementPoolSize, weights, handle,
+                        releasingLease(lease, cb));
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+        return handle;
+    }
+
+    private void loadCheckpoint(String eventId, int numWinners, int replacementPoolSize,
+                                EntrantWeights weights, DrawHandle handle, DrawCallback cb) {
+        eventDB.getDrawCheckpoint(eventId, new EventDB.Callback<DrawCheckpoint>() {
             @Override
-            public void onSuccess(List<Map<String, Object>> waitlist) {
-                if (waitlist == null || waitlist.isEmpty()) {
-                    cb.onError(new RuntimeException("No entrants found"));
+            public void onSuccess(DrawCheckpoint checkpoint) {
+                if (checkpoint != null && checkpoint.isInProgress()) {
+                    // An earlier draw was interrupted; finish it instead of drawing again
+                    cb.onProgress(STAGE_RESUMING, checkpoint.committedCount(), checkpoint.selectedCount());
+                    commitChunks(eventId, checkpoint, handle, cb);
                     return;
                 }
+                Selection selection = weights == null
+                        ? new UniformSelection(lotteryEngine.newReservoir(numWinners + replacementPoolSize))
+                        : new WeightedSelection(weights);
+                startSampling(eventId, selection, numWinners, replacementPoolSize, handle, cb);
+            }
 
-                // Shuffle for random selection
-                Collections.shuffle(waitlist);
-
-                int total = waitlist.size();
-                int winnerCount = Math.min(numWinners, total);
-                
-                // Calculate how many replacements we can actually select
-                int remainingAfterWinners = total - winnerCount;
-                int replacementCount = Math.min(replacementPoolSize, remainingAfterWinners);
-
-                // Extract winners
-                List<String> winners = new ArrayList<>(winnerCount);
-                for (int i = 0; i < winnerCount; i++) {
-                    Object id = waitlist.get(i).get("deviceId");
-                    if (id != null) winners.add(id.toString());
-                }
+            @Override
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+    }
 
-                // Extract replacement pool (next N after winners)
-                List<String> replacements = new ArrayList<>(replacementCount);
-                for (int i = winnerCount; i < winnerCount + replacementCount; i++) {
-                    Object id = waitlist.get(i).get("deviceId");
-                    if (id != null) replacements.add(id.toString());
-                }
+    // Wraps the caller's callback so every way the draw ends gives the lease back
+    private DrawCallback releasingLease(DrawLease lease, DrawCallback cb) {
+        return new DrawCallback() {
+            @Override
+            public void onSuccess(List<String> winnerIds, List<String> replacementIds) {
+                release();
+                cb.onSuccess(winnerIds, replacementIds);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                release();
+                cb.onError(e);
+            }
 
-                // Mark winners and create replacement pool in Firebase
-                eventDB.markWinners(eventId, winners, replacements, new EventDB.Callback<Void>() {
+            @Override
+            public void onProgress(@NonNull String stage, int done, int total) {
+                cb.onProgress(stage, done, total);
+            }
+
+            @Override
+            public void onCancelled() {
+                release();
+                cb.onCancelled();
+            }
+
+            private void release() {
+                releaseLease(lease);
+            }
+        };
+    }
+
+    private void releaseLease(DrawLease lease) {
+        eventDB.releaseDrawLease(lease, new EventDB.Callback<Void>() {
+            @Override
+            public void onSuccess(Void value) { }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                // The lease still expires on its own
+                android.util.Log.w("DrawController", "Failed to release draw lease", e);
+            }
+        });
+    }
+
+    /**
+     * Promotes one entrant drawn uniformly from the waitlist to winners, e.g. to fill the
+     * seat of a cancelled winner.
+     *
+     * <p>Holds the event's draw lease meanwhile, so it cannot run alongside a draw or a
+     * replacement on another device; those fail fast with {@link DrawLease.HeldException}.
+     * The entrant's winner notification commits with the move. An entrant who left the
+     * waitlist after being sampled is replaced by a new sample.</p>
+     */
+    public void drawReplacement(String eventId, ReplacementCallback cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
+            return;
+        }
+        String ownerId = UUID.randomUUID().toString();
+        eventDB.acquireDrawLease(eventId, ownerId, DRAW_LEASE_TTL_MS, new EventDB.Callback<DrawLease>() {
+            @Override
+            public void onSuccess(DrawLease lease) {
+                promoteSampled(eventId, lease, REPLACEMENT_ATTEMPTS, new ReplacementCallback() {
                     @Override
-                    public void onSuccess(Void ignore) {
-                        // Automatically send notifications to winners
-                        sendWinnerNotifications(eventId, winners, new NotificationCallback() {
-                            @Override
-                            public void onComplete() {
-                                // Notifications sent (or failed silently - don't block draw success)
-                                cb.onSuccess(winners, replacements);
-                            }
-                        });
+                    public void onSuccess(String entrantId) {
+                        releaseLease(lease);
+                        cb.onSuccess(entrantId);
                     }
 
                     @Override
                     public void onError(@NonNull Exception e) {
+                        releaseLease(lease);
                         cb.onError(e);
                     }
                 });
@@ -139,161 +413,318 @@ public class DrawController {
         });
     }
 
-    /**
-     * Sends winner notifications to all winners, checking for duplicates first.
-     * This prevents sending multiple notifications to the same user.
-     */
-    private void sendWinnerNotifications(String eventId, List<String> winnerIds, NotificationCallback cb) {
-        if (winnerIds == null || winnerIds.isEmpty()) {
-            cb.onComplete();
+    private void promoteSampled(String eventId, DrawLease lease, int attemptsLeft, ReplacementCallback cb) {
+        eventDB.sampleRandomEntrant(eventId, EventDB.LIST_WAITING, new EventDB.Callback<String>() {
+            @Override
+            public void onSuccess(String entrantId) {
+                if (entrantId == null) {
+                    cb.onSuccess(null);
+                    return;
+                }
+                eventDB.promoteWaitlistEntrant(eventId, entrantId, lease,
+                        new EventDB.Callback<EventDB.PromotionOutcome>() {
+                    @Override
+                    public void onSuccess(EventDB.PromotionOutcome outcome) {
+                        if (outcome == EventDB.PromotionOutcome.PROMOTED) {
+                            cb.onSuccess(entrantId);
+                        } else if (attemptsLeft > 1) {
+                            promoteSampled(eventId, lease, attemptsLeft - 1, cb);
+                        } else {
+                            cb.onError(new IllegalStateException("The waitlist kept changing; try again"));
+                        }
+                    }
+
+                    @Override
+                    public void onError(@NonNull Exception e) {
+                        cb.onError(e);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+    }
+
+    // Renews the lease once half of it is used, then continues; a lost lease stops the draw
+    private void keepLease(DrawHandle handle, DrawCallback cb, Runnable next) {
+        DrawLease lease = handle.lease;
+        if (lease == null || !lease.isDueForRenewal(System.currentTimeMillis())) {
+            next.run();
             return;
         }
+        eventDB.renewDrawLease(lease, new EventDB.Callback<Void>() {
+            @Override
+            public void onSuccess(Void value) {
+                next.run();
+            }
 
-        // Check which winners already have notifications for this event
-        checkExistingNotifications(eventId, winnerIds, new NotificationCheckCallback() {
             @Override
-            public void onChecked(List<String> winnersToNotify) {
-                if (winnersToNotify.isEmpty()) {
-                    // All winners already notified
-                    cb.onComplete();
-                    return;
-                }
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+    }
 
-                // Send notifications only to winners who haven't been notified yet
-                String message = "Congratulations! You won. Proceed to signup.";
-                final int total = winnersToNotify.size();
-                final int[] completed = {0};
-                final int[] failed = {0};
-
-                for (String winnerId : winnersToNotify) {
-                    entrantDB.addNotification(winnerId, eventId, message, "winner", new EntrantDB.Callback<Void>() {
-                        @Override
-                        public void onSuccess(Void value) {
-                            completed[0]++;
-                            checkNotificationCompletion(completed, failed, total, cb);
-                        }
+    // Collects the waitlist while paging; the uniform draw only keeps a reservoir sample
+    private interface Selection {
+        void offer(String id);
 
-                        @Override
-                        public void onError(@NonNull Exception e) {
-                            failed[0]++;
-                            // Log but don't fail the entire operation
-                            android.util.Log.e("DrawController", "Failed to send notification to " + winnerId, e);
-                            checkNotificationCompletion(completed, failed, total, cb);
-                        }
-                    });
-                }
+        int seen();
+
+        LotteryEngine.Result draw(int numWinners, int replacementPoolSize);
+    }
+
+    private class UniformSelection implements Selection {
+        private final LotteryEngine.Reservoir reservoir;
+
+        UniformSelection(LotteryEngine.Reservoir reservoir) {
+            this.reservoir = reservoir;
+        }
+
+        @Override
+        public void offer(String id) {
+            reservoir.offer(id);
+        }
+
+        @Override
+        public int seen() {
+            return (int) reservoir.getSeen();
+        }
+
+        @Override
+        public LotteryEngine.Result draw(int numWinners, int replacementPoolSize) {
+            // The reservoir is an unordered sample; shuffle it to split winners from replacements
+            return lotteryEngine.draw(reservoir.sample(), numWinners, replacementPoolSize);
+        }
+    }
+
+    private class WeightedSelection implements Selection {
+        private final EntrantWeights weights;
+        private final List<String> ids = new ArrayList<>();
+
+        WeightedSelection(EntrantWeights weights) {
+            this.weights = weights;
+        }
+
+        @Override
+        public void offer(String id) {
+            ids.add(id);
+        }
+
+        @Override
+        public int seen() {
+            return ids.size();
+        }
+
+        @Override
+        public LotteryEngine.Result draw(int numWinners, int replacementPoolSize) {
+            String[] idArray = ids.toArray(new String[0]);
+            double[] weightArray = new double[idArray.length];
+            for (int i = 0; i < idArray.length; i++) {
+                weightArray[i] = weights.weightOf(idArray[i]);
+            }
+            return lotteryEngine.drawWeighted(idArray, weightArray, numWinners, replacementPoolSize);
+        }
+    }
+
+    private void startSampling(String eventId, Selection selection, int numWinners, int replacementPoolSize,
+                               DrawHandle handle, DrawCallback cb) {
+        // The count only drives the progress bar, so a failure just leaves it unknown
+        eventDB.getWaitlistCount(eventId, new EventDB.Callback<Integer>() {
+            @Override
+            public void onSuccess(Integer total) {
+                samplePage(eventId, null, selection, total != null ? total : 0,
+                        numWinners, replacementPoolSize, handle, cb);
             }
 
             @Override
             public void onError(@NonNull Exception e) {
-                // If check fails, try sending to all (better to send duplicate than miss one)
-                android.util.Log.w("DrawController", "Failed to check existing notifications, sending to all", e);
-                sendNotificationsToAll(eventId, winnerIds, cb);
+                samplePage(eventId, null, selection, 0, numWinners, replacementPoolSize, handle, cb);
             }
         });
     }
 
-    /**
-     * Checks which winners already have notifications for this event.
-     */
-    private void checkExistingNotifications(String eventId, List<String> winnerIds, NotificationCheckCallback cb) {
-        // For simplicity, we'll check by querying each winner's notifications
-        // In a production system, you might want to add a flag to the winners document
-        final List<String> winnersToNotify = new ArrayList<>();
-        final int[] checked = {0};
-        final int total = winnerIds.size();
-
-        if (total == 0) {
-            cb.onChecked(winnersToNotify);
+    private void samplePage(String eventId, String afterId, Selection selection, int total,
+                            int numWinners, int replacementPoolSize, DrawHandle handle, DrawCallback cb) {
+        if (handle.isCancelled()) {
+            // Nothing has been written yet, so the next run simply samples again
+            cb.onCancelled();
             return;
         }
+        keepLease(handle, cb, () -> readPage(eventId, afterId, selection, total,
+                numWinners, replacementPoolSize, handle, cb));
+    }
 
-        for (String winnerId : winnerIds) {
-            entrantDB.getNotifications(winnerId, new EntrantDB.Callback<List<Map<String, Object>>>() {
-                @Override
-                public void onSuccess(List<Map<String, Object>> notifications) {
-                    boolean hasNotification = false;
-                    if (notifications != null) {
-                        for (Map<String, Object> notification : notifications) {
-                            String notifEventId = (String) notification.get("eventId");
-                            String category = (String) notification.get("category");
-                            if (eventId.equals(notifEventId) && "winner".equals(category)) {
-                                hasNotification = true;
-                                break;
-                            }
-                        }
-                    }
-                    if (!hasNotification) {
-                        synchronized (winnersToNotify) {
-                            winnersToNotify.add(winnerId);
-                        }
-                    }
-                    checked[0]++;
-                    if (checked[0] == total) {
-                        cb.onChecked(winnersToNotify);
-                    }
+    private void readPage(String eventId, String afterId, Selection selection, int total,
+                          int numWinners, int replacementPoolSize, DrawHandle handle, DrawCallback cb) {
+        eventDB.getWaitlistIdsPage(eventId, afterId, WAITLIST_PAGE_SIZE, new EventDB.Callback<String[]>() {
+            @Override
+            public void onSuccess(String[] ids) {
+                for (String id : ids) {
+                    selection.offer(id);
+                }
+                int seen = selection.seen();
+                cb.onProgress(STAGE_SAMPLING, seen, Math.max(total, seen));
+                if (ids.length == WAITLIST_PAGE_SIZE) {
+                    samplePage(eventId, ids[ids.length - 1], selection, total,
+                            numWinners, replacementPoolSize, handle, cb);
+                } else {
+                    saveSelection(eventId, selection, numWinners, replacementPoolSize, handle, cb);
                 }
+            }
 
-                @Override
-                public void onError(@NonNull Exception e) {
-                    // If we can't check, include this winner to be safe
-                    synchronized (winnersToNotify) {
-                        winnersToNotify.add(winnerId);
+            @Override
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+    }
+
+    private void saveSelection(String eventId, Selection selection, int numWinners, int replacementPoolSize,
+                               DrawHandle handle, DrawCallback cb) {
+        LotteryEngine.Result result;
+        try {
+            result = selection.draw(numWinners, replacementPoolSize);
+        } catch (IllegalArgumentException e) {
+            cb.onError(e);
+            return;
+        }
+        if (result.getWinners().isEmpty()) {
+            cb.onError(new RuntimeException("No entrants found"));
+            return;
+        }
+        DrawCheckpoint checkpoint = new DrawCheckpoint(System.currentTimeMillis(),
+                result.getWinners(), result.getReplacements());
+        eventDB.saveDrawCheckpoint(eventId, checkpoint, new EventDB.Callback<Void>() {
+            @Override
+            public void onSuccess(Void value) {
+                commitChunks(eventId, checkpoint, handle, cb);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+    }
+
+    private void commitChunks(String eventId, DrawCheckpoint checkpoint, DrawHandle handle, DrawCallback cb) {
+        if (handle.isCancelled()) {
+            // The checkpoint keeps the committed offsets and status; the next run resumes from them
+            cb.onCancelled();
+            return;
+        }
+        if (checkpoint.isNotifying()) {
+            notifyWinners(eventId, checkpoint, cb);
+            return;
+        }
+        keepLease(handle, cb, () -> commitNextChunk(eventId, checkpoint, handle, cb));
+    }
+
+    private void commitNextChunk(String eventId, DrawCheckpoint checkpoint, DrawHandle handle, DrawCallback cb) {
+        int budget = EventDB.DRAW_CHUNK_ENTRANTS;
+        int winnerEnd = Math.min(checkpoint.getCommittedWinners() + budget, checkpoint.getWinners().size());
+        budget -= winnerEnd - checkpoint.getCommittedWinners();
+        int replacementEnd = Math.min(checkpoint.getCommittedReplacements() + budget,
+                checkpoint.getReplacements().size());
+
+        eventDB.commitDrawChunk(eventId, checkpoint, winnerEnd, replacementEnd, new EventDB.Callback<Void>() {
+            @Override
+            public void onSuccess(Void value) {
+                cb.onProgress(STAGE_COMMITTING, checkpoint.committedCount(), checkpoint.selectedCount());
+                commitChunks(eventId, checkpoint, handle, cb);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+    }
+
+    private void notifyWinners(String eventId, DrawCheckpoint checkpoint, DrawCallback cb) {
+        // Entrants who left before their chunk committed were not moved, so they are not told they won
+        List<String> winners = checkpoint.getMovedWinners();
+        List<String> replacements = checkpoint.getMovedReplacements();
+        // The draw id is the notification round, so a resumed draw never notifies twice
+        String round = String.valueOf(checkpoint.getDrawId());
+        sendWinnerNotifications(eventId, winners, round, cb, new NotificationCallback() {
+            @Override
+            public void onComplete() {
+                // Notifications sent (or failed silently - don't block draw success); only now
+                // does the checkpoint stop resuming this draw
+                eventDB.completeDrawCheckpoint(eventId, checkpoint, new EventDB.Callback<Void>() {
+                    @Override
+                    public void onSuccess(Void value) {
+                        cb.onSuccess(winners, replacements);
                     }
-                    checked[0]++;
-                    if (checked[0] == total) {
-                        cb.onChecked(winnersToNotify);
+
+                    @Override
+                    public void onError(@NonNull Exception e) {
+                        cb.onError(e);
                     }
-                }
-            });
-        }
+                });
+            }
+        });
     }
 
     /**
-     * Fallback: sends notifications to all winners without checking.
+     * Sends winner notifications through the batched dispatcher under deterministic ids
+     * for this draw round, so a repeated send for the same round is a no-op instead of a
+     * duplicate. Failures are logged and do not fail the draw.
      */
-    private void sendNotificationsToAll(String eventId, List<String> winnerIds, NotificationCallback cb) {
+    private void sendWinnerNotifications(String eventId, List<String> winnerIds, String round,
+                                         DrawCallback progress, NotificationCallback cb) {
         if (winnerIds == null || winnerIds.isEmpty()) {
             cb.onComplete();
             return;
         }
 
         String message = "Congratulations! You won. Proceed to signup.";
-        final int total = winnerIds.size();
-        final int[] completed = {0};
-        final int[] failed = {0};
+        dispatcher().dispatch(winnerIds, eventId, "winner", round, message,
+                new NotificationDispatcher.Listener() {
+            @Override
+            public void onProgress(int delivered, int failed, int total) {
+                progress.onProgress(STAGE_NOTIFYING, delivered + failed, total);
+            }
 
-        for (String winnerId : winnerIds) {
-            entrantDB.addNotification(winnerId, eventId, message, "winner", new EntrantDB.Callback<Void>() {
-                @Override
-                public void onSuccess(Void value) {
-                    completed[0]++;
-                    checkNotificationCompletion(completed, failed, total, cb);
+            @Override
+            public void onComplete(DispatchResult result) {
+                if (!result.isComplete()) {
+                    android.util.Log.e("DrawController", "Failed to notify "
+                            + result.getFailedCount() + " of " + result.getTotal() + " winners");
                 }
+                cb.onComplete();
+            }
+        });
+    }
 
-                @Override
-                public void onError(@NonNull Exception e) {
-                    failed[0]++;
-                    android.util.Log.e("DrawController", "Failed to send notification to " + winnerId, e);
-                    checkNotificationCompletion(completed, failed, total, cb);
-                }
-            });
+    private DrawSimulator simulator() {
+        if (simulator == null) {
+            simulator = new DrawSimulator();
         }
+        return simulator;
     }
 
-    private void checkNotificationCompletion(int[] completed, int[] failed, int total, NotificationCallback cb) {
-        if (completed[0] + failed[0] == total) {
-            cb.onComplete();
+    private Handler mainHandler() {
+        if (mainHandler == null) {
+            mainHandler = new Handler(Looper.getMainLooper());
         }
+        return mainHandler;
     }
 
-    private interface NotificationCallback {
-        void onComplete();
+    private NotificationDispatcher dispatcher() {
+        if (dispatcher == null) {
+            dispatcher = new NotificationDispatcher();
+        }
+        return dispatcher;
     }
 
-    private interface NotificationCheckCallback {
-        void onChecked(List<String> winnersToNotify);
-        void onError(@NonNull Exception e);
+    private interface NotificationCallback {
+        void onComplete();
     }
 }
 
@@ -0,0 +1,368 @@
+/*
+ * Monte Carlo model of a draw and the responses that follow it, used to suggest how many
+ * winners to invite and how large a replacement pool to keep. Reads and writes nothing.
+ * Outstanding issues: Every entrant is assumed to accept with the same probability; the
+ * model does not know about individual history or invitation expiry.
+ */
+package ca.ualberta.codarc.codarc_events.controllers;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Simulates many rounds of "invite {@code W} winners, fill declined seats from a pool of
+ * {@code R}" and picks the sizes to recommend.
+ *
+ * <p>The accept rate is the Laplace-smoothed rate from the event's accepted and cancelled
+ * lists. Each round draws its own rate around that estimate, so a short history gives
+ * wider intervals. Rounds are split across a {@link ForkJoinPool}, and each leaf uses its
+ * own {@link SplittableRandom} split from the seed, so a seeded run gives the same
+ * result on any number of cores.</p>
+ *
+ * <p>The recommended winners count is the largest that keeps the chance of more
+ * acceptances than seats under {@code maxOverflowProbability}. The pool is the smallest
+ * that fills every seat with probability {@code targetFillProbability}, or the largest
+ * the waitlist allows when nothing reaches it. Every candidate is run on the same random
+ * streams, which keeps the comparisons between candidates steady.</p>
+ */
+public class DrawSimulator {
+
+    public static final int DEFAULT_ROUNDS = 20000;
+    public static final double DEFAULT_TARGET_FILL_PROBABILITY = 0.9;
+    public static final double DEFAULT_MAX_OVERFLOW_PROBABILITY = 0.05;
+
+    // Rounds simulated by one fork-join leaf
+    private static final int LEAF_ROUNDS = 1000;
+    // Below this many trials a binomial is drawn trial by trial
+    private static final int EXACT_BINOMIAL_LIMIT = 64;
+    private static final double Z_95 = 1.96;
+
+    /** Inputs for one simulation, usually taken from the event's counters. */
+    public static class Params {
+        private final int waitlistSize;
+        private final int seats;
+        private final int accepted;
+        private final int declined;
+
+        /**
+         * @param waitlistSize entrants that can be drawn
+         * @param seats open spots left to fill
+         * @param acceptedCount past invitations accepted
+         * @param declinedCount past invitations declined or cancelled
+         */
+        public Params(int waitlistSize, int seats, int acceptedCount, int declinedCount) {
+            if (waitlistSize < 0 || seats < 0 || acceptedCount < 0 || declinedCount < 0) {
+                throw new IllegalArgumentException("counts cannot be negative");
+            }
+            this.waitlistSize = waitlistSize;
+            this.seats = seats;
+            this.accepted = acceptedCount;
+            this.declined = declinedCount;
+        }
+
+        public int getWaitlistSize() {
+            return waitlistSize;
+        }
+
+        public int getSeats() {
+            return seats;
+        }
+
+        /** Laplace-smoothed accept rate: {@code (accepted + 1) / (accepted + declined + 2)}. */
+        public double getAcceptRate() {
+            return (accepted + 1.0) / (accepted + declined + 2.0);
+        }
+
+        // Standard deviation of the Beta(accepted + 1, declined + 1) posterior
+        double acceptRateSpread() {
+            double n = accepted + declined + 2.0;
+            double p = getAcceptRate();
+            return Math.sqrt(p * (1 - p) / (n + 1));
+        }
+    }
+
+    /** A 95% confidence interval. */
+    public static class Interval {
+        private final double low;
+        private final double high;
+
+        Interval(double low, double high) {
+            this.low = low;
+            this.high = high;
+        }
+
+        public double getLow() {
+            return low;
+        }
+
+        public double getHigh() {
+            return high;
+        }
+    }
+
+    /** Suggested draw sizes and what the simulation expects them to achieve. */
+    public static class Recommendation {
+        private final int numWinners;
+        private final int replacementPoolSize;
+        private final double acceptRate;
+        private final int rounds;
+        private final Outcome outcome;
+
+        Recommendation(int numWinners, int replacementPoolSize, double acceptRate, int rounds, Outcome outcome) {
+            this.numWinners = numWinners;
+            this.replacementPoolSize = replacementPoolSize;
+            this.acceptRate = acceptRate;
+            this.rounds = rounds;
+            this.outcome = outcome;
+        }
+
+        public int getNumWinners() {
+            return numWinners;
+        }
+
+        public int getReplacementPoolSize() {
+            return replacementPoolSize;
+        }
+
+        /** Smoothed accept rate the simulation was centred on. */
+        public double getAcceptRate() {
+            return acceptRate;
+        }
+
+        public int getRounds() {
+            return rounds;
+        }
+
+        /** Share of rounds in which every seat was filled. */
+        public double getFullProbability() {
+            return outcome.fullRate();
+        }
+
+        /** Wilson interval for {@link #getFullProbability()}. */
+        public Interval getFullProbabilityInterval() {
+            return wilson(outcome.full, outcome.rounds);
+        }
+
+        /** Share of rounds in which more winners accepted than there were seats. */
+        public double getOverflowProbability() {
+            return outcome.overflowRate();
+        }
+
+        public double getMeanFilled() {
+            return outcome.meanFilled();
+        }
+
+        /** Normal interval for {@link #getMeanFilled()}. */
+        public Interval getMeanFilledInterval() {
+            double mean = outcome.meanFilled();
+            double variance = Math.max(0, outcome.filledSquares / (double) outcome.rounds - mean * mean);
+            double halfWidth = Z_95 * Math.sqrt(variance / outcome.rounds);
+            return new Interval(mean - halfWidth, mean + halfWidth);
+        }
+    }
+
+    // Totals over a set of simulated rounds; leaves are merged as the fork-join unwinds
+    static class Outcome {
+        int rounds;
+        int full;
+        int overflow;
+        long filled;
+        long filledSquares;
+
+        Outcome merge(Outcome other) {
+            rounds += other.rounds;
+            full += other.full;
+            overflow += other.overflow;
+            filled += other.filled;
+            filledSquares += other.filledSquares;
+            return this;
+        }
+
+        double fullRate() {
+            return rounds == 0 ? 0 : full / (double) rounds;
+        }
+
+        double overflowRate() {
+            return rounds == 0 ? 0 : overflow / (double) rounds;
+        }
+
+        double meanFilled() {
+            return rounds == 0 ? 0 : filled / (double) rounds;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final long seed;
+    private final int rounds;
+    private final double targetFillProbability;
+    private final double maxOverflowProbability;
+
+    public DrawSimulator() {
+        this(ForkJoinPool.commonPool(), System.nanoTime(), DEFAULT_ROUNDS,
+                DEFAULT_TARGET_FILL_PROBABILITY, DEFAULT_MAX_OVERFLOW_PROBABILITY);
+    }
+
+    /**
+     * @param pool pool the rounds are spread over
+     * @param seed seed for reproducible recommendations
+     * @param rounds simulated rounds per candidate
+     */
+    public DrawSimulator(ForkJoinPool pool, long seed, int rounds,
+                         double targetFillProbability, double maxOverflowProbability) {
+        if (rounds <= 0) {
+            throw new IllegalArgumentException("rounds must be > 0");
+        }
+        this.pool = pool;
+        this.seed = seed;
+        this.rounds = rounds;
+        this.targetFillProbability = targetFillProbability;
+        this.maxOverflowProbability = maxOverflowProbability;
+    }
+
+    /**
+     * Searches winners and pool sizes and returns the recommendation. Blocks while the
+     * rounds run, so call it off the main thread.
+     */
+    public Recommendation recommend(Params params) {
+        int n = params.getWaitlistSize();
+        int seats = params.getSeats();
+        if (n == 0 || seats == 0) {
+            return new Recommendation(0, 0, params.getAcceptRate(), 0, new Outcome());
+        }
+
+        // Overflow risk only grows with more winners, so binary search the largest safe count
+        int low = Math.min(seats, n);
+        int high = n;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (simulate(params, mid, 0).overflowRate() <= maxOverflowProbability) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int winners = low;
+
+        // Fill chance only grows with a bigger pool, so binary search the smallest that is enough
+        int poolLow = 0;
+        int poolHigh = n - winners;
+        while (poolLow < poolHigh) {
+            int mid = (poolLow + poolHigh) >>> 1;
+            if (simulate(params, winners, mid).fullRate() >= targetFillProbability) {
+                poolHigh = mid;
+            } else {
+                poolLow = mid + 1;
+            }
+        }
+        int poolSize = poolLow;
+        return new Recommendation(winners, poolSize, params.getAcceptRate(), rounds,
+                simulate(params, winners, poolSize));
+    }
+
+    /** Runs every round for one candidate and returns the totals. */
+    Outcome simulate(Params params, int winners, int poolSize) {
+        return pool.invoke(new RoundsTask(params, winners, poolSize, 0, rounds, new SplittableRandom(seed)));
+    }
+
+    private static class RoundsTask extends RecursiveTask<Outcome> {
+        private static final long serialVersionUID = 1L;
+
+        private final Params params;
+        private final int winners;
+        private final int poolSize;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        RoundsTask(Params params, int winners, int poolSize, int from, int to, SplittableRandom random) {
+            this.params = params;
+            this.winners = winners;
+            this.poolSize = poolSize;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected Outcome compute() {
+            if (to - from <= LEAF_ROUNDS) {
+                return runLeaf();
+            }
+            int mid = (from + to) >>> 1;
+            // Split before forking so the streams do not depend on scheduling
+            RoundsTask left = new RoundsTask(params, winners, poolSize, from, mid, random.split());
+            RoundsTask right = new RoundsTask(params, winners, poolSize, mid, to, random.split());
+            left.fork();
+            Outcome result = right.compute();
+            return left.join().merge(result);
+        }
+
+        private Outcome runLeaf() {
+            Outcome outcome = new Outcome();
+            int seats = params.getSeats();
+            double rate = params.getAcceptRate();
+            double spread = params.acceptRateSpread();
+            for (int i = from; i < to; i++) {
+                double p = clamp(rate + spread * gaussian(random), 0.0, 1.0);
+                int acceptedWinners = binomial(random, winners, p);
+                int filled = Math.min(acceptedWinners, seats);
+                if (acceptedWinners > seats) {
+                    outcome.overflow++;
+                }
+                // Pool entrants are offered seats one by one until the seats run out
+                int open = seats - filled;
+                if (open > 0 && poolSize > 0) {
+                    filled += Math.min(open, binomial(random, poolSize, p));
+                }
+                if (filled == seats) {
+                    outcome.full++;
+                }
+                outcome.filled += filled;
+                outcome.filledSquares += (long) filled * filled;
+                outcome.rounds++;
+            }
+            return outcome;
+        }
+    }
+
+    static int binomial(SplittableRandom random, int trials, double p) {
+        if (trials <= EXACT_BINOMIAL_LIMIT) {
+            int successes = 0;
+            for (int i = 0; i < trials; i++) {
+                if (random.nextDouble() < p) {
+                    successes++;
+                }
+            }
+            return successes;
+        }
+        // Normal approximation with continuity correction for large trial counts
+        double mean = trials * p;
+        double sd = Math.sqrt(trials * p * (1 - p));
+        long k = Math.round(mean + sd * gaussian(random));
+        return (int) Math.max(0, Math.min(trials, k));
+    }
+
+    // Box-Muller; SplittableRandom has no nextGaussian before Java 17
+    private static double gaussian(SplittableRandom random) {
+        double u = 1.0 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u)) * Math.cos(2.0 * Math.PI * v);
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static Interval wilson(int successes, int trials) {
+        if (trials == 0) {
+            return new Interval(0, 1);
+        }
+        double p = successes / (double) trials;
+        double z2 = Z_95 * Z_95;
+        double denominator = 1 + z2 / trials;
+        double centre = (p + z2 / (2.0 * trials)) / denominator;
+        double halfWidth = Z_95 * Math.sqrt(p * (1 - p) / trials + z2 / (4.0 * trials * trials)) / denominator;
+        return new Interval(Math.max(0, centre - halfWidth), Math.min(1, centre + halfWidth));
+    }
+}
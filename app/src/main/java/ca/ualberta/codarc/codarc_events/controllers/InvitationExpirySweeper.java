@@ -0,0 +1,108 @@
+/*
+ * Controller that cancels unanswered lottery invitations once an event's response window
+ * has passed, freeing the seats for the replacement pool.
+ * Outstanding issues: Only the organizer's own device sweeps their events, so expiry waits
+ * until that device next runs the background job.
+ */
+package ca.ualberta.codarc.codarc_events.controllers;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+import ca.ualberta.codarc.codarc_events.data.EventDB;
+import ca.ualberta.codarc.codarc_events.data.ExpiryChunk;
+import ca.ualberta.codarc.codarc_events.models.Event;
+
+/**
+ * Walks the organizer's events with an invitation expiry and expires overdue winners
+ * chunk by chunk through {@link EventDB#expireInvitationChunk}.
+ *
+ * <p>Each run handles at most {@link #MAX_CHUNKS_PER_EVENT} chunks per event, so one
+ * event with thousands of overdue invitations cannot make a run expensive; expired
+ * winners leave the {@code winners} list, so the next run simply picks up where this one
+ * stopped. Events are swept one after another and a failing event does not stop the
+ * rest.</p>
+ */
+public class InvitationExpirySweeper {
+
+    // Chunks swept per event in one run
+    static final int MAX_CHUNKS_PER_EVENT = 20;
+    private static final long HOUR_MS = 60L * 60L * 1000L;
+
+    public interface SweepCallback {
+        /**
+         * @param expired invitations cancelled in this run
+         * @param backfilled replacements promoted into the freed seats
+         * @param failedEvents events whose sweep failed and should be retried
+         */
+        void onComplete(int expired, int backfilled, int failedEvents);
+
+        void onError(@NonNull Exception e);
+    }
+
+    private final EventDB eventDB;
+
+    public InvitationExpirySweeper(EventDB eventDB) {
+        this.eventDB = eventDB;
+    }
+
+    /** Sweeps every event organized by {@code organizerId} that has an expiry set. */
+    public void sweep(String organizerId, SweepCallback cb) {
+        eventDB.getEventsWithInvitationExpiry(organizerId, new EventDB.Callback<List<Event>>() {
+            @Override
+            public void onSuccess(List<Event> events) {
+                sweepEvent(events, 0, new int[3], System.currentTimeMillis(), cb);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+    }
+
+    // totals: expired, backfilled, failed events
+    private void sweepEvent(List<Event> events, int index, int[] totals, long now, SweepCallback cb) {
+        if (index >= events.size()) {
+            cb.onComplete(totals[0], totals[1], totals[2]);
+            return;
+        }
+        Event event = events.get(index);
+        Integer ttlHours = event.getInvitationTtlHours();
+        if (ttlHours == null || ttlHours <= 0) {
+            sweepEvent(events, index + 1, totals, now, cb);
+            return;
+        }
+        long cutoff = now - ttlHours * HOUR_MS;
+        sweepChunk(event, cutoff, null, 0, () -> sweepEvent(events, index + 1, totals, now, cb), totals);
+    }
+
+    private void sweepChunk(Event event, long cutoff, ExpiryChunk previous, int chunks,
+                            Runnable next, int[] totals) {
+        if (chunks >= MAX_CHUNKS_PER_EVENT) {
+            next.run();
+            return;
+        }
+        eventDB.expireInvitationChunk(event.getId(), cutoff, event.isAutoBackfill(), previous,
+                new EventDB.Callback<ExpiryChunk>() {
+            @Override
+            public void onSuccess(ExpiryChunk chunk) {
+                totals[0] += chunk.getExpired();
+                totals[1] += chunk.getBackfilled();
+                if (chunk.hasMore()) {
+                    sweepChunk(event, cutoff, chunk, chunks + 1, next, totals);
+                } else {
+                    next.run();
+                }
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                android.util.Log.e("InvitationExpirySweeper", "Sweep failed for event " + event.getId(), e);
+                totals[2]++;
+                next.run();
+            }
+        });
+    }
+}
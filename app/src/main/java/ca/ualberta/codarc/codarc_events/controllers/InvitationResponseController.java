@@ -7,15 +7,16 @@ package ca.ualberta.codarc.codarc_events.controllers;
 
 import androidx.annotation.NonNull;
 
-import java.util.HashMap;
-import java.util.Map;
-
-import ca.ualberta.codarc.codarc_events.data.EntrantDB;
 import ca.ualberta.codarc.codarc_events.data.EventDB;
 
 /**
  * Handles invitation accept/decline responses.
- * Updates event status and notification.
+ * The entrant's move, the counters and the notification's response commit together in
+ * one Firestore transaction: it reads the event, the winners doc and the notification,
+ * then commits, so each answer costs at least two round trips. A plain WriteBatch would
+ * need only one, but it cannot read, and the transaction must re-check that the entrant
+ * is still a winner and the invitation still unanswered, so an invitation that expired
+ * or was answered from another screen is not accepted.
  */
 public class InvitationResponseController {
 
@@ -25,11 +26,9 @@ public class InvitationResponseController {
     }
 
     private final EventDB eventDB;
-    private final EntrantDB entrantDB;
 
-    public InvitationResponseController(EventDB eventDB, EntrantDB entrantDB) {
+    public InvitationResponseController(EventDB eventDB) {
         this.eventDB = eventDB;
-        this.entrantDB = entrantDB;
     }
 
     public void acceptInvitation(String eventId,
@@ -65,25 +64,13 @@ public class InvitationResponseController {
             return;
         }
 
-        eventDB.setEnrolledStatus(eventId, deviceId, enroll, new EventDB.Callback<Void>() {
+        // One transaction re-checks the invitation is open, then moves the entrant and updates
+        // the counters and the notification together. A decline first reads the event's
+        // autoBackfill setting and, when it is on, the oldest pool member to promote with it.
+        eventDB.respondToInvitation(eventId, deviceId, notificationId, enroll, response, new EventDB.Callback<Void>() {
             @Override
             public void onSuccess(Void value) {
-                Map<String, Object> updates = new HashMap<>();
-                updates.put("read", true);
-                updates.put("response", response);
-                updates.put("respondedAt", System.currentTimeMillis());
-
-                entrantDB.updateNotificationState(deviceId, notificationId, updates, new EntrantDB.Callback<Void>() {
-                    @Override
-                    public void onSuccess(Void ignore) {
-                        cb.onSuccess();
-                    }
-
-                    @Override
-                    public void onError(@NonNull Exception e) {
-                        cb.onError(e);
-                    }
-                });
+                cb.onSuccess();
             }
 
             @Override
@@ -8,10 +8,14 @@ package ca.ualberta.codarc.codarc_events.controllers;
 
 import androidx.annotation.NonNull;
 
+import java.util.Map;
+
 import ca.ualberta.codarc.codarc_events.data.EntrantDB;
 import ca.ualberta.codarc.codarc_events.data.EventDB;
+import ca.ualberta.codarc.codarc_events.data.Session;
 import ca.ualberta.codarc.codarc_events.models.Entrant;
 import ca.ualberta.codarc.codarc_events.models.Event;
+import ca.ualberta.codarc.codarc_events.utils.Deferred;
 
 /**
  * Handles joining waitlists - validation and business logic.
@@ -54,6 +58,9 @@ public class JoinWaitlistController {
         }
     }
 
+    // Upper bound on a lookup before the join reports a failure instead of waiting on
+    static final long LOOKUP_TIMEOUT_MS = 10_000L;
+
     private final EventDB eventDB;
     private final EntrantDB entrantDB;
 
@@ -83,93 +90,151 @@ public class JoinWaitlistController {
         });
     }
 
+    /**
+     * Starts the profile registration check now, so a screen can run it alongside its own
+     * reads and hand the result to {@link #joinWaitlist(Event, String, Deferred, Callback)}.
+     */
+    public Deferred<Boolean> registrationCheck(String deviceId) {
+        // The session keeps the entrant's own status current, so no read is needed
+        Session session = Session.getInstance();
+        if (session != null && session.getDeviceId().equals(deviceId) && session.isRegistered() != null) {
+            return Deferred.completed(session.isRegistered());
+        }
+        return Deferred.<Boolean>ofEntrant(cb -> checkProfileRegistration(deviceId, cb))
+                .withTimeout(LOOKUP_TIMEOUT_MS);
+    }
+
     // Main join waitlist logic - validates and joins
     public void joinWaitlist(Event event, String deviceId, Callback callback) {
+        if (validate(event, deviceId, callback)) {
+            submitWhenRegistered(event.getId(), deviceId, registrationCheck(deviceId), callback);
+        }
+    }
+
+    /**
+     * Joins using a registration check started earlier, which takes the profile read off
+     * the join path. A negative or failed early check is repeated, since the entrant may
+     * have registered in the meantime.
+     */
+    public void joinWaitlist(Event event, String deviceId, Deferred<Boolean> registration, Callback callback) {
+        if (!validate(event, deviceId, callback)) {
+            return;
+        }
+        Deferred<Boolean> registered = registration
+                .recover(e -> Deferred.completed(false))
+                .then(known -> known ? Deferred.completed(true) : registrationCheck(deviceId));
+        submitWhenRegistered(event.getId(), deviceId, registered, callback);
+    }
+
+    // Checks that need no network; reports the failure and returns false if one fails
+    private boolean validate(Event event, String deviceId, Callback callback) {
         if (event == null) {
             callback.onResult(JoinResult.failure("Event is required"));
-            return;
+            return false;
         }
         if (deviceId == null || deviceId.isEmpty()) {
             callback.onResult(JoinResult.failure("Device ID is required"));
-            return;
+            return false;
         }
 
         // Check if user is the organizer of this event
         if (event.getOrganizerId() != null && event.getOrganizerId().equals(deviceId)) {
             callback.onResult(JoinResult.failure("You cannot join your own event"));
-            return;
+            return false;
         }
 
-        // First check profile registration
-        checkProfileRegistration(deviceId, new EntrantDB.Callback<Boolean>() {
+        Session session = Session.getInstance();
+        if (session != null && session.getDeviceId().equals(deviceId) && session.isBanned()) {
+            callback.onResult(JoinResult.failure("Your account has been banned"));
+            return false;
+        }
+
+        // Validate registration window before any network call
+        if (!EventValidationHelper.isWithinRegistrationWindow(event)) {
+            callback.onResult(JoinResult.failure("Registration window is closed"));
+            return false;
+        }
+        return true;
+    }
+
+    // Membership and capacity are checked inside the join transaction
+    private void submitWhenRegistered(String eventId, String deviceId, Deferred<Boolean> registered,
+                                      Callback callback) {
+        // Timeouts complete off the main thread; results go to UI code
+        registered.onMainThread().whenDone(new Deferred.Callback<Boolean>() {
             @Override
             public void onSuccess(Boolean isRegistered) {
                 if (!isRegistered) {
                     callback.onResult(JoinResult.requiresProfileRegistration());
                     return;
                 }
+                submitJoin(eventId, deviceId, true, callback);
+            }
 
-                // Check if already joined
-                eventDB.isEntrantOnWaitlist(event.getId(), deviceId, new EventDB.Callback<Boolean>() {
-                    @Override
-                    public void onSuccess(Boolean alreadyJoined) {
-                        if (alreadyJoined) {
-                            callback.onResult(JoinResult.failure("Already joined"));
-                            return;
-                        }
+            @Override
+            public void onError(@NonNull Exception e) {
+                callback.onResult(JoinResult.failure("Failed to check profile"));
+            }
+        });
+    }
 
-                        // Validate registration window
-                        if (!EventValidationHelper.isWithinRegistrationWindow(event)) {
-                            callback.onResult(JoinResult.failure("Registration window is closed"));
-                            return;
+    // Runs the transactional join; events created before counters get one reconcile and retry
+    private void submitJoin(String eventId, String deviceId, boolean mayReconcile, Callback callback) {
+        eventDB.tryJoinWaitlist(eventId, deviceId, new EventDB.Callback<EventDB.JoinOutcome>() {
+            @Override
+            public void onSuccess(EventDB.JoinOutcome outcome) {
+                switch (outcome) {
+                    case JOINED:
+                        callback.onResult(JoinResult.success("Joined successfully"));
+                        break;
+                    case ALREADY_JOINED:
+                        callback.onResult(JoinResult.failure("Already joined"));
+                        break;
+                    case FULL:
+                        callback.onResult(JoinResult.failure("Event is full"));
+                        break;
+                    case EVENT_NOT_FOUND:
+                        callback.onResult(JoinResult.failure("Event no longer exists"));
+                        break;
+                    case COUNTERS_BUSY:
+                        callback.onResult(JoinResult.failure("Registration is being updated. Please try again shortly."));
+                        break;
+                    case COUNTERS_MISSING:
+                        if (mayReconcile) {
+                            reconcileAndRetry(eventId, deviceId, callback);
+                        } else {
+                            callback.onResult(JoinResult.failure("Failed to check availability"));
                         }
+                        break;
+                }
+            }
 
-                        // Validate capacity
-                        eventDB.getWaitlistCount(event.getId(), new EventDB.Callback<Integer>() {
-                            @Override
-                            public void onSuccess(Integer currentCount) {
-                                if (!EventValidationHelper.hasCapacity(event, currentCount)) {
-                                    callback.onResult(JoinResult.failure("Event is full"));
-                                    return;
-                                }
-
-                                // All validations passed, join waitlist
-                                eventDB.joinWaitlist(event.getId(), deviceId, new EventDB.Callback<Void>() {
-                                    @Override
-                                    public void onSuccess(Void value) {
-                                        callback.onResult(JoinResult.success("Joined successfully"));
-                                    }
-
-                                    @Override
-                                    public void onError(@NonNull Exception e) {
-                                        callback.onResult(JoinResult.failure("Failed to join. Please try again."));
-                                    }
-                                });
-                            }
-
-                            @Override
-                            public void onError(@NonNull Exception e) {
-                                callback.onResult(JoinResult.failure("Failed to check availability"));
-                            }
-                        });
-                    }
-
-                    @Override
-                    public void onError(@NonNull Exception e) {
-                        callback.onResult(JoinResult.failure("Failed to check status. Please try again."));
-                    }
-                });
+            @Override
+            public void onError(@NonNull Exception e) {
+                callback.onResult(JoinResult.failure("Failed to join. Please try again."));
+            }
+        });
+    }
+
+    // The reconcile holds the event's recount lock, so a joiner that loses the race for it
+    // retries against that lock and is told to come back rather than recounting again
+    private void reconcileAndRetry(String eventId, String deviceId, Callback callback) {
+        eventDB.reconcileCounters(eventId, new EventDB.Callback<Map<String, Integer>>() {
+            @Override
+            public void onSuccess(Map<String, Integer> counts) {
+                submitJoin(eventId, deviceId, false, callback);
             }
 
             @Override
             public void onError(@NonNull Exception e) {
-                callback.onResult(JoinResult.failure("Failed to check profile"));
+                submitJoin(eventId, deviceId, false, callback);
             }
         });
     }
 
+    // Counter-based size, cheap enough for every card in the event list
     public void getWaitlistCount(String eventId, EventDB.Callback<Integer> cb) {
-        eventDB.getWaitlistCount(eventId, cb);
+        eventDB.getWaitlistTotal(eventId, cb);
     }
 
     public interface Callback {
@@ -0,0 +1,204 @@
+/*
+ * Pure lottery selection used by the draw, kept free of Firestore so it can be unit tested
+ * with a seeded random source.
+ * Outstanding issues: Uses java.util.Random by default; inject a SecureRandom if draws must
+ * be unpredictable to observers.
+ */
+package ca.ualberta.codarc.codarc_events.controllers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Picks winners and replacements from an array of entrant ids with a partial
+ * Fisher-Yates shuffle: only the first {@code winners + replacements} positions are
+ * shuffled, so a draw costs O(k) swaps and no extra allocation beyond the result,
+ * however long the waitlist is. For waitlists too large to hold at once, feed a
+ * {@link Reservoir} page by page and draw from its sample. Weighted draws use an
+ * {@link AliasTable}.
+ */
+public class LotteryEngine {
+
+    /** Winners and replacement pool chosen by one draw, in pick order. */
+    public static class Result {
+        private final String[] ids;
+        private final int winnerCount;
+        private final int replacementCount;
+
+        Result(String[] ids, int winnerCount, int replacementCount) {
+            this.ids = ids;
+            this.winnerCount = winnerCount;
+            this.replacementCount = replacementCount;
+        }
+
+        public List<String> getWinners() {
+            return Collections.unmodifiableList(Arrays.asList(ids).subList(0, winnerCount));
+        }
+
+        public List<String> getReplacements() {
+            return Collections.unmodifiableList(
+                    Arrays.asList(ids).subList(winnerCount, winnerCount + replacementCount));
+        }
+    }
+
+    /**
+     * Fixed-size uniform sample over a stream of ids (reservoir sampling, Algorithm R).
+     * Memory stays at {@code capacity} ids however many are offered.
+     */
+    public static class Reservoir {
+        private final String[] slots;
+        private final Random random;
+        private long seen;
+
+        Reservoir(int capacity, Random random) {
+            this.slots = new String[capacity];
+            this.random = random;
+        }
+
+        public void offer(String id) {
+            if (seen < slots.length) {
+                slots[(int) seen] = id;
+            } else {
+                int j = random.nextInt((int) Math.min(seen + 1, Integer.MAX_VALUE));
+                if (j < slots.length) {
+                    slots[j] = id;
+                }
+            }
+            seen++;
+        }
+
+        /** Number of ids offered so far. */
+        public long getSeen() {
+            return seen;
+        }
+
+        /** The sampled ids; fewer than the capacity when fewer were offered. */
+        public String[] sample() {
+            return Arrays.copyOf(slots, (int) Math.min(seen, slots.length));
+        }
+    }
+
+    private final Random random;
+
+    public LotteryEngine() {
+        this(new Random());
+    }
+
+    /**
+     * @param random source of randomness; pass a seeded instance for reproducible draws
+     */
+    public LotteryEngine(Random random) {
+        this.random = random;
+    }
+
+    /** Starts a reservoir that keeps a uniform sample of {@code capacity} ids. */
+    public Reservoir newReservoir(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity cannot be negative");
+        }
+        return new Reservoir(capacity, random);
+    }
+
+    /**
+     * Draws up to {@code numWinners} winners and then up to {@code replacementPoolSize}
+     * replacements. Every k-subset in every order is equally likely.
+     *
+     * @param ids candidate ids; the array is reordered in place
+     * @return the picks; counts are clamped to the number of candidates
+     */
+    public Result draw(String[] ids, int numWinners, int replacementPoolSize) {
+        if (numWinners < 0 || replacementPoolSize < 0) {
+            throw new IllegalArgumentException("counts cannot be negative");
+        }
+        int n = ids.length;
+        int winnerCount = Math.min(numWinners, n);
+        int replacementCount = Math.min(replacementPoolSize, n - winnerCount);
+        int k = winnerCount + replacementCount;
+
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(n - i);
+            String tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
+        return new Result(Arrays.copyOf(ids, k), winnerCount, replacementCount);
+    }
+
+    /**
+     * Weighted draw without replacement: each pick is proportional to weight among the
+     * entrants not picked yet. Picks come from an {@link AliasTable} in O(1); a pick that
+     * lands on an entrant already taken is rejected, and the table is rebuilt over the
+     * remaining entrants once half of its weight is taken, so a pick needs fewer than two
+     * tries on average.
+     *
+     * @param ids candidate ids
+     * @param weights weight per id, same length; entrants with weight 0 are never picked
+     * @return the picks; counts are clamped to the number of positive-weight candidates
+     */
+    public Result drawWeighted(String[] ids, double[] weights, int numWinners, int replacementPoolSize) {
+        if (numWinners < 0 || replacementPoolSize < 0) {
+            throw new IllegalArgumentException("counts cannot be negative");
+        }
+        if (ids.length != weights.length) {
+            throw new IllegalArgumentException("ids and weights differ in length");
+        }
+        int eligible = 0;
+        for (double w : weights) {
+            if (!(w >= 0) || Double.isInfinite(w)) {
+                throw new IllegalArgumentException("weights must be finite and non-negative");
+            }
+            if (w > 0) {
+                eligible++;
+            }
+        }
+        int winnerCount = Math.min(numWinners, eligible);
+        int replacementCount = Math.min(replacementPoolSize, eligible - winnerCount);
+        int k = winnerCount + replacementCount;
+        String[] picks = new String[k];
+        if (k == 0) {
+            return new Result(picks, 0, 0);
+        }
+
+        boolean[] taken = new boolean[ids.length];
+        int[] slots = new int[eligible];
+        double[] slotWeights = new double[eligible];
+        int slotCount = 0;
+        double tableMass = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (weights[i] > 0) {
+                slots[slotCount] = i;
+                slotWeights[slotCount++] = weights[i];
+                tableMass += weights[i];
+            }
+        }
+        AliasTable table = new AliasTable(slotWeights);
+        double takenMass = 0;
+
+        for (int picked = 0; picked < k; ) {
+            if (takenMass * 2 > tableMass) {
+                // Too many rejections ahead; rebuild over what is left
+                slotCount = 0;
+                tableMass = 0;
+                for (int i = 0; i < ids.length; i++) {
+                    if (weights[i] > 0 && !taken[i]) {
+                        slots[slotCount] = i;
+                        slotWeights[slotCount++] = weights[i];
+                        tableMass += weights[i];
+                    }
+                }
+                table = new AliasTable(Arrays.copyOf(slotWeights, slotCount));
+                takenMass = 0;
+            }
+            int index = slots[table.sample(random)];
+            if (taken[index]) {
+                continue;
+            }
+            taken[index] = true;
+            takenMass += weights[index];
+            picks[picked++] = ids[index];
+        }
+        return new Result(picks, winnerCount, replacementCount);
+    }
+}
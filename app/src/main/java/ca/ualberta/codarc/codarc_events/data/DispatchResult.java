@@ -0,0 +1,73 @@
+/*
+ * Outcome of a notification fan-out, returned by NotificationDispatcher.
+ * Outstanding issues: None.
+ */
+package ca.ualberta.codarc.codarc_events.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Totals and per-recipient failures of one {@link NotificationDispatcher#dispatch} call.
+ */
+public class DispatchResult {
+
+    private final int total;
+    private final int delivered;
+    private final Map<String, Exception> failures;
+    private final int batchesCommitted;
+    private final int retries;
+    private final long elapsedMillis;
+
+    DispatchResult(int total, int delivered, Map<String, Exception> failures,
+                   int batchesCommitted, int retries, long elapsedMillis) {
+        this.total = total;
+        this.delivered = delivered;
+        this.failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+        this.batchesCommitted = batchesCommitted;
+        this.retries = retries;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getDelivered() {
+        return delivered;
+    }
+
+    public int getFailedCount() {
+        return failures.size();
+    }
+
+    /** Recipients that could not be notified, in the order they failed. */
+    public List<String> getFailedIds() {
+        return Collections.unmodifiableList(new ArrayList<>(failures.keySet()));
+    }
+
+    /** Last error seen for each failed recipient. */
+    public Map<String, Exception> getFailures() {
+        return failures;
+    }
+
+    public int getBatchesCommitted() {
+        return batchesCommitted;
+    }
+
+    /** Number of batch commits that were retried after a failure. */
+    public int getRetries() {
+        return retries;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isComplete() {
+        return failures.isEmpty();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Short-lived exclusive claim on running an event's draw, stored on the event document
+ * so two devices (or a double tap) cannot draw at the same time.
+ * Outstanding issues: Expiry uses each device's clock, so a device whose clock runs far
+ * ahead can take over a lease early.
+ */
+package ca.ualberta.codarc.codarc_events.data;
+
+/**
+ * A draw lease as held by one owner. Acquired, renewed and released through
+ * {@link EventDB}; the expiry is advanced in place on every successful renewal.
+ */
+public class DrawLease {
+
+    /** Raised when another owner holds an unexpired lease on the event's draw. */
+    public static class HeldException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        private final long expiresAt;
+
+        public HeldException(long expiresAt) {
+            super("A draw for this event is already running on another device");
+            this.expiresAt = expiresAt;
+        }
+
+        /** When the other owner's lease runs out unless it is renewed. */
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    private final String eventId;
+    private final String ownerId;
+    private final long ttlMillis;
+    private long expiresAt;
+
+    DrawLease(String eventId, String ownerId, long expiresAt, long ttlMillis) {
+        this.eventId = eventId;
+        this.ownerId = ownerId;
+        this.expiresAt = expiresAt;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    /** True once half of the lease time is used up and it should be renewed. */
+    public boolean isDueForRenewal(long now) {
+        return expiresAt - now <= ttlMillis / 2;
+    }
+}
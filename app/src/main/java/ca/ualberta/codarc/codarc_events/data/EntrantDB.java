@@ -11,16 +11,21 @@ import androidx.annotation.NonNull;
 import com.google.android.gms.tasks.Task;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.google.firebase.firestore.SetOptions;
 
 import java.util.ArrayList;
-
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ca.ualberta.codarc.codarc_events.models.Entrant;
 
@@ -34,6 +39,14 @@ public class EntrantDB {
         void onError(@NonNull Exception e);
     }
 
+    /** Firestore caps whereIn at 30 values per query. */
+    public static final int WHERE_IN_LIMIT = 30;
+    public static final int MAX_CONCURRENT_CHUNKS = 4;
+
+    // Shared across instances so every screen benefits from profiles another one loaded
+    private static final TtlLruCache<String, Entrant> PROFILE_CACHE =
+            new TtlLruCache<>(2000, 5 * 60 * 1000L);
+
     private final FirebaseFirestore db;
 
     public EntrantDB() {
@@ -87,11 +100,13 @@ public class EntrantDB {
             cb.onError(new IllegalArgumentException("deviceId is empty"));
             return;
         }
-        db.collection("entrants").document(deviceId)
-                .get()
+        DocumentReference ref = db.collection("entrants").document(deviceId);
+        SingleFlight.getInstance().run(ref.getPath(), ref::get)
                 .addOnSuccessListener(snapshot -> {
                     if (snapshot != null && snapshot.exists()) {
-                        cb.onSuccess(snapshot.toObject(Entrant.class));
+                        Entrant entrant = snapshot.toObject(Entrant.class);
+                        PROFILE_CACHE.put(deviceId, entrant);
+                        cb.onSuccess(entrant);
                     } else {
                         cb.onSuccess(null);
                     }
@@ -99,6 +114,123 @@ public class EntrantDB {
                 .addOnFailureListener(cb::onError);
     }
 
+    /**
+     * Streams the entrant's own profile doc; each snapshot also refreshes the profile
+     * cache. Delivers null while the entrant has no profile yet.
+     *
+     * @return registration that must be removed when the caller stops listening
+     */
+    public ListenerRegistration listenToEntrant(String deviceId, Callback<Entrant> cb) {
+        if (deviceId == null || deviceId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("deviceId is empty"));
+            return () -> { };
+        }
+        return db.collection("entrants").document(deviceId)
+                .addSnapshotListener((snapshot, e) -> {
+                    if (e != null) {
+                        cb.onError(e);
+                        return;
+                    }
+                    if (snapshot == null || !snapshot.exists()) {
+                        PROFILE_CACHE.invalidate(deviceId);
+                        cb.onSuccess(null);
+                        return;
+                    }
+                    Entrant entrant = snapshot.toObject(Entrant.class);
+                    PROFILE_CACHE.put(deviceId, entrant);
+                    cb.onSuccess(entrant);
+                });
+    }
+
+    /**
+     * Loads many profiles at once. Cached profiles are answered locally; the rest are
+     * fetched with documentId whereIn queries of up to {@link #WHERE_IN_LIMIT} ids, with
+     * at most {@link #MAX_CONCURRENT_CHUNKS} queries in flight. A failed chunk does not
+     * fail the call; its ids are reported in {@link ProfileBatch#getFailedIds()}.
+     * Chunk callbacks run on the main thread, so the shared state needs no locking.
+     *
+     * @param deviceIds ids to load; order is preserved and duplicates are collapsed
+     */
+    public void getProfiles(Collection<String> deviceIds, Callback<ProfileBatch> cb) {
+        if (deviceIds == null) {
+            cb.onError(new IllegalArgumentException("deviceIds is null"));
+            return;
+        }
+        Set<String> unique = new LinkedHashSet<>(deviceIds);
+        List<String> requested = new ArrayList<>(unique);
+        Map<String, Entrant> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        List<String> toFetch = new ArrayList<>();
+        for (String id : requested) {
+            if (id == null || id.isEmpty()) {
+                missing.add(id);
+                continue;
+            }
+            Entrant cached = PROFILE_CACHE.get(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                toFetch.add(id);
+            }
+        }
+        if (toFetch.isEmpty()) {
+            cb.onSuccess(new ProfileBatch(requested, found, missing, new ArrayList<>()));
+            return;
+        }
+
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < toFetch.size(); i += WHERE_IN_LIMIT) {
+            chunks.add(toFetch.subList(i, Math.min(i + WHERE_IN_LIMIT, toFetch.size())));
+        }
+        List<String> failed = new ArrayList<>();
+        AtomicInteger nextChunk = new AtomicInteger(0);
+        AtomicInteger remaining = new AtomicInteger(chunks.size());
+        Runnable finish = () -> {
+            for (String id : toFetch) {
+                if (!found.containsKey(id) && !failed.contains(id)) {
+                    missing.add(id);
+                }
+            }
+            cb.onSuccess(new ProfileBatch(requested, found, missing, failed));
+        };
+        Runnable[] startNext = new Runnable[1];
+        startNext[0] = () -> {
+            int index = nextChunk.getAndIncrement();
+            if (index >= chunks.size()) {
+                return;
+            }
+            List<String> chunk = chunks.get(index);
+            db.collection("entrants")
+                    .whereIn(FieldPath.documentId(), new ArrayList<>(chunk))
+                    .get()
+                    .addOnSuccessListener(snapshots -> {
+                        for (QueryDocumentSnapshot doc : snapshots) {
+                            Entrant entrant = doc.toObject(Entrant.class);
+                            if (entrant != null) {
+                                PROFILE_CACHE.put(doc.getId(), entrant);
+                                found.put(doc.getId(), entrant);
+                            }
+                        }
+                        onChunkDone(remaining, startNext[0], finish);
+                    })
+                    .addOnFailureListener(e -> {
+                        android.util.Log.w("EntrantDB", "Profile chunk failed", e);
+                        failed.addAll(chunk);
+                        onChunkDone(remaining, startNext[0], finish);
+                    });
+        };
+        for (int i = 0; i < Math.min(MAX_CONCURRENT_CHUNKS, chunks.size()); i++) {
+            startNext[0].run();
+        }
+    }
+
+    private void onChunkDone(AtomicInteger remaining, Runnable startNext, Runnable finish) {
+        if (remaining.decrementAndGet() == 0) {
+            finish.run();
+        } else {
+            startNext.run();
+        }
+    }
 
     // merge update so we don't lose existing fields
     public void upsertProfile(String deviceId, Entrant entrant, Callback<Void> cb) {
@@ -111,6 +243,7 @@ public class EntrantDB {
             return;
         }
         entrant.setDeviceId(deviceId);
+        PROFILE_CACHE.invalidate(deviceId);
         db.collection("entrants").document(deviceId)
                 .set(entrant, SetOptions.merge())
                 .addOnSuccessListener(unused -> cb.onSuccess(null))
@@ -147,6 +280,64 @@ public class EntrantDB {
                 .addOnFailureListener(cb::onError);
     }
 
+    /**
+     * Builds the deterministic notification document id for one event, category and round,
+     * so the same notification can be written any number of times without duplicating.
+     *
+     * @param round distinguishes repeated sends of the same category, e.g. the draw time
+     */
+    public static String notificationId(String eventId, String category, String round) {
+        return eventId + ":" + category + ":" + round;
+    }
+
+    /**
+     * Adds a notification under a fixed document id, only if it does not exist yet.
+     * Reports true when the notification was created and false when it was already there,
+     * so retries and repeated draws never duplicate or reset an entrant's notification.
+     *
+     * @param notificationId see {@link #notificationId(String, String, String)}
+     */
+    public void addNotification(String deviceId,
+                                String eventId,
+                                String message,
+                                String category,
+                                String notificationId,
+                                Callback<Boolean> cb) {
+        if (deviceId == null || deviceId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("deviceId is empty"));
+            return;
+        }
+        if (message == null || message.isEmpty()) {
+            cb.onError(new IllegalArgumentException("message is empty"));
+            return;
+        }
+        if (notificationId == null || notificationId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("notificationId is empty"));
+            return;
+        }
+
+        DocumentReference notificationRef = db.collection("entrants").document(deviceId)
+                .collection("notifications").document(notificationId);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventId", eventId);
+        data.put("message", message);
+        data.put("category", category);
+        data.put("createdAt", System.currentTimeMillis());
+        data.put("read", false);
+
+        db.runTransaction(transaction -> {
+            DocumentSnapshot existing = transaction.get(notificationRef);
+            if (existing.exists()) {
+                return false;
+            }
+            transaction.set(notificationRef, data);
+            return true;
+        })
+                .addOnSuccessListener(cb::onSuccess)
+                .addOnFailureListener(cb::onError);
+    }
+
     public void getNotifications(String deviceId, Callback<List<Map<String, Object>>> cb) {
         if (deviceId == null || deviceId.isEmpty()) {
             cb.onError(new IllegalArgumentException("deviceId is empty"));
@@ -268,6 +459,7 @@ public class EntrantDB {
             return;
         }
         
+        PROFILE_CACHE.invalidate(deviceId);
         db.collection("entrants").document(deviceId)
             .update("banned", banned)
             .addOnSuccessListener(unused -> cb.onSuccess(null))
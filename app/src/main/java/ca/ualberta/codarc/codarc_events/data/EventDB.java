@@ -1,30 +1,50 @@
 /*
  * Abstraction over event Firestore collections, enabling event creation, enrollment, and
  * query operations used throughout the app.
- * Outstanding issues: Implement caching to limit repeated reads during rapid refreshes.
+ * Outstanding issues: Cached events are only refreshed while a getAllEvents listener is live,
+ * so screens that act on an event's current state read it with refreshEvent.
+ * Events without an eventDateTime never appear in the date-ordered browser.
  */
 package ca.ualberta.codarc.codarc_events.data;
 
 import androidx.annotation.NonNull;
 
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
 import com.google.firebase.firestore.WriteBatch;
 import com.google.firebase.Timestamp;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import ca.ualberta.codarc.codarc_events.models.DrawCheckpoint;
 import ca.ualberta.codarc.codarc_events.models.Event;
+import ca.ualberta.codarc.codarc_events.utils.Deferred;
 
 /**
  * Tiny Firestore wrapper for events.
@@ -40,6 +60,164 @@ public class EventDB {
         void onError(@NonNull Exception e);
     }
 
+    /** Subcollection names for the per-event entrant lists. */
+    public static final String LIST_WAITING = "waitingList";
+    public static final String LIST_WINNERS = "winners";
+    public static final String LIST_ACCEPTED = "accepted";
+    public static final String LIST_CANCELLED = "cancelled";
+    public static final String LIST_REPLACEMENT_POOL = "replacementPool";
+
+    /** Denormalized counter fields on the event document, one per entrant list. */
+    public static final String COUNT_WAITLIST = "waitlistCount";
+    public static final String COUNT_WINNERS = "winnersCount";
+    public static final String COUNT_ACCEPTED = "acceptedCount";
+    public static final String COUNT_CANCELLED = "cancelledCount";
+    public static final String COUNT_REPLACEMENT_POOL = "replacementPoolCount";
+
+    /**
+     * Unified membership subcollection: one {@code events/{id}/entrants/{deviceId}} doc per
+     * entrant whose {@code status} mirrors the list the entrant currently sits in.
+     */
+    public static final String MEMBERSHIP = "entrants";
+
+    /** Membership status values, one per entrant list. */
+    public static final String STATUS_WAITING = "waiting";
+    public static final String STATUS_WINNER = "winner";
+    public static final String STATUS_REPLACEMENT = "replacement";
+    public static final String STATUS_ACCEPTED = "accepted";
+    public static final String STATUS_CANCELLED = "cancelled";
+
+    /**
+     * Uniform random key in [0, 1) written on waitlist and replacement pool docs at insert,
+     * so {@link #sampleRandomEntrant} can pick one with a single indexed query.
+     */
+    public static final String FIELD_RND = "rnd";
+
+    /**
+     * Event flag set once every waitlist and replacement pool doc of the event has an
+     * {@link #FIELD_RND} key, including docs written before the key existed.
+     */
+    public static final String FIELD_RND_BACKFILLED = "rndBackfilled";
+    // Events known to be backfilled, so sampling skips the event read after the first time
+    private static final Set<String> RND_BACKFILLED = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    /** Event flag: declines promote the oldest replacement pool member automatically. */
+    public static final String FIELD_AUTO_BACKFILL = "autoBackfill";
+
+    // Winner notification written for an entrant promoted outside a draw
+    private static final String WINNER_MESSAGE = "Congratulations! You won. Proceed to signup.";
+    private static final String EXPIRED_MESSAGE = "Your invitation expired because it was not answered in time.";
+    private static final String INVITATION_CLOSED = "This invitation is no longer open";
+
+    /** Event field: hours winners have to respond; unset means invitations never expire. */
+    public static final String FIELD_INVITATION_TTL_HOURS = "invitationTtlHours";
+
+    // Invitations expired per sweep transaction: up to 5 writes each plus 4 per backfill
+    static final int EXPIRY_CHUNK_SIZE = 50;
+
+    /**
+     * Event field: number of waitlist counter shards, see {@link ShardedCounter}. Unset or 0
+     * keeps the single {@code waitlistCount} field.
+     */
+    public static final String FIELD_COUNTER_SHARDS = "counterShards";
+
+    // Counter-based waitlist sizes are served from here for a few seconds between reads
+    private static final long WAITLIST_TOTAL_TTL_MS = 5000L;
+    private static final TtlLruCache<String, Integer> WAITLIST_TOTAL_CACHE =
+            new TtlLruCache<>(200, WAITLIST_TOTAL_TTL_MS);
+
+    /**
+     * Event field holding the start time of a counter recount. While it is recent, joins and
+     * leaves back off so the recount sees and writes a stable waitlist.
+     */
+    public static final String FIELD_COUNTER_RECOUNT_AT = "counterRecountAt";
+    // A recount that died is ignored after this long
+    private static final long RECOUNT_LOCK_TTL_MS = 60_000L;
+    private static final String COUNTERS_BUSY_MESSAGE = "The waitlist is being recounted; try again shortly";
+
+    /** Result of {@link #tryJoinWaitlist}. */
+    public enum JoinOutcome {
+        JOINED,
+        ALREADY_JOINED,
+        FULL,
+        EVENT_NOT_FOUND,
+        /** The event predates counters, so the join cannot be counted; reconcile and retry. */
+        COUNTERS_MISSING,
+        /**
+         * The counters are being recounted, or the shards are missing or out of date until the
+         * organizer reconciles them; joiners must not recount them and should try again later.
+         */
+        COUNTERS_BUSY
+    }
+
+    /** Result of {@link #promoteWaitlistEntrant}. */
+    public enum PromotionOutcome {
+        PROMOTED,
+        /** The entrant left the waitlist or was moved since being sampled; sample again. */
+        GONE
+    }
+
+    /** Draw lease fields on the event document; see {@link #acquireDrawLease}. */
+    public static final String FIELD_DRAW_LEASE_OWNER = "drawLeaseOwner";
+    public static final String FIELD_DRAW_LEASE_EXPIRES_AT = "drawLeaseExpiresAt";
+
+    // Firestore caps a WriteBatch at 500 operations; stay a little under it
+    private static final int MAX_BATCH_OPS = 450;
+
+    /**
+     * Entrants moved per draw chunk: three writes each (waitlist delete, list set,
+     * membership), plus the counter, summary and checkpoint updates and one decrement per
+     * counter shard. The chunk's transaction also reads each entrant's waitlist doc, which
+     * does not count as a write.
+     */
+    public static final int DRAW_CHUNK_ENTRANTS = (MAX_BATCH_OPS - 3 - ShardedCounter.MAX_SHARDS) / 3;
+
+    private static final String[] LISTS = {
+            LIST_WAITING, LIST_WINNERS, LIST_ACCEPTED, LIST_CANCELLED, LIST_REPLACEMENT_POOL
+    };
+
+    /**
+     * Compact copies of the fields an event card shows, plus the counters, one doc per
+     * event id. The event browser lists these instead of the full event documents.
+     */
+    public static final String COLLECTION_SUMMARIES = "eventSummaries";
+
+    // One doc per completed one-off migration, see migrateSummariesOnce
+    private static final String COLLECTION_MIGRATIONS = "migrations";
+    // Versioned so the run that rewrites summaries copied with Timestamp dates happens once
+    private static final String SUMMARIES_MIGRATION = "eventSummariesV2";
+    private static final AtomicBoolean SUMMARIES_MIGRATION_CHECKED = new AtomicBoolean(false);
+
+    /**
+     * Event flag: every member of the event has a membership doc, because the event was
+     * created with them or {@link #migrateMembershipsOnce} has run for it. Joins skip the
+     * legacy per-status lists on flagged events.
+     */
+    public static final String FIELD_MEMBERSHIPS_MIGRATED = "membershipsMigrated";
+    // Events known to be flagged, so only the first status query per event reads the event
+    private static final Set<String> MEMBERSHIPS_MIGRATED = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    // Event fields copied into a summary; the counters are mirrored by every counter write
+    // Summary fields stored as ISO strings, whatever type the event doc holds, so that
+    // summariesByDate orders every summary by date instead of by field type first
+    private static final String[] SUMMARY_DATE_FIELDS = {
+            "eventDateTime", "registrationOpen", "registrationClose"
+    };
+    private static final String[] SUMMARY_FIELDS = {
+            "name", "eventDateTime", "registrationOpen", "registrationClose", "open",
+            "organizerId", "maxCapacity", FIELD_COUNTER_SHARDS
+    };
+    private static final String[] COUNTER_FIELDS = {
+            COUNT_WAITLIST, COUNT_WINNERS, COUNT_ACCEPTED, COUNT_CANCELLED, COUNT_REPLACEMENT_POOL
+    };
+
+    private static final int DEFAULT_EVENT_CACHE_SIZE = 200;
+    private static final long DEFAULT_EVENT_CACHE_TTL_MS = 5 * 60 * 1000L;
+
+    // Process-wide so every screen's EventDB instance shares the same cached events
+    private static final TtlLruCache<String, Event> EVENT_CACHE =
+            new TtlLruCache<>(DEFAULT_EVENT_CACHE_SIZE, DEFAULT_EVENT_CACHE_TTL_MS);
+
     private final FirebaseFirestore db;
 
     /** Construct using the default Firestore instance. */
@@ -47,20 +225,60 @@ public class EventDB {
         this.db = FirebaseFirestore.getInstance();
     }
 
-    /** Add or update an event in Firestore. */
+    /**
+     * Creates a new event in Firestore, together with its list summary.
+     * Both docs are written in one batch, so creating an event offline is queued like a plain
+     * set. Every counter starts at 0, so the increments start from a known count; the event
+     * id must therefore be new, since an existing event would have its counters reset.
+     */
     public void addEvent(Event event, Callback<Void> cb) {
-        db.collection("events").document(event.getId())
-                .set(event)
-                .addOnSuccessListener(aVoid -> cb.onSuccess(null))
+        DocumentReference eventRef = db.collection("events").document(event.getId());
+        Map<String, Object> counters = new HashMap<>();
+        for (String field : COUNTER_FIELDS) {
+            counters.put(field, 0L);
+        }
+        Map<String, Object> summary = summaryOf(event);
+        summary.putAll(counters);
+
+        WriteBatch batch = db.batch();
+        batch.set(eventRef, event);
+        batch.set(eventRef, counters, SetOptions.merge());
+        // Every member of a new event gets a membership doc, so there is nothing to migrate
+        batch.set(eventRef, Collections.singletonMap(FIELD_MEMBERSHIPS_MIGRATED, true), SetOptions.merge());
+        batch.set(summaryRef(event.getId()), summary);
+        batch.commit()
+                .addOnSuccessListener(aVoid -> {
+                    EVENT_CACHE.invalidate(event.getId());
+                    cb.onSuccess(null);
+                })
                 .addOnFailureListener(cb::onError);
     }
 
+    /** @return the process-wide event cache, e.g. to read its hit/miss counters. */
+    public static TtlLruCache<String, Event> getEventCache() {
+        return EVENT_CACHE;
+    }
+
+    /**
+     * Adjusts the event cache limits.
+     *
+     * @param maxSize maximum number of cached events
+     * @param ttlMillis how long a point read stays valid without a snapshot refresh
+     */
+    public static void configureEventCache(int maxSize, long ttlMillis) {
+        EVENT_CACHE.configure(maxSize, ttlMillis);
+    }
+
     /**
      * Streams all events in the `events` collection.
-     * The callback is invoked whenever data changes.
+     * The callback is invoked whenever data changes. Every snapshot also refreshes the
+     * event cache, so later getEvent calls for listed events are served locally.
+     *
+     * @return registration that must be removed when the caller stops listening;
+     *         see {@link ListenerRegistry} to bind it to a lifecycle
      */
-    public void getAllEvents(Callback<List<Event>> cb) {
-        db.collection("events").addSnapshotListener((snapshots, e) -> {
+    public ListenerRegistration getAllEvents(Callback<List<Event>> cb) {
+        return db.collection("events").addSnapshotListener((snapshots, e) -> {
             if (e != null) {
                 cb.onError(e);
                 return;
@@ -69,10 +287,16 @@ public class EventDB {
                 cb.onSuccess(new ArrayList<>());
                 return;
             }
+            for (DocumentChange change : snapshots.getDocumentChanges()) {
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    EVENT_CACHE.invalidate(change.getDocument().getId());
+                }
+            }
             List<Event> events = new ArrayList<>();
             for (QueryDocumentSnapshot doc : snapshots) {
                 Event event = parseEventFromDocument(doc);
                 if (event != null) {
+                    EVENT_CACHE.put(event.getId(), event);
                     events.add(event);
                 }
             }
@@ -81,19 +305,240 @@ public class EventDB {
     }
 
     /**
-     * Fetches a single event by its ID.
+     * Streams the `events` collection into an {@link EventListIndex}, decoding only the
+     * documents that were added, modified or removed since the previous snapshot.
+     * The first snapshot of every attach resets the index; snapshots without document
+     * changes (pending-write or cache metadata only) are skipped.
+     *
+     * @param index receives the changes and notifies its listener per position
+     * @param cb called with the index after each applied snapshot
+     * @return registration that must be removed when the caller stops listening
+     */
+    public ListenerRegistration observeEvents(EventListIndex index, Callback<EventListIndex> cb) {
+        AtomicBoolean first = new AtomicBoolean(true);
+        return db.collection("events").addSnapshotListener((snapshots, e) -> {
+            if (e != null) {
+                cb.onError(e);
+                return;
+            }
+            if (snapshots != null && applySnapshot(index, snapshots, 0, true, first.getAndSet(false))) {
+                cb.onSuccess(index);
+            }
+        });
+    }
+
+    /**
+     * Streams the first page of event summaries, latest event date first, so the live page
+     * holds upcoming events rather than the oldest history. Earlier events are loaded with
+     * {@link #getEventsPage(EventListIndex, int, Callback)}. Events without an
+     * eventDateTime are not part of the date-ordered query.
+     *
+     * <p>The snapshots are delivered as they are, so one listener can be shared through
+     * {@link ListenerRegistry} under {@link #firstEventPageKey(int)}; each screen applies
+     * them to its own index with {@link #applyFirstEventPage}.</p>
+     *
+     * @param pageSize number of events kept live
+     * @return registration that must be removed when the caller stops listening
+     */
+    public ListenerRegistration listenFirstEventPage(int pageSize, Callback<QuerySnapshot> cb) {
+        return summariesByDate().limit(pageSize).addSnapshotListener((snapshots, e) -> {
+            if (e != null) {
+                cb.onError(e);
+                return;
+            }
+            if (snapshots != null) {
+                cb.onSuccess(snapshots);
+            }
+        });
+    }
+
+    /** Registry key of {@link #listenFirstEventPage} for the given page size. */
+    public static String firstEventPageKey(int pageSize) {
+        return COLLECTION_SUMMARIES + "/byDate?limit=" + pageSize;
+    }
+
+    /**
+     * Applies a snapshot from {@link #listenFirstEventPage} to an index, decoding only the
+     * documents that changed since the previous snapshot, or rebuilding the index from the
+     * whole snapshot when {@code rebuild} is set.
+     *
+     * <p>The events only carry the card fields from {@link #COLLECTION_SUMMARIES}, so
+     * they are kept out of the event cache; screens that need the description and the
+     * rest load the full event with {@link #getEvent(String, Callback)}.</p>
+     *
+     * <p>An event that drops off the live page only because newer events filled it stays in
+     * the index as the first of the appended entries, so it is still listed and the next
+     * page continues after it.</p>
+     *
+     * @param rebuild true for the first snapshot the index sees from a listener, including
+     *                a snapshot replayed to a screen that just started
+     * @return false when the snapshot changed no documents (pending-write or cache metadata
+     *         only) and the index was left alone
+     */
+    public boolean applyFirstEventPage(EventListIndex index, QuerySnapshot snapshot, int pageSize,
+                                       boolean rebuild) {
+        return applySnapshot(index, snapshot, pageSize, false, rebuild);
+    }
+
+    /**
+     * Fetches the page of event summaries that follows the last entry of the index.
+     * The page is not appended; callers (see {@link EventPager}) decide when to show it.
+     *
+     * @param index list whose last entry is the cursor
+     * @param pageSize maximum number of events to fetch
+     */
+    public void getEventsPage(EventListIndex index, int pageSize, Callback<EventPage> cb) {
+        List<Event> current = index.getEvents();
+        if (current.isEmpty()) {
+            cb.onError(new IllegalArgumentException("index is empty"));
+            return;
+        }
+        String afterId = current.get(current.size() - 1).getId();
+        Map<String, Object> afterData = index.getData(afterId);
+        Object afterDateTime = afterData != null ? afterData.get("eventDateTime") : null;
+        int generation = index.getGeneration();
+        summariesByDate()
+                .startAfter(afterDateTime, afterId)
+                .limit(pageSize)
+                .get()
+                .addOnSuccessListener(snapshots -> {
+                    List<Event> events = new ArrayList<>();
+                    List<Map<String, Object>> data = new ArrayList<>();
+                    for (QueryDocumentSnapshot doc : snapshots) {
+                        Event event = parseEventFromDocument(doc);
+                        if (event != null) {
+                            events.add(event);
+                            data.add(doc.getData());
+                        }
+                    }
+                    cb.onSuccess(new EventPage(events, data, afterId, generation,
+                            snapshots.size() == pageSize));
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    // Cursor order for paging; the id tiebreaker keeps pages stable for equal dates
+    private Query summariesByDate() {
+        return db.collection(COLLECTION_SUMMARIES)
+                .orderBy("eventDateTime", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+    }
+
+    // True when doc comes after other in summariesByDate order; summary dates are ISO
+    // strings, so they compare as text
+    private boolean sortsAfter(DocumentSnapshot doc, DocumentSnapshot other) {
+        String date = convertTimestampToString(doc.get("eventDateTime"));
+        String otherDate = convertTimestampToString(other.get("eventDateTime"));
+        if (date == null || otherDate == null) {
+            return false;
+        }
+        int byDate = date.compareTo(otherDate);
+        if (byDate != 0) {
+            return byDate < 0;
+        }
+        return doc.getId().compareTo(other.getId()) < 0;
+    }
+
+    // Brings the index up to the snapshot from its document changes, or from the whole
+    // snapshot when rebuilding or when the changes do not fit; false when nothing changed.
+    // limit is the query's limit, 0 for none; fullEvents is false for summary queries, whose
+    // partial events must not be cached
+    private boolean applySnapshot(EventListIndex index, QuerySnapshot snapshots, int limit,
+                                  boolean fullEvents, boolean rebuild) {
+        if (!rebuild) {
+            if (snapshots.getDocumentChanges().isEmpty()) {
+                return false;
+            }
+            if (applyChanges(index, snapshots, limit, fullEvents)) {
+                return true;
+            }
+            android.util.Log.w("EventDB", "Event index out of sync, resetting");
+        }
+        List<Event> events = new ArrayList<>();
+        List<Map<String, Object>> data = new ArrayList<>();
+        for (QueryDocumentSnapshot doc : snapshots) {
+            Event event = parseEventFromDocument(doc);
+            if (event != null) {
+                if (fullEvents) {
+                    EVENT_CACHE.put(event.getId(), event);
+                }
+                events.add(event);
+                data.add(doc.getData());
+            }
+        }
+        index.reset(events, data);
+        return true;
+    }
+
+    // Applies changes in order; false means the index drifted from the snapshot
+    private boolean applyChanges(EventListIndex index, QuerySnapshot snapshots, int limit,
+                                 boolean fullEvents) {
+        List<DocumentSnapshot> docs = snapshots.getDocuments();
+        for (DocumentChange change : snapshots.getDocumentChanges()) {
+            QueryDocumentSnapshot doc = change.getDocument();
+            String eventId = doc.getId();
+            boolean applied;
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                EVENT_CACHE.invalidate(eventId);
+                if (limit > 0 && docs.size() == limit
+                        && sortsAfter(doc, docs.get(docs.size() - 1))) {
+                    // Pushed past the limit by newer events, not deleted: hand it to the
+                    // appended pages, which continue right after it
+                    applied = index.pushOutOfLivePage(change.getOldIndex(), eventId);
+                } else {
+                    applied = index.apply(EventListIndex.ChangeType.REMOVED,
+                            change.getOldIndex(), change.getNewIndex(), eventId, null, null);
+                }
+            } else {
+                Event event = parseEventFromDocument(doc);
+                if (event != null && fullEvents) {
+                    EVENT_CACHE.put(eventId, event);
+                }
+                EventListIndex.ChangeType type = change.getType() == DocumentChange.Type.ADDED
+                        ? EventListIndex.ChangeType.ADDED
+                        : EventListIndex.ChangeType.MODIFIED;
+                applied = index.apply(type, change.getOldIndex(), change.getNewIndex(),
+                        eventId, event, doc.getData());
+            }
+            if (!applied) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fetches a single event by its ID, answering from the event cache when possible.
      */
     public void getEvent(String eventId, Callback<Event> cb) {
         if (eventId == null || eventId.isEmpty()) {
             cb.onError(new IllegalArgumentException("eventId is empty"));
             return;
         }
-        db.collection("events").document(eventId)
-                .get()
+        Event cached = EVENT_CACHE.get(eventId);
+        if (cached != null) {
+            cb.onSuccess(cached);
+            return;
+        }
+        refreshEvent(eventId, cb);
+    }
+
+    /**
+     * Fetches a single event past the event cache and refreshes the cached copy. No screen
+     * keeps a full-event listener open, so a cached event can be up to the cache TTL old;
+     * use this when acting on the event's current settings.
+     */
+    public void refreshEvent(String eventId, Callback<Event> cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
+            return;
+        }
+        readEventDoc(eventId)
                 .addOnSuccessListener(snapshot -> {
                     if (snapshot != null && snapshot.exists()) {
                         Event event = parseEventFromDocument(snapshot);
                         if (event != null) {
+                            EVENT_CACHE.put(eventId, event);
                             cb.onSuccess(event);
                         } else {
                             cb.onError(new RuntimeException("Failed to parse event"));
@@ -125,299 +570,1728 @@ public class EventDB {
             cb.onError(new IllegalArgumentException("eventId or deviceId is empty"));
             return;
         }
-        
-        // Check if already in waitingList
+
+        getEntrantStatus(eventId, deviceId, new Callback<String>() {
+            @Override
+            public void onSuccess(String status) {
+                if (status != null) {
+                    // Can join again only after cancelling
+                    cb.onSuccess(STATUS_CANCELLED.equals(status));
+                } else {
+                    canJoinWaitlistLegacy(eventId, deviceId, cb);
+                }
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+    }
+
+    // Pre-membership check over the separate lists; only reached when no membership doc
+    // exists yet. Can be dropped once migrateMembershipsOnce has run for every event.
+    // The three lists are read at once rather than one after another.
+    private void canJoinWaitlistLegacy(String eventId, String deviceId, Callback<Boolean> cb) {
+        Deferred<Boolean> waiting = isInList(eventId, LIST_WAITING, deviceId);
+        Deferred<Boolean> winner = isInList(eventId, LIST_WINNERS, deviceId);
+        Deferred<Boolean> accepted = isInList(eventId, LIST_ACCEPTED, deviceId);
+        Deferred.allOf(waiting, winner, accepted)
+                // Can join if cancelled or not in any list
+                .map(unused -> !waiting.getNow() && !winner.getNow() && !accepted.getNow())
+                .deliverTo(cb);
+    }
+
+    private Deferred<Boolean> isInList(String eventId, String list, String deviceId) {
+        Deferred<Boolean> found = new Deferred<>();
         db.collection("events").document(eventId)
-                .collection("waitingList").document(deviceId)
+                .collection(list).document(deviceId)
+                .get()
+                .addOnSuccessListener(snapshot -> found.complete(snapshot != null && snapshot.exists()))
+                .addOnFailureListener(found::fail);
+        return found;
+    }
+
+    /**
+     * Answers "what is my status for this event" with a single point read of the unified
+     * membership doc.
+     *
+     * @param eventId event to check
+     * @param deviceId entrant to look up
+     * @param cb receives one of the {@code STATUS_*} values, or null if not a member
+     */
+    public void getEntrantStatus(String eventId, String deviceId, Callback<String> cb) {
+        if (eventId == null || eventId.isEmpty() || deviceId == null || deviceId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId or deviceId is empty"));
+            return;
+        }
+        db.collection("events").document(eventId)
+                .collection(MEMBERSHIP).document(deviceId)
                 .get()
                 .addOnSuccessListener(snapshot -> {
                     if (snapshot != null && snapshot.exists()) {
-                        cb.onSuccess(false); // Already on waitlist
-                        return;
+                        cb.onSuccess(snapshot.getString("status"));
+                    } else {
+                        cb.onSuccess(null);
                     }
-                    
-                    // Check if in winners list
-                    db.collection("events").document(eventId)
-                            .collection("winners").document(deviceId)
-                            .get()
-                            .addOnSuccessListener(winnerSnapshot -> {
-                                if (winnerSnapshot != null && winnerSnapshot.exists()) {
-                                    cb.onSuccess(false); // Already a winner
-                                    return;
-                                }
-                                
-                                // Check if in accepted list
-                                db.collection("events").document(eventId)
-                                        .collection("accepted").document(deviceId)
-                                        .get()
-                                        .addOnSuccessListener(acceptedSnapshot -> {
-                                            if (acceptedSnapshot != null && acceptedSnapshot.exists()) {
-                                                cb.onSuccess(false); // Already accepted
-                                            } else {
-                                                // Can join if cancelled or not in any list
-                                                cb.onSuccess(true);
-                                            }
-                                        })
-                                        .addOnFailureListener(cb::onError);
-                            })
-                            .addOnFailureListener(cb::onError);
                 })
                 .addOnFailureListener(cb::onError);
     }
 
-    public void getWaitlistCount(String eventId, Callback<Integer> cb) {
+    /**
+     * Lists the members of an event with the given status from the unified membership docs,
+     * migrating the event's legacy lists first if that has not happened yet.
+     *
+     * @param eventId event to query
+     * @param status one of the {@code STATUS_*} values
+     * @param cb receives the membership docs as maps including {@code deviceId} and the
+     *           status's timestamp field, e.g. {@code joinedAt} for waiting entrants
+     */
+    public void getEntrantsByStatus(String eventId, String status, Callback<List<Map<String, Object>>> cb) {
         if (eventId == null || eventId.isEmpty()) {
             cb.onError(new IllegalArgumentException("eventId is empty"));
             return;
         }
+        if (status == null || status.isEmpty()) {
+            cb.onError(new IllegalArgumentException("status is empty"));
+            return;
+        }
+        migrateMembershipsOnce(eventId, new Callback<Integer>() {
+            @Override
+            public void onSuccess(Integer created) {
+                queryEntrantsByStatus(eventId, status, cb);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+    }
+
+    private void queryEntrantsByStatus(String eventId, String status, Callback<List<Map<String, Object>>> cb) {
         db.collection("events").document(eventId)
-                .collection("waitingList")
+                .collection(MEMBERSHIP)
+                .whereEqualTo("status", status)
                 .get()
                 .addOnSuccessListener(querySnapshot -> {
-                    int count = querySnapshot != null ? querySnapshot.size() : 0;
-                    cb.onSuccess(count);
+                    List<Map<String, Object>> members = new ArrayList<>();
+                    if (querySnapshot != null) {
+                        for (QueryDocumentSnapshot doc : querySnapshot) {
+                            Map<String, Object> data = new HashMap<>(doc.getData());
+                            data.put("deviceId", doc.getId());
+                            members.add(data);
+                        }
+                    }
+                    cb.onSuccess(members);
                 })
                 .addOnFailureListener(cb::onError);
     }
 
-    // Real-time count (creates listener - remember to remove it!)
-    public void fetchAccurateWaitlistCount(String eventId, Callback<Integer> cb) {
-        if (eventId == null || eventId.isEmpty()) {
-            cb.onError(new IllegalArgumentException("eventId is empty"));
+    /**
+     * Runs {@link #migrateMemberships} for an event unless the event carries
+     * {@link #FIELD_MEMBERSHIPS_MIGRATED}, and sets the flag once it completes. Only the
+     * first call per event in a process reads the event; a failed run leaves the flag unset
+     * so the next call tries again.
+     *
+     * @param eventId event to migrate
+     * @param cb receives the number of membership docs created, 0 when the event was migrated
+     */
+    public void migrateMembershipsOnce(String eventId, Callback<Integer> cb) {
+        if (MEMBERSHIPS_MIGRATED.contains(eventId)) {
+            cb.onSuccess(0);
             return;
         }
-
-        db.collection("events").document(eventId)
-                .collection("waitingList")
-                .addSnapshotListener((querySnapshot, e) -> {
-                    if (e != null) {
-                        cb.onError(e);
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        readEventDoc(eventId)
+                .addOnSuccessListener(snapshot -> {
+                    if (snapshot == null || !snapshot.exists()) {
+                        cb.onError(new RuntimeException("Event not found"));
+                        return;
+                    }
+                    if (Boolean.TRUE.equals(snapshot.getBoolean(FIELD_MEMBERSHIPS_MIGRATED))) {
+                        MEMBERSHIPS_MIGRATED.add(eventId);
+                        cb.onSuccess(0);
                         return;
                     }
+                    migrateMemberships(eventId, new Callback<Integer>() {
+                        @Override
+                        public void onSuccess(Integer created) {
+                            eventRef.update(FIELD_MEMBERSHIPS_MIGRATED, true)
+                                    .addOnSuccessListener(unused -> {
+                                        MEMBERSHIPS_MIGRATED.add(eventId);
+                                        cb.onSuccess(created);
+                                    })
+                                    .addOnFailureListener(cb::onError);
+                        }
 
-                    int count = querySnapshot != null ? querySnapshot.size() : 0;
-                    cb.onSuccess(count);
-                });
+                        @Override
+                        public void onError(@NonNull Exception e) {
+                            cb.onError(e);
+                        }
+                    });
+                })
+                .addOnFailureListener(cb::onError);
     }
 
-    public void joinWaitlist(String eventId, String deviceId, Callback<Void> cb) {
-        if (eventId == null || eventId.isEmpty() || deviceId == null || deviceId.isEmpty()) {
-            cb.onError(new IllegalArgumentException("eventId or deviceId is empty"));
+    /**
+     * One-off migration that builds the unified membership docs from the per-status
+     * subcollections. Writers already keep both shapes in sync, so this can run while the
+     * app is live: docs that already exist were written by the new code path and are left
+     * untouched. Each chunk is created in a transaction that rechecks existence, so a doc
+     * written after the initial read is not overwritten with the older legacy status.
+     *
+     * @param eventId event to migrate
+     * @param cb receives the number of membership docs created
+     */
+    public void migrateMemberships(String eventId, Callback<Integer> cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
             return;
         }
-        Map<String, Object> data = new HashMap<>();
-        data.put("deviceId", deviceId);
-        data.put("request_time", FieldValue.serverTimestamp());
+        DocumentReference eventRef = db.collection("events").document(eventId);
 
-        db.collection("events").document(eventId)
-                .collection("waitingList").document(deviceId)
-                .set(data)
-                .addOnSuccessListener(unused -> cb.onSuccess(null))
-                .addOnFailureListener(cb::onError);
-    }
+        eventRef.collection(MEMBERSHIP).get()
+                .addOnSuccessListener(existingSnapshot -> {
+                    Map<String, String> existing = new HashMap<>();
+                    for (QueryDocumentSnapshot doc : existingSnapshot) {
+                        existing.put(doc.getId(), doc.getString("status"));
+                    }
+                    collectLegacyMemberships(eventRef, 0, new HashMap<>(), new Callback<Map<String, Map<String, Object>>>() {
+                        @Override
+                        public void onSuccess(Map<String, Map<String, Object>> legacy) {
+                            List<DocumentReference> refs = new ArrayList<>();
+                            List<Map<String, Object>> docs = new ArrayList<>();
+                            for (Map.Entry<String, Map<String, Object>> entry : legacy.entrySet()) {
+                                if (existing.containsKey(entry.getKey())) {
+                                    continue;
+                                }
+                                refs.add(eventRef.collection(MEMBERSHIP).document(entry.getKey()));
+                                docs.add(entry.getValue());
+                            }
+                            createMissingInChunks(refs, docs, 0, 0, cb);
+                        }
 
-    // Removes from waitlist (idempotent - safe to call multiple times)
-    public void leaveWaitlist(String eventId, String deviceId, Callback<Void> cb) {
-        if (eventId == null || eventId.isEmpty() || deviceId == null || deviceId.isEmpty()) {
-            cb.onError(new IllegalArgumentException("eventId or deviceId is empty"));
-            return;
-        }
-        db.collection("events").document(eventId)
-                .collection("waitingList").document(deviceId)
-                .delete()
-                .addOnSuccessListener(unused -> cb.onSuccess(null))
+                        @Override
+                        public void onError(@NonNull Exception e) {
+                            cb.onError(e);
+                        }
+                    });
+                })
                 .addOnFailureListener(cb::onError);
     }
 
-    public void getWaitlist(String eventId, Callback<List<Map<String, Object>>> cb) {
-        if (eventId == null || eventId.isEmpty()) {
-            cb.onError(new IllegalArgumentException("eventId is empty"));
-            return;
-        }
-        db.collection("events").document(eventId)
-                .collection("waitingList")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    List<Map<String, Object>> entries = new ArrayList<>();
-                    if (querySnapshot != null) {
-                        for (QueryDocumentSnapshot doc : querySnapshot) {
-                            Map<String, Object> entry = new HashMap<>();
-                            entry.put("deviceId", doc.getId());
-                            entry.put("requestTime", doc.get("request_time"));
-                            entries.add(entry);
-                        }
+    /**
+     * Writes a {@link #COLLECTION_SUMMARIES} doc for every event that has none, for events
+     * created before summaries existed; a summary holding only counters, or dates that were
+     * copied as Timestamps instead of ISO strings, is rebuilt too.
+     * Each chunk runs in a transaction that copies the events as they are at commit, so the
+     * copied counters cannot be stale. Complete summaries are left to the writers that keep
+     * them in sync, so this is safe to run while the app is live.
+     *
+     * @param cb receives the number of summaries written
+     */
+    public void migrateSummaries(Callback<Integer> cb) {
+        db.collection("events").get()
+                .addOnSuccessListener(snapshots -> {
+                    List<String> eventIds = new ArrayList<>();
+                    for (QueryDocumentSnapshot doc : snapshots) {
+                        eventIds.add(doc.getId());
                     }
-                    cb.onSuccess(entries);
+                    writeMissingSummaries(eventIds, 0, 0, cb);
                 })
                 .addOnFailureListener(cb::onError);
     }
 
-    // Moves winners from waitlist to winners, creates replacement pool
-    public void markWinners(String eventId, List<String> winnerIds, List<String> replacementIds, Callback<Void> cb) {
-        if (eventId == null || eventId.isEmpty()) {
-            cb.onError(new IllegalArgumentException("eventId is empty"));
+    /**
+     * Runs {@link #migrateSummaries} unless a completed run is recorded in
+     * {@code migrations/eventSummariesV2}, so events created before summaries existed show up
+     * in the browser. Only the first call in a process reads the marker; clients racing on
+     * the first run do no harm, since the migration only fills in incomplete summaries.
+     *
+     * @param cb receives the number of summaries written, 0 when the migration already ran
+     */
+    public void migrateSummariesOnce(Callback<Integer> cb) {
+        if (!SUMMARIES_MIGRATION_CHECKED.compareAndSet(false, true)) {
+            cb.onSuccess(0);
             return;
         }
-        if (winnerIds == null || winnerIds.isEmpty()) {
+        DocumentReference marker = db.collection(COLLECTION_MIGRATIONS).document(SUMMARIES_MIGRATION);
+        marker.get()
+                .addOnSuccessListener(snapshot -> {
+                    if (snapshot != null && snapshot.exists()) {
+                        cb.onSuccess(0);
+                        return;
+                    }
+                    migrateSummaries(new Callback<Integer>() {
+                        @Override
+                        public void onSuccess(Integer written) {
+                            marker.set(Collections.singletonMap("completedAt", System.currentTimeMillis()))
+                                    .addOnSuccessListener(unused -> cb.onSuccess(written))
+                                    .addOnFailureListener(cb::onError);
+                        }
+
+                        @Override
+                        public void onError(@NonNull Exception e) {
+                            // Let a later screen try again
+                            SUMMARIES_MIGRATION_CHECKED.set(false);
+                            cb.onError(e);
+                        }
+                    });
+                })
+                .addOnFailureListener(e -> {
+                    SUMMARIES_MIGRATION_CHECKED.set(false);
+                    cb.onError(e);
+                });
+    }
+
+    // Writes the summaries a chunk of events lack, one transaction per chunk
+    private void writeMissingSummaries(List<String> eventIds, int start, int written, Callback<Integer> cb) {
+        if (start >= eventIds.size()) {
+            cb.onSuccess(written);
+            return;
+        }
+        int end = Math.min(start + MAX_BATCH_OPS, eventIds.size());
+        db.runTransaction(transaction -> {
+            // All reads come before the writes; only events needing a summary are read
+            List<DocumentSnapshot> events = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                DocumentSnapshot summary = transaction.get(summaryRef(eventIds.get(i)));
+                if (!summary.exists() || summary.get("name") == null || hasRawDates(summary)) {
+                    events.add(transaction.get(db.collection("events").document(eventIds.get(i))));
+                }
+            }
+            int count = 0;
+            for (DocumentSnapshot event : events) {
+                if (event.exists()) {
+                    transaction.set(summaryRef(event.getId()), summaryOf(event), SetOptions.merge());
+                    count++;
+                }
+            }
+            return count;
+        })
+                .addOnSuccessListener(count -> writeMissingSummaries(eventIds, end, written + count, cb))
+                .addOnFailureListener(cb::onError);
+    }
+
+    // Reads the legacy lists one after another, keeping the most advanced status per entrant
+    private void collectLegacyMemberships(DocumentReference eventRef, int index,
+                                          Map<String, Map<String, Object>> result,
+                                          Callback<Map<String, Map<String, Object>>> cb) {
+        if (index >= LISTS.length) {
+            cb.onSuccess(result);
+            return;
+        }
+        String list = LISTS[index];
+        String status = statusForList(list);
+        String timestampField = timestampFieldFor(status);
+
+        eventRef.collection(list).get()
+                .addOnSuccessListener(querySnapshot -> {
+                    for (QueryDocumentSnapshot doc : querySnapshot) {
+                        Map<String, Object> current = result.get(doc.getId());
+                        if (current != null
+                                && statusRank((String) current.get("status")) >= statusRank(status)) {
+                            continue;
+                        }
+                        Map<String, Object> data = new HashMap<>();
+                        data.put("deviceId", doc.getId());
+                        data.put("status", status);
+                        Object timestamp = doc.get(LIST_WAITING.equals(list) ? "request_time" : timestampField);
+                        if (timestamp != null) {
+                            data.put(timestampField, timestamp);
+                        }
+                        data.put("updatedAt", System.currentTimeMillis());
+                        result.put(doc.getId(), data);
+                    }
+                    collectLegacyMemberships(eventRef, index + 1, result, cb);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    // Creates the docs that still do not exist, one transaction per chunk so a doc written
+    // concurrently is seen and skipped rather than overwritten
+    private void createMissingInChunks(List<DocumentReference> refs, List<Map<String, Object>> docs,
+                                       int start, int created, Callback<Integer> cb) {
+        if (start >= refs.size()) {
+            cb.onSuccess(created);
+            return;
+        }
+        int end = Math.min(start + MAX_BATCH_OPS, refs.size());
+        db.runTransaction(transaction -> {
+            // All reads come before the writes
+            List<Integer> missing = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                if (!transaction.get(refs.get(i)).exists()) {
+                    missing.add(i);
+                }
+            }
+            for (int i : missing) {
+                transaction.set(refs.get(i), docs.get(i));
+            }
+            return missing.size();
+        })
+                .addOnSuccessListener(count -> createMissingInChunks(refs, docs, end, created + count, cb))
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Counts the documents in one of the event's entrant lists using a server-side
+     * aggregation query, so only the count is transferred rather than every document.
+     *
+     * @param eventId event whose list is counted
+     * @param list one of the {@code LIST_*} subcollection names
+     * @param cb receives the number of entrants in the list
+     */
+    public void getListCount(String eventId, String list, Callback<Integer> cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
+            return;
+        }
+        if (list == null || list.isEmpty()) {
+            cb.onError(new IllegalArgumentException("list is empty"));
+            return;
+        }
+        CollectionReference ref = db.collection("events").document(eventId).collection(list);
+        SingleFlight.getInstance()
+                .run(ref.getPath() + "?count", () -> ref.count().get(AggregateSource.SERVER))
+                .addOnSuccessListener(snapshot -> cb.onSuccess((int) snapshot.getCount()))
+                .addOnFailureListener(cb::onError);
+    }
+
+    // Point read of an event document, shared with any identical read already in flight
+    private Task<DocumentSnapshot> readEventDoc(String eventId) {
+        DocumentReference ref = db.collection("events").document(eventId);
+        return SingleFlight.getInstance().run(ref.getPath(), ref::get);
+    }
+
+    public void getWaitlistCount(String eventId, Callback<Integer> cb) {
+        getListCount(eventId, LIST_WAITING, cb);
+    }
+
+    public void getWinnersCount(String eventId, Callback<Integer> cb) {
+        getListCount(eventId, LIST_WINNERS, cb);
+    }
+
+    public void getAcceptedCount(String eventId, Callback<Integer> cb) {
+        getListCount(eventId, LIST_ACCEPTED, cb);
+    }
+
+    public void getCancelledCount(String eventId, Callback<Integer> cb) {
+        getListCount(eventId, LIST_CANCELLED, cb);
+    }
+
+    /**
+     * Real-time waitlist count.
+     *
+     * @return registration that must be removed when the caller stops listening
+     */
+    public ListenerRegistration fetchAccurateWaitlistCount(String eventId, Callback<Integer> cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
+            return () -> { };
+        }
+
+        return db.collection("events").document(eventId)
+                .collection("waitingList")
+                .addSnapshotListener((querySnapshot, e) -> {
+                    if (e != null) {
+                        cb.onError(e);
+                        return;
+                    }
+
+                    int count = querySnapshot != null ? querySnapshot.size() : 0;
+                    cb.onSuccess(count);
+                });
+    }
+
+    /**
+     * Joins the waitlist in one transaction that enforces capacity exactly.
+     *
+     * <p>Reads the event's {@code waitlistCount} and the entrant's membership doc (or, for
+     * entrants without one on events not yet flagged {@link #FIELD_MEMBERSHIPS_MIGRATED},
+     * their docs in the legacy per-status lists), and only
+     * if the entrant is not already a member and the waitlist is below
+     * {@code maxCapacity} writes the waitlist doc, the membership, the
+     * {@code entrants/{deviceId}/events} index entry and the counter increment together.
+     * Concurrent joins contend on the event document, so the last seat goes to exactly
+     * one of them. An entrant whose earlier invitation was cancelled may join again.</p>
+     *
+     * <p>On events with {@link #FIELD_COUNTER_SHARDS} set, the count and capacity check
+     * move to one shard's slice instead, so joins stop contending on the event document.</p>
+     */
+    public void tryJoinWaitlist(String eventId, String deviceId, Callback<JoinOutcome> cb) {
+        if (eventId == null || eventId.isEmpty() || deviceId == null || deviceId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId or deviceId is empty"));
+            return;
+        }
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        DocumentReference membershipRef = eventRef.collection(MEMBERSHIP).document(deviceId);
+
+        db.runTransaction(transaction -> {
+            DocumentSnapshot event = transaction.get(eventRef);
+            DocumentSnapshot membership = transaction.get(membershipRef);
+            if (!event.exists()) {
+                return JoinOutcome.EVENT_NOT_FOUND;
+            }
+            if (membership.exists()) {
+                if (!STATUS_CANCELLED.equals(membership.getString("status"))) {
+                    return JoinOutcome.ALREADY_JOINED;
+                }
+            } else if (!Boolean.TRUE.equals(event.getBoolean(FIELD_MEMBERSHIPS_MIGRATED))
+                    && inLegacyList(transaction, eventRef, deviceId)) {
+                // Joined before membership docs existed and the event has not been migrated
+                return JoinOutcome.ALREADY_JOINED;
+            }
+            if (isRecounting(event)) {
+                // A join counted after the recount's aggregate would be overwritten by it
+                return JoinOutcome.COUNTERS_BUSY;
+            }
+            long capacity = capacityOf(event);
+            int shards = shardCountOf(event);
+            if (shards > 0) {
+                return joinThroughShard(transaction, eventId, deviceId, capacity, shards);
+            }
+            Long count = event.getLong(COUNT_WAITLIST);
+            if (count == null) {
+                // Incrementing would start the count at 0 under a non-empty waitlist
+                return JoinOutcome.COUNTERS_MISSING;
+            }
+            if (capacity > 0 && count >= capacity) {
+                return JoinOutcome.FULL;
+            }
+            stageJoin(transaction, eventId, deviceId, null);
+            stageCounterUpdates(transaction, event, Collections.singletonMap(COUNT_WAITLIST, 1L));
+            return JoinOutcome.JOINED;
+        })
+                .addOnSuccessListener(outcome -> {
+                    if (outcome == JoinOutcome.JOINED) {
+                        EVENT_CACHE.invalidate(eventId);
+                        WAITLIST_TOTAL_CACHE.invalidate(eventId);
+                    }
+                    cb.onSuccess(outcome);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    // Checks the per-status lists an entrant without a membership doc may still be in
+    private static boolean inLegacyList(Transaction transaction, DocumentReference eventRef, String deviceId)
+            throws FirebaseFirestoreException {
+        for (String list : new String[] {LIST_WAITING, LIST_WINNERS, LIST_ACCEPTED, LIST_REPLACEMENT_POOL}) {
+            if (transaction.get(eventRef.collection(list).document(deviceId)).exists()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Sharded join: counts the entrant in the first shard, from a random start, with room left
+    private JoinOutcome joinThroughShard(Transaction transaction, String eventId, String deviceId,
+                                         long capacity, int shards)
+            throws FirebaseFirestoreException {
+        int shard = ShardedCounter.chooseShard(shards, ThreadLocalRandom.current(), i -> {
+            DocumentSnapshot doc = transaction.get(shardRef(eventId, i));
+            Long count = doc.getLong(ShardedCounter.FIELD_COUNT);
+            Long limit = doc.getLong(ShardedCounter.FIELD_LIMIT);
+            Long limitsFor = doc.getLong(ShardedCounter.FIELD_CAPACITY);
+            if (count == null || limit == null || limitsFor == null || limitsFor != capacity) {
+                return null;
+            }
+            return new long[] {count, limit};
+        });
+        if (shard == ShardedCounter.STALE) {
+            // Missing shard or capacity edited since the limits were spread; only the
+            // organizer's reconcile may spread them again
+            return JoinOutcome.COUNTERS_BUSY;
+        }
+        if (shard == ShardedCounter.NO_ROOM) {
+            return JoinOutcome.FULL;
+        }
+        stageJoin(transaction, eventId, deviceId, shard);
+        transaction.update(shardRef(eventId, shard), ShardedCounter.FIELD_COUNT, FieldValue.increment(1));
+        return JoinOutcome.JOINED;
+    }
+
+    // Writes the waitlist doc, membership and entrant index entry of a join
+    private void stageJoin(Transaction transaction, String eventId, String deviceId, Integer shard) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        long now = System.currentTimeMillis();
+        Map<String, Object> data = new HashMap<>();
+        data.put("deviceId", deviceId);
+        data.put("request_time", FieldValue.serverTimestamp());
+        data.put(FIELD_RND, Math.random());
+        if (shard != null) {
+            data.put(ShardedCounter.FIELD_SHARD, shard);
+        }
+        transaction.set(eventRef.collection(LIST_WAITING).document(deviceId), data);
+        transaction.set(eventRef.collection(MEMBERSHIP).document(deviceId),
+                membershipData(deviceId, STATUS_WAITING, now), SetOptions.merge());
+        Map<String, Object> index = new HashMap<>();
+        index.put("eventId", eventId);
+        transaction.set(entrantEventRef(deviceId, eventId), index);
+    }
+
+    private DocumentReference shardRef(String eventId, int shard) {
+        return db.collection("events").document(eventId)
+                .collection(ShardedCounter.COLLECTION).document(String.valueOf(shard));
+    }
+
+    // maxCapacity as a long, with 0 meaning no limit
+    private static long capacityOf(DocumentSnapshot event) {
+        Long capacity = event.getLong("maxCapacity");
+        return capacity != null && capacity > 0 ? capacity : 0;
+    }
+
+    private static int shardCountOf(DocumentSnapshot event) {
+        Long shards = event.getLong(FIELD_COUNTER_SHARDS);
+        return shards != null && shards > 0 ? shards.intValue() : 0;
+    }
+
+    private DocumentReference entrantEventRef(String deviceId, String eventId) {
+        return db.collection("entrants").document(deviceId)
+                .collection("events").document(eventId);
+    }
+
+    // Removes from waitlist (idempotent - safe to call multiple times).
+    // Runs as a transaction so the counter is only decremented when the doc actually existed.
+    public void leaveWaitlist(String eventId, String deviceId, Callback<Void> cb) {
+        if (eventId == null || eventId.isEmpty() || deviceId == null || deviceId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId or deviceId is empty"));
+            return;
+        }
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        DocumentReference waitlistRef = eventRef.collection("waitingList").document(deviceId);
+
+        db.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(waitlistRef);
+            DocumentSnapshot event = transaction.get(eventRef);
+            if (isRecounting(event)) {
+                return false;
+            }
+            if (snapshot.exists()) {
+                transaction.delete(waitlistRef);
+                transaction.delete(eventRef.collection(MEMBERSHIP).document(deviceId));
+                transaction.delete(entrantEventRef(deviceId, eventId));
+                long unsharded = stageShardReleases(transaction, event, Collections.singletonList(snapshot));
+                if (unsharded > 0) {
+                    stageCounterUpdates(transaction, event, Collections.singletonMap(COUNT_WAITLIST, -unsharded));
+                }
+            }
+            return true;
+        })
+                .addOnSuccessListener(done -> {
+                    if (!done) {
+                        cb.onError(new IllegalStateException(COUNTERS_BUSY_MESSAGE));
+                        return;
+                    }
+                    EVENT_CACHE.invalidate(eventId);
+                    WAITLIST_TOTAL_CACHE.invalidate(eventId);
+                    cb.onSuccess(null);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    public void getWaitlist(String eventId, Callback<List<Map<String, Object>>> cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
+            return;
+        }
+        db.collection("events").document(eventId)
+                .collection("waitingList")
+                .get()
+                .addOnSuccessListener(querySnapshot -> {
+                    List<Map<String, Object>> entries = new ArrayList<>();
+                    if (querySnapshot != null) {
+                        for (QueryDocumentSnapshot doc : querySnapshot) {
+                            Map<String, Object> entry = new HashMap<>();
+                            entry.put("deviceId", doc.getId());
+                            entry.put("requestTime", doc.get("request_time"));
+                            entries.add(entry);
+                        }
+                    }
+                    cb.onSuccess(entries);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    // Moves winners from waitlist to winners, creates replacement pool
+    public void markWinners(String eventId, List<String> winnerIds, List<String> replacementIds, Callback<Void> cb) {
+        markWinners(eventId, winnerIds, replacementIds, System.currentTimeMillis(), cb);
+    }
+
+    /**
+     * Same as {@link #markWinners(String, List, List, Callback)} with a caller-chosen
+     * invitedAt time, which the draw also uses as the round of its winner notifications.
+     */
+    public void markWinners(String eventId, List<String> winnerIds, List<String> replacementIds,
+                            long invitedAt, Callback<Void> cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
+            return;
+        }
+        if (winnerIds == null || winnerIds.isEmpty()) {
             cb.onError(new IllegalArgumentException("winnerIds is empty"));
             return;
         }
 
-        WriteBatch batch = db.batch();
-        long timestamp = System.currentTimeMillis();
-
-        // Move winners from waitingList to winners
-        for (String winnerId : winnerIds) {
-            // Remove from waitingList
-            DocumentReference waitlistRef = db.collection("events")
-                    .document(eventId)
-                    .collection("waitingList")
-                    .document(winnerId);
-            batch.delete(waitlistRef);
-
-            // Add to winners
-            DocumentReference winnersRef = db.collection("events")
-                    .document(eventId)
-                    .collection("winners")
-                    .document(winnerId);
-            Map<String, Object> data = new HashMap<>();
-            data.put("deviceId", winnerId);
-            data.put("invitedAt", timestamp);
-            batch.set(winnersRef, data);
-        }
-
-        // Move replacement pool from waitingList to replacementPool
-        if (replacementIds != null && !replacementIds.isEmpty()) {
-            for (String replacementId : replacementIds) {
-                // Remove from waitingList
-                DocumentReference waitlistRef = db.collection("events")
-                        .document(eventId)
-                        .collection("waitingList")
-                        .document(replacementId);
-                batch.delete(waitlistRef);
-
-                // Add to replacementPool
-                DocumentReference poolRef = db.collection("events")
-                        .document(eventId)
-                        .collection("replacementPool")
-                        .document(replacementId);
+        commitDrawMoves(eventId, winnerIds, replacementIds != null ? replacementIds : new ArrayList<>(),
+                invitedAt, null, new Callback<List<String>>() {
+                    @Override
+                    public void onSuccess(List<String> skipped) {
+                        cb.onSuccess(null);
+                    }
+
+                    @Override
+                    public void onError(@NonNull Exception e) {
+                        cb.onError(e);
+                    }
+                });
+    }
+    
+    /**
+     * Loads one page of waitlist ids in document-id order, for streaming draws.
+     *
+     * @param afterId last id of the previous page, or null for the first page
+     */
+    public void getWaitlistIdsPage(String eventId, String afterId, int limit, Callback<String[]> cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
+            return;
+        }
+        Query query = db.collection("events").document(eventId)
+                .collection(LIST_WAITING)
+                .orderBy(FieldPath.documentId());
+        if (afterId != null) {
+            query = query.startAfter(afterId);
+        }
+        query.limit(limit)
+                .get()
+                .addOnSuccessListener(querySnapshot -> {
+                    String[] ids = new String[querySnapshot.size()];
+                    int i = 0;
+                    for (QueryDocumentSnapshot doc : querySnapshot) {
+                        ids[i++] = doc.getId();
+                    }
+                    cb.onSuccess(ids);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Claims the right to run the event's draw for {@code ttlMillis}. Runs as a
+     * transaction on the event document, so of two devices racing for the lease exactly
+     * one gets it; the other fails fast with {@link DrawLease.HeldException}. An expired
+     * lease is taken over, and re-acquiring one's own lease just extends it.
+     *
+     * @param ownerId identifies this draw attempt
+     */
+    public void acquireDrawLease(String eventId, String ownerId, long ttlMillis, Callback<DrawLease> cb) {
+        if (eventId == null || eventId.isEmpty() || ownerId == null || ownerId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId or ownerId is empty"));
+            return;
+        }
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        db.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(eventRef);
+            if (!snapshot.exists()) {
+                return null;
+            }
+            long now = System.currentTimeMillis();
+            String holder = snapshot.getString(FIELD_DRAW_LEASE_OWNER);
+            Long holderExpiresAt = snapshot.getLong(FIELD_DRAW_LEASE_EXPIRES_AT);
+            if (holder != null && !holder.equals(ownerId)
+                    && holderExpiresAt != null && holderExpiresAt > now) {
+                return new DrawLease(eventId, holder, holderExpiresAt, ttlMillis);
+            }
+            long expiresAt = now + ttlMillis;
+            transaction.update(eventRef, FIELD_DRAW_LEASE_OWNER, ownerId,
+                    FIELD_DRAW_LEASE_EXPIRES_AT, expiresAt);
+            return new DrawLease(eventId, ownerId, expiresAt, ttlMillis);
+        })
+                .addOnSuccessListener(lease -> {
+                    if (lease == null) {
+                        cb.onError(new IllegalStateException("Event not found"));
+                    } else if (!ownerId.equals(lease.getOwnerId())) {
+                        cb.onError(new DrawLease.HeldException(lease.getExpiresAt()));
+                    } else {
+                        cb.onSuccess(lease);
+                    }
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Pushes the lease expiry out by another TTL. Fails with
+     * {@link DrawLease.HeldException} if the lease expired and someone else took it.
+     */
+    public void renewDrawLease(DrawLease lease, Callback<Void> cb) {
+        if (lease == null) {
+            cb.onError(new IllegalArgumentException("lease is null"));
+            return;
+        }
+        DocumentReference eventRef = db.collection("events").document(lease.getEventId());
+        long expiresAt = System.currentTimeMillis() + lease.getTtlMillis();
+        db.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(eventRef);
+            String holder = snapshot.getString(FIELD_DRAW_LEASE_OWNER);
+            if (holder != null && !holder.equals(lease.getOwnerId())) {
+                Long holderExpiresAt = snapshot.getLong(FIELD_DRAW_LEASE_EXPIRES_AT);
+                return holderExpiresAt != null ? holderExpiresAt : 0L;
+            }
+            transaction.update(eventRef, FIELD_DRAW_LEASE_OWNER, lease.getOwnerId(),
+                    FIELD_DRAW_LEASE_EXPIRES_AT, expiresAt);
+            return null;
+        })
+                .addOnSuccessListener(holderExpiresAt -> {
+                    if (holderExpiresAt != null) {
+                        cb.onError(new DrawLease.HeldException(holderExpiresAt));
+                        return;
+                    }
+                    lease.setExpiresAt(expiresAt);
+                    cb.onSuccess(null);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    /** Gives the lease up early. A no-op if it has already passed to another owner. */
+    public void releaseDrawLease(DrawLease lease, Callback<Void> cb) {
+        if (lease == null) {
+            cb.onError(new IllegalArgumentException("lease is null"));
+            return;
+        }
+        DocumentReference eventRef = db.collection("events").document(lease.getEventId());
+        db.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(eventRef);
+            if (lease.getOwnerId().equals(snapshot.getString(FIELD_DRAW_LEASE_OWNER))) {
+                transaction.update(eventRef, FIELD_DRAW_LEASE_OWNER, FieldValue.delete(),
+                        FIELD_DRAW_LEASE_EXPIRES_AT, FieldValue.delete());
+            }
+            return null;
+        })
+                .addOnSuccessListener(unused -> cb.onSuccess(null))
+                .addOnFailureListener(cb::onError);
+    }
+
+    /** Reads the event's draw checkpoint, or null when no draw has been recorded. */
+    public void getDrawCheckpoint(String eventId, Callback<DrawCheckpoint> cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
+            return;
+        }
+        drawCheckpointRef(eventId)
+                .get()
+                .addOnSuccessListener(snapshot -> cb.onSuccess(snapshot != null && snapshot.exists()
+                        ? snapshot.toObject(DrawCheckpoint.class) : null))
+                .addOnFailureListener(cb::onError);
+    }
+
+    /** Records a freshly sampled draw before any entrant is moved. */
+    public void saveDrawCheckpoint(String eventId, DrawCheckpoint checkpoint, Callback<Void> cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
+            return;
+        }
+        drawCheckpointRef(eventId)
+                .set(checkpoint)
+                .addOnSuccessListener(unused -> cb.onSuccess(null))
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Marks a draw done once its winner notifications were dispatched. Until then the
+     * checkpoint stays {@code notifying}, so an interrupted draw resumes by notifying
+     * instead of drawing again.
+     */
+    public void completeDrawCheckpoint(String eventId, DrawCheckpoint checkpoint, Callback<Void> cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
+            return;
+        }
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("status", DrawCheckpoint.STATUS_DONE);
+        progress.put("updatedAt", System.currentTimeMillis());
+        drawCheckpointRef(eventId)
+                .update(progress)
+                .addOnSuccessListener(unused -> {
+                    checkpoint.setStatus(DrawCheckpoint.STATUS_DONE);
+                    cb.onSuccess(null);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Moves the next slice of a checkpointed draw and advances the checkpoint in the same
+     * transaction, so a retried or resumed draw never moves an entrant twice. Entrants who
+     * left the waitlist since the sample was taken are not moved; they are recorded as
+     * skipped on the checkpoint so they are not notified either.
+     *
+     * @param winnerEnd exclusive end index into the checkpoint's winners
+     * @param replacementEnd exclusive end index into the checkpoint's replacements
+     */
+    public void commitDrawChunk(String eventId, DrawCheckpoint checkpoint, int winnerEnd,
+                                int replacementEnd, Callback<Void> cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
+            return;
+        }
+        List<String> winners = checkpoint.getWinners()
+                .subList(checkpoint.getCommittedWinners(), winnerEnd);
+        List<String> replacements = checkpoint.getReplacements()
+                .subList(checkpoint.getCommittedReplacements(), replacementEnd);
+
+        boolean done = winnerEnd == checkpoint.getWinners().size()
+                && replacementEnd == checkpoint.getReplacements().size();
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("committedWinners", winnerEnd);
+        progress.put("committedReplacements", replacementEnd);
+        progress.put("status", done ? DrawCheckpoint.STATUS_NOTIFYING : DrawCheckpoint.STATUS_COMMITTING);
+        progress.put("updatedAt", System.currentTimeMillis());
+
+        commitDrawMoves(eventId, winners, replacements, checkpoint.getDrawId(), progress,
+                new Callback<List<String>>() {
+            @Override
+            public void onSuccess(List<String> skipped) {
+                checkpoint.setCommittedWinners(winnerEnd);
+                checkpoint.setCommittedReplacements(replacementEnd);
+                checkpoint.getSkipped().addAll(skipped);
+                if (done) {
+                    checkpoint.setStatus(DrawCheckpoint.STATUS_NOTIFYING);
+                }
+                cb.onSuccess(null);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+    }
+
+    private DocumentReference drawCheckpointRef(String eventId) {
+        return db.collection("events").document(eventId)
+                .collection("drawState").document("current");
+    }
+
+    // Moves the entrants still on the waitlist to winners/replacementPool in one transaction,
+    // with their memberships, the counters and, for a draw chunk, the checkpoint progress.
+    // Reports the ids that were no longer waitlisted and so were left alone.
+    private void commitDrawMoves(String eventId, List<String> winnerIds, List<String> replacementIds,
+                                 long timestamp, Map<String, Object> progress,
+                                 Callback<List<String>> cb) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        db.runTransaction(transaction -> {
+            // All reads come before the writes
+            DocumentSnapshot event = transaction.get(eventRef);
+            List<String> skipped = new ArrayList<>();
+            List<DocumentSnapshot> waiting = new ArrayList<>();
+            List<String> winners = stillWaiting(transaction, eventRef, winnerIds, waiting, skipped);
+            List<String> replacements = stillWaiting(transaction, eventRef, replacementIds, waiting, skipped);
+
+            for (String winnerId : winners) {
+                transaction.delete(eventRef.collection(LIST_WAITING).document(winnerId));
+                Map<String, Object> data = new HashMap<>();
+                data.put("deviceId", winnerId);
+                data.put("invitedAt", timestamp);
+                transaction.set(eventRef.collection(LIST_WINNERS).document(winnerId), data);
+                transaction.set(eventRef.collection(MEMBERSHIP).document(winnerId),
+                        membershipData(winnerId, STATUS_WINNER, timestamp), SetOptions.merge());
+            }
+            for (String replacementId : replacements) {
+                transaction.delete(eventRef.collection(LIST_WAITING).document(replacementId));
                 Map<String, Object> data = new HashMap<>();
                 data.put("deviceId", replacementId);
                 data.put("addedToPoolAt", timestamp);
-                batch.set(poolRef, data);
+                data.put(FIELD_RND, Math.random());
+                transaction.set(eventRef.collection(LIST_REPLACEMENT_POOL).document(replacementId), data);
+                transaction.set(eventRef.collection(MEMBERSHIP).document(replacementId),
+                        membershipData(replacementId, STATUS_REPLACEMENT, timestamp), SetOptions.merge());
             }
-        }
 
-        batch.commit()
-                .addOnSuccessListener(unused -> cb.onSuccess(null))
+            Map<String, Long> deltas = new HashMap<>();
+            deltas.put(COUNT_WAITLIST, -stageShardReleases(transaction, event, waiting));
+            deltas.put(COUNT_WINNERS, (long) winners.size());
+            deltas.put(COUNT_REPLACEMENT_POOL, (long) replacements.size());
+            stageCounterUpdates(transaction, event, deltas);
+
+            if (progress != null) {
+                Map<String, Object> update = new HashMap<>(progress);
+                if (!skipped.isEmpty()) {
+                    update.put("skipped", FieldValue.arrayUnion(skipped.toArray()));
+                }
+                transaction.update(drawCheckpointRef(eventId), update);
+            }
+            return skipped;
+        })
+                .addOnSuccessListener(skipped -> {
+                    EVENT_CACHE.invalidate(eventId);
+                    WAITLIST_TOTAL_CACHE.invalidate(eventId);
+                    cb.onSuccess(skipped);
+                })
                 .addOnFailureListener(cb::onError);
     }
-    
+
+    // The ids whose waitlist doc still exists, with those docs added to docs; the other
+    // ids are added to skipped
+    private static List<String> stillWaiting(Transaction transaction, DocumentReference eventRef,
+                                             List<String> ids, List<DocumentSnapshot> docs,
+                                             List<String> skipped)
+            throws FirebaseFirestoreException {
+        List<String> waiting = new ArrayList<>();
+        for (String id : ids) {
+            DocumentSnapshot doc = transaction.get(eventRef.collection(LIST_WAITING).document(id));
+            if (doc.exists()) {
+                waiting.add(id);
+                docs.add(doc);
+            } else {
+                skipped.add(id);
+            }
+        }
+        return waiting;
+    }
+
+    // Gives the seats of removed waitlist entrants back to the shards their joins were counted
+    // in, one decrement per shard. Returns how many were not counted in a current shard
+    // (joined before sharding, or in a shard since removed); those are taken off the event's
+    // waitlistCount by the caller.
+    private long stageShardReleases(Transaction transaction, DocumentSnapshot event,
+                                    List<DocumentSnapshot> waitlistDocs) {
+        int shards = shardCountOf(event);
+        Map<Integer, Long> released = new HashMap<>();
+        long unsharded = 0;
+        for (DocumentSnapshot doc : waitlistDocs) {
+            Long shard = doc.getLong(ShardedCounter.FIELD_SHARD);
+            if (shard != null && shard >= 0 && shard < shards) {
+                Long count = released.get(shard.intValue());
+                released.put(shard.intValue(), count != null ? count + 1 : 1L);
+            } else {
+                unsharded++;
+            }
+        }
+        for (Map.Entry<Integer, Long> entry : released.entrySet()) {
+            transaction.update(shardRef(event.getId(), entry.getKey()),
+                    ShardedCounter.FIELD_COUNT, FieldValue.increment(-entry.getValue()));
+        }
+        return unsharded;
+    }
+
     // Legacy - no replacement pool
     public void markWinners(String eventId, List<String> entrantIds, Callback<Void> cb) {
         markWinners(eventId, entrantIds, new ArrayList<>(), cb);
     }
 
-    // Promotes replacement from pool to winners (picks first if entrantId is null)
-    public void markReplacement(String eventId, String entrantId, Callback<Void> cb) {
+    /**
+     * Picks one entrant uniformly at random from an entrant list without downloading it.
+     *
+     * <p>Draws {@code r} in [0, 1) and reads the first doc with {@code rnd >= r}; if none,
+     * wraps around to the lowest {@code rnd}. Costs one or two document reads. The first
+     * sample of an event gives docs written before {@code rnd} existed a key, so every
+     * entrant can be drawn; see {@link #FIELD_RND_BACKFILLED}.</p>
+     *
+     * @param listName one of the {@code LIST_*} subcollection names
+     * @param cb receives the device id, or null when the list is empty
+     */
+    public void sampleRandomEntrant(String eventId, String listName, Callback<String> cb) {
+        if (eventId == null || eventId.isEmpty() || listName == null || listName.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId or listName is empty"));
+            return;
+        }
+        ensureRandomKeys(eventId, new Callback<Void>() {
+            @Override
+            public void onSuccess(Void value) {
+                sampleKeyedEntrant(db.collection("events").document(eventId).collection(listName), cb);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+    }
+
+    private void sampleKeyedEntrant(Query list, Callback<String> cb) {
+        double r = Math.random();
+        list.whereGreaterThanOrEqualTo(FIELD_RND, r).orderBy(FIELD_RND).limit(1).get()
+                .addOnSuccessListener(above -> {
+                    if (above != null && !above.isEmpty()) {
+                        cb.onSuccess(above.getDocuments().get(0).getId());
+                        return;
+                    }
+                    // Wrap around to the start of the key range
+                    list.orderBy(FIELD_RND).limit(1).get()
+                            .addOnSuccessListener(first -> cb.onSuccess(first == null || first.isEmpty()
+                                    ? null : first.getDocuments().get(0).getId()))
+                            .addOnFailureListener(cb::onError);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    // One-off per event: keys the waitlist and replacement pool docs written before rnd
+    // existed, then sets the event's flag. Reads both lists once; later calls read nothing.
+    private void ensureRandomKeys(String eventId, Callback<Void> cb) {
+        if (RND_BACKFILLED.contains(eventId)) {
+            cb.onSuccess(null);
+            return;
+        }
+        readEventDoc(eventId)
+                .addOnSuccessListener(event -> {
+                    if (Boolean.TRUE.equals(event.getBoolean(FIELD_RND_BACKFILLED))) {
+                        RND_BACKFILLED.add(eventId);
+                        cb.onSuccess(null);
+                        return;
+                    }
+                    backfillRandomKeys(eventId, new String[] {LIST_WAITING, LIST_REPLACEMENT_POOL}, 0, cb);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    private void backfillRandomKeys(String eventId, String[] lists, int index, Callback<Void> cb) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        if (index >= lists.length) {
+            eventRef.update(FIELD_RND_BACKFILLED, true)
+                    .addOnSuccessListener(unused -> {
+                        RND_BACKFILLED.add(eventId);
+                        cb.onSuccess(null);
+                    })
+                    .addOnFailureListener(cb::onError);
+            return;
+        }
+        eventRef.collection(lists[index]).get()
+                .addOnSuccessListener(snapshot -> {
+                    List<DocumentReference> unkeyed = new ArrayList<>();
+                    for (QueryDocumentSnapshot doc : snapshot) {
+                        if (doc.get(FIELD_RND) == null) {
+                            unkeyed.add(doc.getReference());
+                        }
+                    }
+                    keyInChunks(unkeyed, 0, new Callback<Void>() {
+                        @Override
+                        public void onSuccess(Void value) {
+                            backfillRandomKeys(eventId, lists, index + 1, cb);
+                        }
+
+                        @Override
+                        public void onError(@NonNull Exception e) {
+                            cb.onError(e);
+                        }
+                    });
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    // Keys the docs that still exist and still lack a key, one transaction per chunk so a doc
+    // deleted meanwhile is not re-created by the write
+    private void keyInChunks(List<DocumentReference> refs, int start, Callback<Void> cb) {
+        if (start >= refs.size()) {
+            cb.onSuccess(null);
+            return;
+        }
+        int end = Math.min(start + MAX_BATCH_OPS, refs.size());
+        db.runTransaction(transaction -> {
+            // All reads come before the writes
+            List<DocumentReference> unkeyed = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                DocumentSnapshot doc = transaction.get(refs.get(i));
+                if (doc.exists() && doc.get(FIELD_RND) == null) {
+                    unkeyed.add(refs.get(i));
+                }
+            }
+            for (DocumentReference ref : unkeyed) {
+                transaction.update(ref, FIELD_RND, Math.random());
+            }
+            return null;
+        })
+                .addOnSuccessListener(unused -> keyInChunks(refs, end, cb))
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Promotes one sampled waitlist entrant to winners, e.g. to fill a cancelled seat.
+     *
+     * <p>Runs as a transaction that first checks the caller still holds the event's draw
+     * lease (otherwise it fails with {@link DrawLease.HeldException}), and that the
+     * entrant is still on the waitlist with no membership past waiting. An entrant who
+     * left or was drawn in the meantime yields {@link PromotionOutcome#GONE} so the caller
+     * can sample again. Otherwise the move, the membership, the counters (the entrant's
+     * shard on sharded events) and the entrant's {@code {eventId}:winner:{invitedAt}}
+     * notification commit together, so the invitation can be answered and expires like
+     * one from a draw.</p>
+     *
+     * @param lease draw lease held by the caller for the duration of the replacement
+     */
+    public void promoteWaitlistEntrant(String eventId, String entrantId, DrawLease lease,
+                                       Callback<PromotionOutcome> cb) {
+        if (eventId == null || eventId.isEmpty() || entrantId == null || entrantId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId or entrantId is empty"));
+            return;
+        }
+        if (lease == null) {
+            cb.onError(new IllegalArgumentException("lease is null"));
+            return;
+        }
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        DocumentReference waitlistRef = eventRef.collection(LIST_WAITING).document(entrantId);
+        DocumentReference membershipRef = eventRef.collection(MEMBERSHIP).document(entrantId);
+        long invitedAt = System.currentTimeMillis();
+        long[] heldUntil = new long[1];
+
+        db.runTransaction(transaction -> {
+            // All reads come before the writes
+            DocumentSnapshot event = transaction.get(eventRef);
+            DocumentSnapshot waiting = transaction.get(waitlistRef);
+            DocumentSnapshot membership = transaction.get(membershipRef);
+            DocumentSnapshot notice = readWinnerNotification(transaction, eventId, entrantId, invitedAt);
+            String holder = event.getString(FIELD_DRAW_LEASE_OWNER);
+            Long expiresAt = event.getLong(FIELD_DRAW_LEASE_EXPIRES_AT);
+            if (!lease.getOwnerId().equals(holder) || expiresAt == null || expiresAt <= invitedAt) {
+                heldUntil[0] = expiresAt != null ? expiresAt : 0L;
+                return null;
+            }
+            if (!waiting.exists() || (membership.exists()
+                    && !STATUS_WAITING.equals(membership.getString("status")))) {
+                return PromotionOutcome.GONE;
+            }
+
+            transaction.delete(waitlistRef);
+            Map<String, Object> winner = new HashMap<>();
+            winner.put("deviceId", entrantId);
+            winner.put("invitedAt", invitedAt);
+            winner.put("isReplacement", true);
+            transaction.set(eventRef.collection(LIST_WINNERS).document(entrantId), winner);
+            transaction.set(membershipRef, membershipData(entrantId, STATUS_WINNER, invitedAt),
+                    SetOptions.merge());
+            stageWinnerNotification(transaction, notice, eventId, invitedAt);
+
+            Map<String, Long> deltas = new HashMap<>();
+            deltas.put(COUNT_WAITLIST, -stageShardReleases(transaction, event, Collections.singletonList(waiting)));
+            deltas.put(COUNT_WINNERS, 1L);
+            stageCounterUpdates(transaction, event, deltas);
+            return PromotionOutcome.PROMOTED;
+        })
+                .addOnSuccessListener(outcome -> {
+                    if (outcome == null) {
+                        cb.onError(new DrawLease.HeldException(heldUntil[0]));
+                        return;
+                    }
+                    if (outcome == PromotionOutcome.PROMOTED) {
+                        EVENT_CACHE.invalidate(eventId);
+                        WAITLIST_TOTAL_CACHE.invalidate(eventId);
+                    }
+                    cb.onSuccess(outcome);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    // Moves winner to accepted or cancelled based on enrolled flag
+    public void setEnrolledStatus(String eventId, String deviceId, Boolean enrolled, Callback<Void> cb) {
+        if (eventId == null || eventId.isEmpty() || deviceId == null || deviceId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId or deviceId is empty"));
+            return;
+        }
+
+        WriteBatch batch = db.batch();
+        Map<String, Long> deltas = stageEnrollment(batch, eventId, deviceId, enrolled, System.currentTimeMillis());
+        commitCounted(eventId, batch, deltas, cb);
+    }
+
+    /**
+     * Records an entrant's answer to an invitation in a single transaction: the winners to
+     * accepted/cancelled move, the membership, the counters and the entrant's
+     * notification all commit together, or none of them do. The transaction first checks
+     * that the entrant is still in winners and the notification has no response, and
+     * otherwise fails with an {@link IllegalStateException}, so an invitation that expired
+     * or was already answered cannot be accepted from a list loaded earlier.
+     *
+     * <p>When a winner declines and the event has {@code autoBackfill} on, the same
+     * transaction also promotes the oldest replacement pool member to winners and writes
+     * their winner notification, so the seat is refilled without organizer action.</p>
+     *
+     * @param notificationId notification under {@code entrants/{deviceId}/notifications}
+     * @param response value stored in the notification's {@code response} field
+     */
+    public void respondToInvitation(String eventId, String deviceId, String notificationId,
+                                    boolean enrolled, String response, Callback<Void> cb) {
+        if (eventId == null || eventId.isEmpty() || deviceId == null || deviceId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId or deviceId is empty"));
+            return;
+        }
+        if (notificationId == null || notificationId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("notificationId is empty"));
+            return;
+        }
+
+        if (!enrolled) {
+            declineInvitation(eventId, deviceId, notificationId, response, cb);
+            return;
+        }
+        commitResponse(eventId, deviceId, notificationId, true, response, cb);
+    }
+
+    private void commitResponse(String eventId, String deviceId, String notificationId,
+                                boolean enrolled, String response, Callback<Void> cb) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        DocumentReference winnerRef = eventRef.collection(LIST_WINNERS).document(deviceId);
+        DocumentReference noticeRef = notificationRef(deviceId, notificationId);
+        long respondedAt = System.currentTimeMillis();
+
+        db.runTransaction(transaction -> {
+            // All reads come before the writes
+            DocumentSnapshot event = transaction.get(eventRef);
+            DocumentSnapshot winner = transaction.get(winnerRef);
+            DocumentSnapshot notice = transaction.get(noticeRef);
+            if (!winner.exists() || !isUnanswered(notice)) {
+                // Expired by the sweep or answered already, possibly from a stale screen
+                return false;
+            }
+            transaction.delete(winnerRef);
+            Map<String, Object> data = new HashMap<>();
+            data.put("deviceId", deviceId);
+            data.put("respondedAt", respondedAt);
+            transaction.set(eventRef.collection(enrolled ? LIST_ACCEPTED : LIST_CANCELLED).document(deviceId), data);
+            transaction.set(eventRef.collection(MEMBERSHIP).document(deviceId),
+                    membershipData(deviceId, enrolled ? STATUS_ACCEPTED : STATUS_CANCELLED, respondedAt),
+                    SetOptions.merge());
+            transaction.update(noticeRef, responseUpdates(response, respondedAt));
+
+            Map<String, Long> deltas = new HashMap<>();
+            deltas.put(COUNT_WINNERS, -1L);
+            deltas.put(enrolled ? COUNT_ACCEPTED : COUNT_CANCELLED, 1L);
+            stageCounterUpdates(transaction, event, deltas);
+            return true;
+        })
+                .addOnSuccessListener(answered -> {
+                    if (!answered) {
+                        cb.onError(new IllegalStateException(INVITATION_CLOSED));
+                        return;
+                    }
+                    EVENT_CACHE.invalidate(eventId);
+                    cb.onSuccess(null);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    // An invitation can only be answered once, and only while its notification exists
+    private static boolean isUnanswered(DocumentSnapshot notice) {
+        return notice.exists() && notice.get("response") == null;
+    }
+
+    // With auto-backfill on, the decline and the promotion share one transaction
+    private void declineInvitation(String eventId, String deviceId, String notificationId,
+                                   String response, Callback<Void> cb) {
+        // The current setting, not a cached copy; the transaction checks it again
+        refreshEvent(eventId, new Callback<Event>() {
+            @Override
+            public void onSuccess(Event event) {
+                if (event == null || !event.isAutoBackfill()) {
+                    commitResponse(eventId, deviceId, notificationId, false, response, cb);
+                    return;
+                }
+                findBackfillCandidate(eventId, new Callback<String>() {
+                    @Override
+                    public void onSuccess(String candidateId) {
+                        commitDeclineWithBackfill(eventId, deviceId, notificationId, response, candidateId, cb);
+                    }
+
+                    @Override
+                    public void onError(@NonNull Exception e) {
+                        cb.onError(e);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+    }
+
+    // Oldest replacement pool member, or null when the pool is empty; reads one document
+    private void findBackfillCandidate(String eventId, Callback<String> cb) {
+        db.collection("events").document(eventId)
+                .collection(LIST_REPLACEMENT_POOL)
+                .orderBy("addedToPoolAt")
+                .limit(1)
+                .get()
+                .addOnSuccessListener(snapshot -> cb.onSuccess(snapshot == null || snapshot.isEmpty()
+                        ? null : snapshot.getDocuments().get(0).getId()))
+                .addOnFailureListener(cb::onError);
+    }
+
+    private void commitDeclineWithBackfill(String eventId, String deviceId, String notificationId,
+                                           String response, String candidateId, Callback<Void> cb) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        DocumentReference poolRef = candidateId != null
+                ? eventRef.collection(LIST_REPLACEMENT_POOL).document(candidateId) : null;
+        long now = System.currentTimeMillis();
+
+        db.runTransaction(transaction -> {
+            // All reads come before the writes
+            boolean promote = false;
+            boolean candidateGone = false;
+            DocumentSnapshot candidateNotice = null;
+            DocumentSnapshot event = transaction.get(eventRef);
+            DocumentSnapshot winner = transaction.get(eventRef.collection(LIST_WINNERS).document(deviceId));
+            DocumentSnapshot notice = transaction.get(notificationRef(deviceId, notificationId));
+            if (!winner.exists() || !isUnanswered(notice)) {
+                // Already declined or expired; a second move would shift the counters again
+                return null;
+            }
+            if (poolRef != null) {
+                DocumentSnapshot pooled = transaction.get(poolRef);
+                boolean enabled = Boolean.TRUE.equals(event.getBoolean(FIELD_AUTO_BACKFILL));
+                promote = enabled && pooled.exists();
+                candidateGone = enabled && !pooled.exists();
+                if (promote) {
+                    candidateNotice = readWinnerNotification(transaction, eventId, candidateId, now);
+                }
+            }
+
+            transaction.delete(eventRef.collection(LIST_WINNERS).document(deviceId));
+            Map<String, Object> cancelled = new HashMap<>();
+            cancelled.put("deviceId", deviceId);
+            cancelled.put("respondedAt", now);
+            transaction.set(eventRef.collection(LIST_CANCELLED).document(deviceId), cancelled);
+            transaction.set(eventRef.collection(MEMBERSHIP).document(deviceId),
+                    membershipData(deviceId, STATUS_CANCELLED, now), SetOptions.merge());
+            transaction.update(notificationRef(deviceId, notificationId), responseUpdates(response, now));
+
+            Map<String, Long> deltas = new HashMap<>();
+            deltas.put(COUNT_WINNERS, -1L);
+            deltas.put(COUNT_CANCELLED, 1L);
+            if (promote) {
+                stagePromotion(transaction, eventId, candidateId, now, candidateNotice);
+                deltas.put(COUNT_WINNERS, 0L);
+                deltas.put(COUNT_REPLACEMENT_POOL, -1L);
+            }
+            stageCounterUpdates(transaction, event, deltas);
+            return candidateGone;
+        })
+                .addOnSuccessListener(candidateGone -> {
+                    if (candidateGone == null) {
+                        cb.onError(new IllegalStateException(INVITATION_CLOSED));
+                        return;
+                    }
+                    EVENT_CACHE.invalidate(eventId);
+                    if (candidateGone) {
+                        // Another decline promoted the same entrant first; try the next one
+                        backfillSeat(eventId);
+                    }
+                    cb.onSuccess(null);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    // Promotes the oldest pool member into a seat freed by a decline that lost a race
+    private void backfillSeat(String eventId) {
+        findBackfillCandidate(eventId, new Callback<String>() {
+            @Override
+            public void onSuccess(String candidateId) {
+                if (candidateId == null) {
+                    return;
+                }
+                DocumentReference eventRef = db.collection("events").document(eventId);
+                DocumentReference poolRef = eventRef.collection(LIST_REPLACEMENT_POOL).document(candidateId);
+                long now = System.currentTimeMillis();
+                db.runTransaction(transaction -> {
+                    DocumentSnapshot event = transaction.get(eventRef);
+                    if (!transaction.get(poolRef).exists()) {
+                        return null;
+                    }
+                    DocumentSnapshot notice = readWinnerNotification(transaction, eventId, candidateId, now);
+                    stagePromotion(transaction, eventId, candidateId, now, notice);
+                    Map<String, Long> deltas = new HashMap<>();
+                    deltas.put(COUNT_WINNERS, 1L);
+                    deltas.put(COUNT_REPLACEMENT_POOL, -1L);
+                    stageCounterUpdates(transaction, event, deltas);
+                    return null;
+                })
+                        .addOnSuccessListener(unused -> EVENT_CACHE.invalidate(eventId))
+                        .addOnFailureListener(e -> android.util.Log.e("EventDB", "Auto-backfill failed", e));
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                android.util.Log.e("EventDB", "Auto-backfill lookup failed", e);
+            }
+        });
+    }
+
+    // Moves a pool member into winners and queues their winner notification, read beforehand
+    // with readWinnerNotification
+    private void stagePromotion(Transaction transaction, String eventId, String candidateId, long invitedAt,
+                                DocumentSnapshot notice) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        transaction.delete(eventRef.collection(LIST_REPLACEMENT_POOL).document(candidateId));
+        Map<String, Object> winner = new HashMap<>();
+        winner.put("deviceId", candidateId);
+        winner.put("invitedAt", invitedAt);
+        winner.put("isReplacement", true);
+        transaction.set(eventRef.collection(LIST_WINNERS).document(candidateId), winner);
+        transaction.set(eventRef.collection(MEMBERSHIP).document(candidateId),
+                membershipData(candidateId, STATUS_WINNER, invitedAt), SetOptions.merge());
+        stageWinnerNotification(transaction, notice, eventId, invitedAt);
+    }
+
+    // Winner notification under the id the expiry sweep looks up, with invitedAt as the round;
+    // transactions read it before their writes so an existing one is left as it is
+    private DocumentSnapshot readWinnerNotification(Transaction transaction, String eventId,
+                                                    String deviceId, long invitedAt)
+            throws FirebaseFirestoreException {
+        return transaction.get(notificationRef(deviceId,
+                EntrantDB.notificationId(eventId, STATUS_WINNER, String.valueOf(invitedAt))));
+    }
+
+    private static void stageWinnerNotification(Transaction transaction, DocumentSnapshot notice,
+                                                String eventId, long invitedAt) {
+        stageNewNotification(transaction, notice, eventId, WINNER_MESSAGE, STATUS_WINNER, invitedAt);
+    }
+
+    // Creates a notification under a fixed id unless it already exists, like
+    // EntrantDB.addNotification, so a repeat never rewrites one the entrant has seen
+    private static void stageNewNotification(Transaction transaction, DocumentSnapshot existing,
+                                             String eventId, String message, String category,
+                                             long createdAt) {
+        if (existing.exists()) {
+            return;
+        }
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("eventId", eventId);
+        notification.put("message", message);
+        notification.put("category", category);
+        notification.put("createdAt", createdAt);
+        notification.put("read", false);
+        transaction.set(existing.getReference(), notification);
+    }
+
+    /** Turns automatic refilling of declined seats on or off for the event. */
+    public void setAutoBackfill(String eventId, boolean enabled, Callback<Void> cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
+            return;
+        }
+        db.collection("events").document(eventId)
+                .update(FIELD_AUTO_BACKFILL, enabled)
+                .addOnSuccessListener(unused -> {
+                    EVENT_CACHE.invalidate(eventId);
+                    cb.onSuccess(null);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Sets how many hours winners have to respond before the expiry sweep cancels them.
+     *
+     * @param hours response window, or null to stop expiring invitations
+     */
+    public void setInvitationTtlHours(String eventId, Integer hours, Callback<Void> cb) {
         if (eventId == null || eventId.isEmpty()) {
             cb.onError(new IllegalArgumentException("eventId is empty"));
             return;
         }
+        if (hours != null && hours <= 0) {
+            cb.onError(new IllegalArgumentException("hours must be > 0"));
+            return;
+        }
+        db.collection("events").document(eventId)
+                .update(FIELD_INVITATION_TTL_HOURS, hours != null ? hours : FieldValue.delete())
+                .addOnSuccessListener(unused -> {
+                    EVENT_CACHE.invalidate(eventId);
+                    cb.onSuccess(null);
+                })
+                .addOnFailureListener(cb::onError);
+    }
 
-        if (entrantId != null && !entrantId.isEmpty()) {
-            // Specific entrant requested
-            promoteReplacementToWinner(eventId, entrantId, cb);
-        } else {
-            // Pick first available from replacement pool
-            getReplacementPool(eventId, new Callback<List<Map<String, Object>>>() {
-                @Override
-                public void onSuccess(List<Map<String, Object>> pool) {
-                    if (pool == null || pool.isEmpty()) {
-                        cb.onError(new IllegalStateException("Replacement pool is empty"));
-                        return;
+    /** Events of one organizer that have an invitation expiry set. */
+    public void getEventsWithInvitationExpiry(String organizerId, Callback<List<Event>> cb) {
+        if (organizerId == null || organizerId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("organizerId is empty"));
+            return;
+        }
+        db.collection("events")
+                .whereEqualTo("organizerId", organizerId)
+                .whereGreaterThan(FIELD_INVITATION_TTL_HOURS, 0)
+                .get()
+                .addOnSuccessListener(querySnapshot -> {
+                    List<Event> events = new ArrayList<>();
+                    for (QueryDocumentSnapshot doc : querySnapshot) {
+                        Event event = parseEventFromDocument(doc);
+                        if (event != null) {
+                            events.add(event);
+                        }
                     }
-                    String firstReplacementId = (String) pool.get(0).get("deviceId");
-                    promoteReplacementToWinner(eventId, firstReplacementId, cb);
-                }
+                    cb.onSuccess(events);
+                })
+                .addOnFailureListener(cb::onError);
+    }
 
-                @Override
-                public void onError(@NonNull Exception e) {
-                    cb.onError(e);
-                }
-            });
+    /**
+     * Expires up to {@link #EXPIRY_CHUNK_SIZE} invitations sent before {@code cutoff}.
+     *
+     * <p>Overdue winners are found with an indexed {@code invitedAt < cutoff} range query
+     * that resumes after {@code previous}, so each chunk reads only the invitations it
+     * handles. One transaction then re-checks every winner (an entrant who answered in
+     * the meantime is left alone), moves them to cancelled, marks their invitation as
+     * expired and tells them so. With {@code autoBackfill} on, the same transaction
+     * promotes as many of the oldest replacement pool members into the freed seats.</p>
+     *
+     * @param previous chunk to continue after, or null to start from the oldest invitation
+     */
+    public void expireInvitationChunk(String eventId, long cutoff, boolean autoBackfill,
+                                      ExpiryChunk previous, Callback<ExpiryChunk> cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
+            return;
         }
-    }
-    
-    private void promoteReplacementToWinner(String eventId, String entrantId, Callback<Void> cb) {
-        // Check if entrant is in replacement pool
-        db.collection("events").document(eventId)
-                .collection("replacementPool").document(entrantId)
+        Query query = db.collection("events").document(eventId)
+                .collection(LIST_WINNERS)
+                .whereLessThan("invitedAt", cutoff)
+                .orderBy("invitedAt")
+                .orderBy(FieldPath.documentId());
+        if (previous != null && previous.getLastId() != null) {
+            query = query.startAfter(previous.getLastInvitedAt(), previous.getLastId());
+        }
+        query.limit(EXPIRY_CHUNK_SIZE)
                 .get()
-                .addOnSuccessListener(snapshot -> {
-                    if (snapshot == null || !snapshot.exists()) {
-                        cb.onError(new IllegalArgumentException("Entrant not in replacement pool"));
+                .addOnSuccessListener(querySnapshot -> {
+                    List<String> overdue = new ArrayList<>();
+                    long lastInvitedAt = 0;
+                    for (QueryDocumentSnapshot doc : querySnapshot) {
+                        overdue.add(doc.getId());
+                        Long invitedAt = doc.getLong("invitedAt");
+                        lastInvitedAt = invitedAt != null ? invitedAt : 0;
+                    }
+                    if (overdue.isEmpty()) {
+                        cb.onSuccess(new ExpiryChunk(0, 0, false, 0, null));
+                        return;
+                    }
+                    boolean hasMore = overdue.size() == EXPIRY_CHUNK_SIZE;
+                    long cursorInvitedAt = lastInvitedAt;
+                    String cursorId = overdue.get(overdue.size() - 1);
+                    if (!autoBackfill) {
+                        commitExpiry(eventId, cutoff, overdue, new ArrayList<>(),
+                                hasMore, cursorInvitedAt, cursorId, cb);
                         return;
                     }
+                    db.collection("events").document(eventId)
+                            .collection(LIST_REPLACEMENT_POOL)
+                            .orderBy("addedToPoolAt")
+                            .limit(overdue.size())
+                            .get()
+                            .addOnSuccessListener(poolSnapshot -> {
+                                List<String> candidates = new ArrayList<>();
+                                for (QueryDocumentSnapshot doc : poolSnapshot) {
+                                    candidates.add(doc.getId());
+                                }
+                                commitExpiry(eventId, cutoff, overdue, candidates,
+                                        hasMore, cursorInvitedAt, cursorId, cb);
+                            })
+                            .addOnFailureListener(cb::onError);
+                })
+                .addOnFailureListener(cb::onError);
+    }
 
-                    WriteBatch batch = db.batch();
+    private void commitExpiry(String eventId, long cutoff, List<String> overdue, List<String> candidates,
+                              boolean hasMore, long cursorInvitedAt, String cursorId,
+                              Callback<ExpiryChunk> cb) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        long now = System.currentTimeMillis();
 
-                    // Remove from replacementPool
-                    DocumentReference poolRef = db.collection("events")
-                            .document(eventId)
-                            .collection("replacementPool")
-                            .document(entrantId);
-                    batch.delete(poolRef);
+        db.runTransaction(transaction -> {
+            // All reads come before the writes
+            DocumentSnapshot event = transaction.get(eventRef);
+            List<DocumentSnapshot> winners = new ArrayList<>();
+            List<DocumentSnapshot> invitations = new ArrayList<>();
+            List<DocumentSnapshot> notices = new ArrayList<>();
+            for (String deviceId : overdue) {
+                DocumentSnapshot winner = transaction.get(eventRef.collection(LIST_WINNERS).document(deviceId));
+                Long invitedAt = winner.getLong("invitedAt");
+                if (!winner.exists() || invitedAt == null || invitedAt >= cutoff) {
+                    continue;
+                }
+                winners.add(winner);
+                invitations.add(transaction.get(notificationRef(deviceId,
+                        EntrantDB.notificationId(eventId, STATUS_WINNER, String.valueOf(invitedAt)))));
+                notices.add(transaction.get(notificationRef(deviceId,
+                        EntrantDB.notificationId(eventId, "expired", String.valueOf(invitedAt)))));
+            }
+            List<String> promotable = new ArrayList<>();
+            List<DocumentSnapshot> promotedNotices = new ArrayList<>();
+            for (String candidateId : candidates) {
+                if (promotable.size() == winners.size()) {
+                    break;
+                }
+                if (transaction.get(eventRef.collection(LIST_REPLACEMENT_POOL).document(candidateId)).exists()) {
+                    promotable.add(candidateId);
+                    promotedNotices.add(readWinnerNotification(transaction, eventId, candidateId, now));
+                }
+            }
 
-                    // Add to winners
-                    DocumentReference winnersRef = db.collection("events")
-                            .document(eventId)
-                            .collection("winners")
-                            .document(entrantId);
-                    Map<String, Object> data = new HashMap<>();
-                    data.put("deviceId", entrantId);
-                    data.put("invitedAt", System.currentTimeMillis());
-                    data.put("isReplacement", true); // Mark as replacement for tracking
-                    batch.set(winnersRef, data);
+            for (int i = 0; i < winners.size(); i++) {
+                String deviceId = winners.get(i).getId();
+                transaction.delete(eventRef.collection(LIST_WINNERS).document(deviceId));
+                Map<String, Object> cancelled = new HashMap<>();
+                cancelled.put("deviceId", deviceId);
+                cancelled.put("respondedAt", now);
+                cancelled.put("expired", true);
+                transaction.set(eventRef.collection(LIST_CANCELLED).document(deviceId), cancelled);
+                transaction.set(eventRef.collection(MEMBERSHIP).document(deviceId),
+                        membershipData(deviceId, STATUS_CANCELLED, now), SetOptions.merge());
+                // Closes the invitation so it can no longer be accepted
+                if (invitations.get(i).exists()) {
+                    transaction.update(invitations.get(i).getReference(), responseUpdates("expired", now));
+                }
+                stageNewNotification(transaction, notices.get(i), eventId, EXPIRED_MESSAGE, "expired", now);
+            }
+            for (int i = 0; i < promotable.size(); i++) {
+                stagePromotion(transaction, eventId, promotable.get(i), now, promotedNotices.get(i));
+            }
 
-                    batch.commit()
-                            .addOnSuccessListener(unused -> cb.onSuccess(null))
-                            .addOnFailureListener(cb::onError);
+            Map<String, Long> deltas = new HashMap<>();
+            deltas.put(COUNT_WINNERS, (long) (promotable.size() - winners.size()));
+            deltas.put(COUNT_CANCELLED, (long) winners.size());
+            deltas.put(COUNT_REPLACEMENT_POOL, (long) -promotable.size());
+            stageCounterUpdates(transaction, event, deltas);
+            return new ExpiryChunk(winners.size(), promotable.size(), hasMore, cursorInvitedAt, cursorId);
+        })
+                .addOnSuccessListener(chunk -> {
+                    if (chunk.getExpired() > 0) {
+                        EVENT_CACHE.invalidate(eventId);
+                    }
+                    cb.onSuccess(chunk);
                 })
                 .addOnFailureListener(cb::onError);
     }
 
-    // Moves winner to accepted or cancelled based on enrolled flag
-    public void setEnrolledStatus(String eventId, String deviceId, Boolean enrolled, Callback<Void> cb) {
-        if (eventId == null || eventId.isEmpty() || deviceId == null || deviceId.isEmpty()) {
-            cb.onError(new IllegalArgumentException("eventId or deviceId is empty"));
-            return;
-        }
+    private DocumentReference notificationRef(String deviceId, String notificationId) {
+        return db.collection("entrants").document(deviceId)
+                .collection("notifications").document(notificationId);
+    }
 
-        WriteBatch batch = db.batch();
+    private static Map<String, Object> responseUpdates(String response, long respondedAt) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("read", true);
+        updates.put("response", response);
+        updates.put("respondedAt", respondedAt);
+        return updates;
+    }
+
+    // Stages the winners -> accepted/cancelled move with its membership; returns the counter
+    // deltas for commitCounted
+    private Map<String, Long> stageEnrollment(WriteBatch batch, String eventId, String deviceId,
+                                              boolean enrolled, long respondedAt) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        batch.delete(eventRef.collection(LIST_WINNERS).document(deviceId));
 
-        // Remove from winners
-        DocumentReference winnersRef = db.collection("events")
-                .document(eventId)
-                .collection("winners")
-                .document(deviceId);
-        batch.delete(winnersRef);
-
-        // Add to appropriate list based on enrollment status
-        String targetCollection = enrolled ? "accepted" : "cancelled";
-        DocumentReference targetRef = db.collection("events")
-                .document(eventId)
-                .collection(targetCollection)
-                .document(deviceId);
-        
         Map<String, Object> data = new HashMap<>();
         data.put("deviceId", deviceId);
-        data.put("respondedAt", System.currentTimeMillis());
-        batch.set(targetRef, data);
+        data.put("respondedAt", respondedAt);
+        batch.set(eventRef.collection(enrolled ? LIST_ACCEPTED : LIST_CANCELLED).document(deviceId), data);
+        stageMembership(batch, eventId, deviceId, enrolled ? STATUS_ACCEPTED : STATUS_CANCELLED, respondedAt);
 
-        batch.commit()
-                .addOnSuccessListener(unused -> cb.onSuccess(null))
-                .addOnFailureListener(cb::onError);
+        Map<String, Long> deltas = new HashMap<>();
+        deltas.put(COUNT_WINNERS, -1L);
+        deltas.put(enrolled ? COUNT_ACCEPTED : COUNT_CANCELLED, 1L);
+        return deltas;
     }
 
     public void getWinners(String eventId, Callback<List<Map<String, Object>>> cb) {
@@ -517,21 +2391,568 @@ public class EventDB {
     }
     
     public void getReplacementPoolCount(String eventId, Callback<Integer> cb) {
+        getListCount(eventId, LIST_REPLACEMENT_POOL, cb);
+    }
+
+    /**
+     * Repair job for the denormalized counters: recounts every entrant list with aggregation
+     * queries and overwrites the counter fields on the event document. The recount holds a
+     * lock on the event, so joins and leaves wait it out instead of moving the counters
+     * under it; a draw racing with it is corrected on the next run.
+     *
+     * @param eventId event whose counters should be reconciled
+     * @param cb receives the recounted values keyed by counter field
+     */
+    public void reconcileCounters(String eventId, Callback<Map<String, Integer>> cb) {
         if (eventId == null || eventId.isEmpty()) {
             cb.onError(new IllegalArgumentException("eventId is empty"));
             return;
         }
-        
-        db.collection("events").document(eventId)
-                .collection("replacementPool")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    int count = querySnapshot != null ? querySnapshot.size() : 0;
-                    cb.onSuccess(count);
+        recount(eventId, null, cb);
+    }
+
+    // Takes the recount lock (setting a new shard count with it, if given), then recounts
+    private void recount(String eventId, Integer newShards, Callback<Map<String, Integer>> cb) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        long token = System.currentTimeMillis();
+        db.runTransaction(transaction -> {
+            DocumentSnapshot event = transaction.get(eventRef);
+            if (!event.exists()) {
+                return null;
+            }
+            Map<String, Object> updates = new HashMap<>();
+            if (newShards != null) {
+                updates.put(FIELD_COUNTER_SHARDS, newShards > 0 ? newShards : FieldValue.delete());
+            }
+            if (isRecounting(event)) {
+                return false;
+            }
+            updates.put(FIELD_COUNTER_RECOUNT_AT, token);
+            transaction.update(eventRef, updates);
+            return true;
+        })
+                .addOnSuccessListener(locked -> {
+                    if (locked == null) {
+                        cb.onError(new IllegalStateException("Event not found"));
+                        return;
+                    }
+                    if (!locked) {
+                        cb.onError(new IllegalStateException(COUNTERS_BUSY_MESSAGE));
+                        return;
+                    }
+                    countLists(eventId, new Callback<Map<String, Integer>>() {
+                        @Override
+                        public void onSuccess(Map<String, Integer> counts) {
+                            writeReconciledCounts(eventId, counts, token, cb);
+                        }
+
+                        @Override
+                        public void onError(@NonNull Exception e) {
+                            cb.onError(e);
+                        }
+                    });
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    // Counts every entrant list, keyed by counter field
+    private void countLists(String eventId, Callback<Map<String, Integer>> cb) {
+        Map<String, Integer> counts = new HashMap<>();
+        AtomicInteger remaining = new AtomicInteger(LISTS.length);
+        AtomicBoolean failed = new AtomicBoolean(false);
+
+        for (String list : LISTS) {
+            getListCount(eventId, list, new Callback<Integer>() {
+                @Override
+                public void onSuccess(Integer value) {
+                    synchronized (counts) {
+                        counts.put(counterFieldFor(list), value);
+                    }
+                    if (remaining.decrementAndGet() == 0 && !failed.get()) {
+                        cb.onSuccess(counts);
+                    }
+                }
+
+                @Override
+                public void onError(@NonNull Exception e) {
+                    if (failed.compareAndSet(false, true)) {
+                        cb.onError(e);
+                    }
+                }
+            });
+        }
+    }
+
+    // Overwrites the counters; on a sharded event the waitlist is recounted per shard first
+    private void writeReconciledCounts(String eventId, Map<String, Integer> counts, long token,
+                                       Callback<Map<String, Integer>> cb) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        eventRef.get()
+                .addOnSuccessListener(event -> {
+                    int shards = shardCountOf(event);
+                    if (shards == 0) {
+                        writeCounts(eventId, counts, new long[0], token, cb);
+                        return;
+                    }
+                    countShards(eventId, shards, new Callback<long[]>() {
+                        @Override
+                        public void onSuccess(long[] shardCounts) {
+                            writeCounts(eventId, counts, shardCounts, token, cb);
+                        }
+
+                        @Override
+                        public void onError(@NonNull Exception e) {
+                            cb.onError(e);
+                        }
+                    });
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    // Counts the waitlist docs each shard is responsible for
+    private void countShards(String eventId, int shards, Callback<long[]> cb) {
+        long[] shardCounts = new long[shards];
+        AtomicInteger remaining = new AtomicInteger(shards);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        for (int i = 0; i < shards; i++) {
+            int shard = i;
+            db.collection("events").document(eventId)
+                    .collection(LIST_WAITING)
+                    .whereEqualTo(ShardedCounter.FIELD_SHARD, shard)
+                    .count()
+                    .get(AggregateSource.SERVER)
+                    .addOnSuccessListener(snapshot -> {
+                        synchronized (shardCounts) {
+                            shardCounts[shard] = snapshot.getCount();
+                        }
+                        if (remaining.decrementAndGet() == 0 && !failed.get()) {
+                            cb.onSuccess(shardCounts);
+                        }
+                    })
+                    .addOnFailureListener(e -> {
+                        if (failed.compareAndSet(false, true)) {
+                            cb.onError(e);
+                        }
+                    });
+        }
+    }
+
+    // Writes the recounted counters and shards, with shard limits from the current capacity,
+    // and releases the lock, if this recount still holds it; entrants outside every shard
+    // (joined before sharding, or in a shard since removed) stay in the event's waitlistCount
+    private void writeCounts(String eventId, Map<String, Integer> counts, long[] shardCounts,
+                            long token, Callback<Map<String, Integer>> cb) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        db.runTransaction(transaction -> {
+            DocumentSnapshot event = transaction.get(eventRef);
+            Long held = event.getLong(FIELD_COUNTER_RECOUNT_AT);
+            if (held == null || held != token || shardCountOf(event) != shardCounts.length) {
+                // The lock expired and another recount or shard change took over
+                return false;
+            }
+            long capacity = capacityOf(event);
+            long total = counts.get(COUNT_WAITLIST);
+            long[] limits = shardCounts.length > 0
+                    ? ShardedCounter.limitsFor(capacity, total, shardCounts) : shardCounts;
+
+            long sharded = 0;
+            for (int i = 0; i < shardCounts.length; i++) {
+                Map<String, Object> shard = new HashMap<>();
+                shard.put(ShardedCounter.FIELD_COUNT, shardCounts[i]);
+                shard.put(ShardedCounter.FIELD_LIMIT, limits[i]);
+                shard.put(ShardedCounter.FIELD_CAPACITY, capacity);
+                transaction.set(shardRef(eventId, i), shard);
+                sharded += shardCounts[i];
+            }
+            Map<String, Object> updates = new HashMap<>(counts);
+            updates.put(COUNT_WAITLIST, total - sharded);
+            // Also repairs the card fields of a summary that drifted or was never written
+            Map<String, Object> summary = summaryOf(event);
+            summary.putAll(updates);
+            transaction.set(summaryRef(eventId), summary, SetOptions.merge());
+            updates.put(FIELD_COUNTER_RECOUNT_AT, FieldValue.delete());
+            transaction.update(eventRef, updates);
+            return true;
+        })
+                .addOnSuccessListener(written -> {
+                    if (!written) {
+                        cb.onError(new IllegalStateException(
+                                "Counters changed during the recount; run it again"));
+                        return;
+                    }
+                    EVENT_CACHE.invalidate(eventId);
+                    WAITLIST_TOTAL_CACHE.invalidate(eventId);
+                    cb.onSuccess(counts);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    /**
+     * Sets how many shards count joins for an event, for events that see thousands of
+     * joins at once. Each shard takes about one sustained write per second, so size it to
+     * the expected join rate. The waitlist is recounted into the new shards; 0 goes back to
+     * the single counter field.
+     */
+    public void setCounterShards(String eventId, int shards, Callback<Map<String, Integer>> cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
+            return;
+        }
+        if (shards < 0 || shards > ShardedCounter.MAX_SHARDS) {
+            cb.onError(new IllegalArgumentException(
+                    "shards must be between 0 and " + ShardedCounter.MAX_SHARDS));
+            return;
+        }
+        recount(eventId, shards, cb);
+    }
+
+    // True while a recount holds the lock; a lock left by a recount that died expires
+    private static boolean isRecounting(DocumentSnapshot event) {
+        Long at = event.getLong(FIELD_COUNTER_RECOUNT_AT);
+        return at != null && System.currentTimeMillis() - at < RECOUNT_LOCK_TTL_MS;
+    }
+
+    /**
+     * Waitlist size from the counters: the event's {@code waitlistCount} plus its shards.
+     * Served from a short-lived cache so a busy event list does not reread every shard, and
+     * falls back to counting the waitlist for events without counters.
+     */
+    public void getWaitlistTotal(String eventId, Callback<Integer> cb) {
+        if (eventId == null || eventId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("eventId is empty"));
+            return;
+        }
+        Integer cached = WAITLIST_TOTAL_CACHE.get(eventId);
+        if (cached != null) {
+            cb.onSuccess(cached);
+            return;
+        }
+        readEventDoc(eventId)
+                .addOnSuccessListener(event -> {
+                    Long base = event.getLong(COUNT_WAITLIST);
+                    int shards = shardCountOf(event);
+                    if (base == null) {
+                        getWaitlistCount(eventId, cb);
+                        return;
+                    }
+                    if (shards == 0) {
+                        WAITLIST_TOTAL_CACHE.put(eventId, base.intValue());
+                        cb.onSuccess(base.intValue());
+                        return;
+                    }
+                    CollectionReference shardsRef = event.getReference().collection(ShardedCounter.COLLECTION);
+                    SingleFlight.getInstance().run(shardsRef.getPath(), shardsRef::get)
+                            .addOnSuccessListener(snapshot -> {
+                                long total = base;
+                                for (QueryDocumentSnapshot doc : snapshot) {
+                                    Long count = doc.getLong(ShardedCounter.FIELD_COUNT);
+                                    // Shards left over from a larger shard count are ignored
+                                    if (count != null && isActiveShard(doc.getId(), shards)) {
+                                        total += count;
+                                    }
+                                }
+                                WAITLIST_TOTAL_CACHE.put(eventId, (int) total);
+                                cb.onSuccess((int) total);
+                            })
+                            .addOnFailureListener(cb::onError);
+                })
+                .addOnFailureListener(cb::onError);
+    }
+
+    private static boolean isActiveShard(String docId, int shards) {
+        try {
+            int index = Integer.parseInt(docId);
+            return index >= 0 && index < shards;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // Maps an entrant list name to the counter field that tracks its size
+    private static String counterFieldFor(String list) {
+        switch (list) {
+            case LIST_WAITING:
+                return COUNT_WAITLIST;
+            case LIST_WINNERS:
+                return COUNT_WINNERS;
+            case LIST_ACCEPTED:
+                return COUNT_ACCEPTED;
+            case LIST_CANCELLED:
+                return COUNT_CANCELLED;
+            case LIST_REPLACEMENT_POOL:
+                return COUNT_REPLACEMENT_POOL;
+            default:
+                throw new IllegalArgumentException("Unknown list: " + list);
+        }
+    }
+
+    // Writes the unified membership doc alongside a list move; merge keeps earlier timestamps
+    private void stageMembership(WriteBatch batch, String eventId, String deviceId,
+                                 String status, long timestamp) {
+        batch.set(db.collection("events").document(eventId)
+                .collection(MEMBERSHIP).document(deviceId),
+                membershipData(deviceId, status, timestamp), SetOptions.merge());
+    }
+
+    // Fields merged into a membership doc when the entrant moves to {@code status}
+    private static Map<String, Object> membershipData(String deviceId, String status, long timestamp) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("deviceId", deviceId);
+        data.put("status", status);
+        data.put(timestampFieldFor(status), timestamp);
+        data.put("updatedAt", timestamp);
+        return data;
+    }
+
+    // Maps an entrant list name to the membership status it represents
+    private static String statusForList(String list) {
+        switch (list) {
+            case LIST_WAITING:
+                return STATUS_WAITING;
+            case LIST_WINNERS:
+                return STATUS_WINNER;
+            case LIST_ACCEPTED:
+                return STATUS_ACCEPTED;
+            case LIST_CANCELLED:
+                return STATUS_CANCELLED;
+            case LIST_REPLACEMENT_POOL:
+                return STATUS_REPLACEMENT;
+            default:
+                throw new IllegalArgumentException("Unknown list: " + list);
+        }
+    }
+
+    // Timestamp field recorded on the membership doc when entering a status
+    private static String timestampFieldFor(String status) {
+        switch (status) {
+            case STATUS_WAITING:
+                return "joinedAt";
+            case STATUS_WINNER:
+                return "invitedAt";
+            case STATUS_REPLACEMENT:
+                return "addedToPoolAt";
+            default:
+                return "respondedAt";
+        }
+    }
+
+    // Orders statuses by lifecycle so the migration keeps the most recent one; a cancelled
+    // entrant who rejoined is waiting again
+    private static int statusRank(String status) {
+        if (status == null) {
+            return -1;
+        }
+        switch (status) {
+            case STATUS_CANCELLED:
+                return 0;
+            case STATUS_WAITING:
+                return 1;
+            case STATUS_REPLACEMENT:
+                return 2;
+            case STATUS_WINNER:
+                return 3;
+            case STATUS_ACCEPTED:
+                return 4;
+            default:
+                return -1;
+        }
+    }
+
+    // Transaction form of commitCounted for transactions that read the event. Counters
+    // the event does not have yet are left absent (unknown) rather than started from 0;
+    // reconcileCounters fills them in. The whole summary is rewritten from the event read
+    // here, so a missing summary is created with its card fields rather than as a doc of
+    // counters only; it is never read, so it adds no contention. Shard increments are not
+    // mirrored; cards total those themselves.
+    private void stageCounterUpdates(Transaction transaction, DocumentSnapshot event,
+                                     Map<String, Long> deltas) {
+        Map<String, Long> present = new HashMap<>();
+        Map<String, Object> summary = summaryOf(event);
+        for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+            Long current = event.getLong(delta.getKey());
+            if (current != null && delta.getValue() != 0) {
+                present.put(delta.getKey(), delta.getValue());
+                summary.put(delta.getKey(), current + delta.getValue());
+            }
+        }
+        if (!present.isEmpty()) {
+            transaction.update(event.getReference(), counterUpdates(present));
+            transaction.set(summaryRef(event.getId()), summary, SetOptions.merge());
+        }
+    }
+
+    /**
+     * Commits a batch of list moves together with their counter increments, once the
+     * event's counters are known. When the event's summary is complete the same increments
+     * are merged into it in the batch, so the moves, counters and summary land in one
+     * commit. Only an event whose summary is missing, or lacks its card fields or counters,
+     * has it written from the event by a transaction after the commit.
+     */
+    private void commitCounted(String eventId, WriteBatch batch, Map<String, Long> deltas,
+                               Callback<Void> cb) {
+        // Read alongside the event, so checking the summary adds no round trip
+        Task<DocumentSnapshot> summaryRead = summaryRef(eventId).get();
+        ensureCounters(eventId, new Callback<Void>() {
+            @Override
+            public void onSuccess(Void value) {
+                summaryRead.addOnCompleteListener(task -> {
+                    boolean summaryComplete = task.isSuccessful() && isCompleteSummary(task.getResult());
+                    Map<String, Object> updates = counterUpdates(deltas);
+                    if (!updates.isEmpty()) {
+                        batch.update(db.collection("events").document(eventId), updates);
+                        if (summaryComplete) {
+                            batch.update(summaryRef(eventId), updates);
+                        }
+                    }
+                    batch.commit()
+                            .addOnSuccessListener(unused -> {
+                                EVENT_CACHE.invalidate(eventId);
+                                if (summaryComplete) {
+                                    cb.onSuccess(null);
+                                    return;
+                                }
+                                // The moves are committed; a summary left behind is caught up
+                                // by the next counter write or reconcile
+                                refreshSummary(eventId)
+                                        .addOnSuccessListener(done -> cb.onSuccess(null))
+                                        .addOnFailureListener(e -> {
+                                            android.util.Log.w("EventDB", "Summary not written", e);
+                                            cb.onSuccess(null);
+                                        });
+                            })
+                            .addOnFailureListener(cb::onError);
+                });
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+    }
+
+    // A summary that increments can be merged into: it has its card fields and every counter
+    // True for a summary whose dates were copied before they were normalized to strings
+    private static boolean hasRawDates(DocumentSnapshot summary) {
+        for (String field : SUMMARY_DATE_FIELDS) {
+            Object value = summary.get(field);
+            if (value != null && !(value instanceof String)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCompleteSummary(DocumentSnapshot summary) {
+        if (summary == null || !summary.exists() || summary.get("name") == null) {
+            return false;
+        }
+        for (String field : COUNTER_FIELDS) {
+            if (summary.get(field) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Writes a missing or incomplete summary from the event's card fields and counters
+    private Task<Void> refreshSummary(String eventId) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot event = transaction.get(eventRef);
+            if (event.exists()) {
+                transaction.set(summaryRef(eventId), summaryOf(event), SetOptions.merge());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Runs {@link #reconcileCounters} first when the event is missing any counter, so the
+     * blind increments of a batch never start a counter from 0 under a non-empty list.
+     * Events created by {@link #addEvent} always have them; only older events are recounted.
+     */
+    private void ensureCounters(String eventId, Callback<Void> cb) {
+        readEventDoc(eventId)
+                .addOnSuccessListener(event -> {
+                    for (String field : COUNTER_FIELDS) {
+                        if (event.get(field) == null) {
+                            reconcileCounters(eventId, new Callback<Map<String, Integer>>() {
+                                @Override
+                                public void onSuccess(Map<String, Integer> counts) {
+                                    cb.onSuccess(null);
+                                }
+
+                                @Override
+                                public void onError(@NonNull Exception e) {
+                                    cb.onError(e);
+                                }
+                            });
+                            return;
+                        }
+                    }
+                    cb.onSuccess(null);
                 })
                 .addOnFailureListener(cb::onError);
     }
 
+    private DocumentReference summaryRef(String eventId) {
+        return db.collection(COLLECTION_SUMMARIES).document(eventId);
+    }
+
+    // Card fields of a new or edited event; the counters are left to the list operations
+    private static Map<String, Object> summaryOf(Event event) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("name", event.getName());
+        summary.put("eventDateTime", event.getEventDateTime());
+        summary.put("registrationOpen", event.getRegistrationOpen());
+        summary.put("registrationClose", event.getRegistrationClose());
+        summary.put("open", event.isOpen());
+        summary.put("organizerId", event.getOrganizerId());
+        summary.put("maxCapacity", event.getMaxCapacity());
+        return summary;
+    }
+
+    // Card fields and counters copied from a stored event, with dates in the ISO form
+    // summaryOf(Event) writes; fields it lacks are cleared
+    private static Map<String, Object> summaryOf(DocumentSnapshot event) {
+        Map<String, Object> summary = new HashMap<>();
+        for (String field : SUMMARY_FIELDS) {
+            Object value = event.get(field);
+            summary.put(field, value != null ? value : FieldValue.delete());
+        }
+        for (String field : SUMMARY_DATE_FIELDS) {
+            Object value = event.get(field);
+            if (value != null) {
+                summary.put(field, convertTimestampToString(value));
+            }
+        }
+        for (String field : COUNTER_FIELDS) {
+            Object value = event.get(field);
+            if (value != null) {
+                summary.put(field, value);
+            }
+        }
+        return summary;
+    }
+
+    // Increment updates for the non-zero counter deltas
+    private static Map<String, Object> counterUpdates(Map<String, Long> deltas) {
+        Map<String, Object> updates = new HashMap<>();
+        for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+            if (delta.getValue() != 0) {
+                updates.put(delta.getKey(), FieldValue.increment(delta.getValue()));
+            }
+        }
+        return updates;
+    }
+
+    // Reads an optional counter field, leaving it null for events created before counters
+    private Integer readCounter(DocumentSnapshot doc, String field) {
+        Long value = doc.getLong(field);
+        return value != null ? value.intValue() : null;
+    }
+
     // Helper to parse event from Firestore doc
     private Event parseEventFromDocument(DocumentSnapshot doc) {
         try {
@@ -544,12 +2965,23 @@ public class EventDB {
             event.setOrganizerId(doc.getString("organizerId"));
             event.setQrCode(doc.getString("qrCode"));
             event.setMaxCapacity(doc.get("maxCapacity", Integer.class));
+            event.setAutoBackfill(Boolean.TRUE.equals(doc.getBoolean(FIELD_AUTO_BACKFILL)));
+            Long ttlHours = doc.getLong(FIELD_INVITATION_TTL_HOURS);
+            event.setInvitationTtlHours(ttlHours != null ? ttlHours.intValue() : null);
 
             // Convert Timestamp objects to String (ISO format)
             event.setEventDateTime(convertTimestampToString(doc.get("eventDateTime")));
             event.setRegistrationOpen(convertTimestampToString(doc.get("registrationOpen")));
             event.setRegistrationClose(convertTimestampToString(doc.get("registrationClose")));
 
+            event.setCounterShards(shardCountOf(doc));
+            // On sharded events the field only holds the unsharded part of the waitlist
+            event.setWaitlistCount(event.getCounterShards() > 0 ? null : readCounter(doc, COUNT_WAITLIST));
+            event.setWinnersCount(readCounter(doc, COUNT_WINNERS));
+            event.setAcceptedCount(readCounter(doc, COUNT_ACCEPTED));
+            event.setCancelledCount(readCounter(doc, COUNT_CANCELLED));
+            event.setReplacementPoolCount(readCounter(doc, COUNT_REPLACEMENT_POOL));
+
             return event;
         } catch (Exception e) {
             android.util.Log.e("EventDB", "Failed to parse event from document", e);
@@ -558,7 +2990,7 @@ public class EventDB {
     }
 
     // Converts Firestore Timestamp to ISO string
-    private String convertTimestampToString(Object value) {
+    private static String convertTimestampToString(Object value) {
         if (value == null) {
             return null;
         }
@@ -0,0 +1,234 @@
+/*
+ * Keyed, ordered in-memory copy of the events query that is updated from snapshot
+ * document changes instead of being rebuilt on every snapshot.
+ * Outstanding issues: Must be updated and read from the main thread only.
+ */
+package ca.ualberta.codarc.codarc_events.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.ualberta.codarc.codarc_events.models.Event;
+
+/**
+ * Ordered list of events plus an id index, kept in the same order as the query.
+ *
+ * <p>{@link EventDB#observeEvents(EventListIndex, EventDB.Callback)} feeds it one
+ * change at a time using the old/new indices reported by Firestore. Each change is
+ * reported to the {@link Listener} as a precise insert, update, remove or move so a
+ * RecyclerView adapter only rebinds the rows that actually changed. Modifications whose
+ * document data is identical to the stored copy are ignored.</p>
+ *
+ * <p>When paging, the live query covers the first {@link #getLiveSize()} entries and
+ * older pages are appended behind them with {@link #appendPage}.</p>
+ */
+public class EventListIndex {
+
+    public enum ChangeType { ADDED, MODIFIED, REMOVED }
+
+    /** Receives position-level notifications, typically forwarded to an adapter. */
+    public interface Listener {
+        void onInserted(int position);
+
+        void onChanged(int position);
+
+        void onRemoved(int position);
+
+        void onMoved(int fromPosition, int toPosition);
+
+        /** The whole list was replaced, for example after re-attaching a listener. */
+        void onReset();
+    }
+
+    private final List<Event> ordered = new ArrayList<>();
+    private final List<Event> readOnly = Collections.unmodifiableList(ordered);
+    private final Map<String, Map<String, Object>> dataById = new HashMap<>();
+    private Listener listener;
+    private int liveSize;
+    private int generation;
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Live read-only view of the events in query order. */
+    public List<Event> getEvents() {
+        return readOnly;
+    }
+
+    public int size() {
+        return ordered.size();
+    }
+
+    public boolean contains(String eventId) {
+        return dataById.containsKey(eventId);
+    }
+
+    /** Number of leading entries maintained by the live query. */
+    public int getLiveSize() {
+        return liveSize;
+    }
+
+    // Bumped on every reset so pagers can drop pages fetched against an older list
+    int getGeneration() {
+        return generation;
+    }
+
+    Map<String, Object> getData(String eventId) {
+        return dataById.get(eventId);
+    }
+
+    /**
+     * Replaces the whole list.
+     *
+     * @param events events in query order
+     * @param data raw document data for each event, same order, used to detect no-op updates
+     */
+    public void reset(List<Event> events, List<Map<String, Object>> data) {
+        ordered.clear();
+        dataById.clear();
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            ordered.add(event);
+            dataById.put(event.getId(), data.get(i));
+        }
+        liveSize = ordered.size();
+        generation++;
+        if (listener != null) {
+            listener.onReset();
+        }
+    }
+
+    /**
+     * Appends an older page behind the current entries, skipping events already present.
+     *
+     * @return number of events appended
+     */
+    public int appendPage(List<Event> events, List<Map<String, Object>> data) {
+        int appended = 0;
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            if (event == null || dataById.containsKey(event.getId())) {
+                continue;
+            }
+            ordered.add(event);
+            dataById.put(event.getId(), data.get(i));
+            appended++;
+            if (listener != null) {
+                listener.onInserted(ordered.size() - 1);
+            }
+        }
+        return appended;
+    }
+
+    /**
+     * Applies one document change.
+     *
+     * @return false when the indices do not fit the current list; the caller should
+     *         {@link #reset} from the full snapshot
+     */
+    public boolean apply(ChangeType type, int oldIndex, int newIndex, String eventId,
+                         Event event, Map<String, Object> data) {
+        switch (type) {
+            case ADDED:
+                if (event == null || newIndex < 0 || newIndex > liveSize) {
+                    return false;
+                }
+                if (dataById.containsKey(eventId)) {
+                    // An appended event moved up into the live page
+                    int existing = indexOf(eventId);
+                    if (existing < liveSize) {
+                        return false;
+                    }
+                    ordered.remove(existing);
+                    if (listener != null) {
+                        listener.onRemoved(existing);
+                    }
+                }
+                ordered.add(newIndex, event);
+                dataById.put(eventId, data);
+                liveSize++;
+                if (listener != null) {
+                    listener.onInserted(newIndex);
+                }
+                return true;
+            case MODIFIED:
+                if (event == null || !isAt(oldIndex, eventId)
+                        || newIndex < 0 || newIndex >= liveSize) {
+                    return false;
+                }
+                boolean sameData = data != null && data.equals(dataById.get(eventId));
+                if (oldIndex != newIndex) {
+                    ordered.remove(oldIndex);
+                    ordered.add(newIndex, event);
+                    dataById.put(eventId, data);
+                    if (listener != null) {
+                        listener.onMoved(oldIndex, newIndex);
+                        if (!sameData) {
+                            listener.onChanged(newIndex);
+                        }
+                    }
+                    return true;
+                }
+                if (sameData) {
+                    return true;
+                }
+                ordered.set(newIndex, event);
+                dataById.put(eventId, data);
+                if (listener != null) {
+                    listener.onChanged(newIndex);
+                }
+                return true;
+            case REMOVED:
+                if (!isAt(oldIndex, eventId)) {
+                    return false;
+                }
+                ordered.remove(oldIndex);
+                dataById.remove(eventId);
+                liveSize--;
+                if (listener != null) {
+                    listener.onRemoved(oldIndex);
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Hands a live entry that the limited live query dropped, because newer events filled
+     * the page, to the appended entries: it becomes the first of them instead of being
+     * removed, since older pages were fetched after it.
+     *
+     * @return false when the index does not fit the current list
+     */
+    public boolean pushOutOfLivePage(int oldIndex, String eventId) {
+        if (!isAt(oldIndex, eventId)) {
+            return false;
+        }
+        int boundary = liveSize - 1;
+        ordered.add(boundary, ordered.remove(oldIndex));
+        liveSize--;
+        if (listener != null && oldIndex != boundary) {
+            listener.onMoved(oldIndex, boundary);
+        }
+        return true;
+    }
+
+    private boolean isAt(int index, String eventId) {
+        return index >= 0 && index < liveSize
+                && eventId != null && eventId.equals(ordered.get(index).getId());
+    }
+
+    private int indexOf(String eventId) {
+        for (int i = 0; i < ordered.size(); i++) {
+            if (eventId.equals(ordered.get(i).getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
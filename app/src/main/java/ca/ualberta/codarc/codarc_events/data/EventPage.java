@@ -0,0 +1,54 @@
+/*
+ * One page of events fetched after a cursor, used by the paged event browser.
+ * Outstanding issues: None.
+ */
+package ca.ualberta.codarc.codarc_events.data;
+
+import java.util.List;
+import java.util.Map;
+
+import ca.ualberta.codarc.codarc_events.models.Event;
+
+/**
+ * Result of {@link EventDB#getEventsPage}: the decoded events, their raw document
+ * data, and the cursor they were fetched after.
+ */
+public class EventPage {
+
+    private final List<Event> events;
+    private final List<Map<String, Object>> data;
+    private final String afterId;
+    private final int generation;
+    private final boolean hasMore;
+
+    EventPage(List<Event> events, List<Map<String, Object>> data, String afterId,
+              int generation, boolean hasMore) {
+        this.events = events;
+        this.data = data;
+        this.afterId = afterId;
+        this.generation = generation;
+        this.hasMore = hasMore;
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    List<Map<String, Object>> getData() {
+        return data;
+    }
+
+    /** Id of the event this page starts after. */
+    public String getAfterId() {
+        return afterId;
+    }
+
+    int getGeneration() {
+        return generation;
+    }
+
+    /** False once the query returned fewer events than requested. */
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
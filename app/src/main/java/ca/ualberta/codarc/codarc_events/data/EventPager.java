@@ -0,0 +1,137 @@
+/*
+ * Loads older pages of the date-ordered event list behind the live first page and keeps
+ * the following page prefetched so scrolling rarely waits on the network.
+ * Outstanding issues: An appended event that is edited keeps its old card until the list
+ * is reloaded.
+ */
+package ca.ualberta.codarc.codarc_events.data;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+import ca.ualberta.codarc.codarc_events.models.Event;
+
+/**
+ * Appends pages to an {@link EventListIndex} on demand.
+ *
+ * <p>{@link #loadMore()} shows the prefetched page immediately when one is ready and
+ * then prefetches the next one in the background. Prefetched pages are dropped when the
+ * index was reset or its last entry changed since they were requested.</p>
+ */
+public class EventPager {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    private final EventDB eventDB;
+    private final EventListIndex index;
+    private final int pageSize;
+    private EventPage prefetched;
+    private boolean loading;
+    private boolean showWhenLoaded;
+    private boolean endReached;
+    private int generation = -1;
+
+    public EventPager(EventDB eventDB, EventListIndex index, int pageSize) {
+        this.eventDB = eventDB;
+        this.index = index;
+        this.pageSize = pageSize;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean isEndReached() {
+        syncGeneration();
+        return endReached;
+    }
+
+    /**
+     * Appends the next page, using the prefetched one when it is still valid.
+     * Calls while a fetch is in flight show that page as soon as it arrives.
+     */
+    public void loadMore() {
+        syncGeneration();
+        if (endReached || index.size() == 0) {
+            return;
+        }
+        if (prefetched != null && isCurrent(prefetched)) {
+            show(prefetched);
+            prefetched = null;
+            prefetch();
+            return;
+        }
+        prefetched = null;
+        showWhenLoaded = true;
+        fetch();
+    }
+
+    /** Fetches the page after the current last entry without showing it. */
+    public void prefetch() {
+        syncGeneration();
+        if (endReached || prefetched != null || index.size() == 0) {
+            return;
+        }
+        fetch();
+    }
+
+    private void fetch() {
+        if (loading) {
+            return;
+        }
+        loading = true;
+        eventDB.getEventsPage(index, pageSize, new EventDB.Callback<EventPage>() {
+            @Override
+            public void onSuccess(EventPage page) {
+                loading = false;
+                if (!isCurrent(page)) {
+                    if (showWhenLoaded) {
+                        fetch();
+                    }
+                    return;
+                }
+                if (showWhenLoaded) {
+                    showWhenLoaded = false;
+                    show(page);
+                    prefetch();
+                } else {
+                    prefetched = page;
+                    if (!page.hasMore() && page.getEvents().isEmpty()) {
+                        endReached = true;
+                    }
+                }
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                loading = false;
+                showWhenLoaded = false;
+                android.util.Log.e("EventPager", "Failed to load events page", e);
+            }
+        });
+    }
+
+    private void show(EventPage page) {
+        index.appendPage(page.getEvents(), page.getData());
+        if (!page.hasMore()) {
+            endReached = true;
+        }
+    }
+
+    // A page is only valid while it still continues from the index's last entry
+    private boolean isCurrent(EventPage page) {
+        List<Event> events = index.getEvents();
+        return page.getGeneration() == index.getGeneration()
+                && !events.isEmpty()
+                && page.getAfterId().equals(events.get(events.size() - 1).getId());
+    }
+
+    private void syncGeneration() {
+        if (generation != index.getGeneration()) {
+            generation = index.getGeneration();
+            prefetched = null;
+            endReached = index.getLiveSize() < pageSize;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * One chunk of expired invitations processed by the invitation expiry sweep, carrying the
+ * cursor for the next chunk.
+ * Outstanding issues: None currently identified.
+ */
+package ca.ualberta.codarc.codarc_events.data;
+
+/**
+ * Result of {@link EventDB#expireInvitationChunk}. Pass it back as {@code previous} to
+ * continue the sweep after the last invitation this chunk looked at.
+ */
+public class ExpiryChunk {
+
+    private final int expired;
+    private final int backfilled;
+    private final boolean hasMore;
+    private final long lastInvitedAt;
+    private final String lastId;
+
+    ExpiryChunk(int expired, int backfilled, boolean hasMore, long lastInvitedAt, String lastId) {
+        this.expired = expired;
+        this.backfilled = backfilled;
+        this.hasMore = hasMore;
+        this.lastInvitedAt = lastInvitedAt;
+        this.lastId = lastId;
+    }
+
+    /** Winners moved to cancelled by this chunk. */
+    public int getExpired() {
+        return expired;
+    }
+
+    /** Replacement pool members promoted into the freed seats. */
+    public int getBackfilled() {
+        return backfilled;
+    }
+
+    /** True when the chunk was full, so more overdue invitations may follow. */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    long getLastInvitedAt() {
+        return lastInvitedAt;
+    }
+
+    String getLastId() {
+        return lastId;
+    }
+}
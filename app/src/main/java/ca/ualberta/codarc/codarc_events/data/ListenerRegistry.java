@@ -0,0 +1,233 @@
+/*
+ * Shares Firestore snapshot listeners between screens and ties them to Android lifecycles
+ * so that listeners are detached while no observer is visible.
+ * Outstanding issues: Must be used from the main thread only.
+ */
+package ca.ualberta.codarc.codarc_events.data;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reference-counted registry of live snapshot listeners.
+ *
+ * <p>Observers register under a key that names the query and all of its parameters, for
+ * example {@link EventDB#firstEventPageKey(int)}. The first started observer attaches the
+ * underlying Firestore listener; later observers of the same key share it and immediately
+ * receive the last delivered value. When every observer of a key is stopped the Firestore
+ * listener is removed, and it is attached again when one of them starts. Observers are
+ * dropped automatically on destroy.</p>
+ *
+ * <p>Since every observer of a key receives the same values, a source must deliver whole
+ * results that do not depend on who registered it, such as an event list or a
+ * {@code QuerySnapshot}, and must not write into state of a screen. Observers keep their
+ * own state and must not modify the values.</p>
+ */
+public class ListenerRegistry {
+
+    /**
+     * Opens a snapshot listener, for example {@code eventDB::getAllEvents}.
+     *
+     * @param <T> value type delivered by the listener
+     */
+    public interface Source<T> {
+        ListenerRegistration listen(EventDB.Callback<T> cb);
+    }
+
+    /**
+     * Receives the values of a shared listener.
+     *
+     * @param <T> value type delivered by the listener
+     */
+    public interface Observer<T> {
+        /**
+         * @param restarted true for the first value after the observer starts, which may be
+         *                  a replay of the last value; an observer that applies the changes
+         *                  in each value to its own state rebuilds that state from this one,
+         *                  since it missed the values delivered while it was stopped
+         */
+        void onValue(T value, boolean restarted);
+
+        void onError(@NonNull Exception e);
+    }
+
+    private static final ListenerRegistry INSTANCE = new ListenerRegistry();
+
+    private final Map<String, SharedListener<?>> listeners = new HashMap<>();
+
+    public static ListenerRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Observes a shared query for as long as the owner is started.
+     *
+     * @param owner lifecycle that controls when the observer is active
+     * @param key identifies the query and its parameters; observers with the same key share
+     *            one listener, so a key must always be used with the same source
+     * @param source opens the Firestore listener when the first observer starts
+     * @param observer receives values and errors while the owner is started
+     * @return handle that unsubscribes before the owner is destroyed
+     */
+    public <T> ListenerRegistration observe(@NonNull LifecycleOwner owner,
+                                            @NonNull String key,
+                                            @NonNull Source<T> source,
+                                            @NonNull Observer<T> observer) {
+        SharedListener<T> shared = sharedFor(key, source);
+        Subscription<T> subscription = new Subscription<>(shared, observer);
+        shared.subscriptions.add(subscription);
+        // addObserver replays onStart when the owner is already started
+        owner.getLifecycle().addObserver(subscription);
+        return () -> {
+            owner.getLifecycle().removeObserver(subscription);
+            subscription.dispose();
+        };
+    }
+
+    /** Number of keys that currently have a Firestore listener attached. */
+    public int getAttachedCount() {
+        int attached = 0;
+        for (SharedListener<?> shared : listeners.values()) {
+            if (shared.registration != null) {
+                attached++;
+            }
+        }
+        return attached;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> SharedListener<T> sharedFor(String key, Source<T> source) {
+        SharedListener<T> shared = (SharedListener<T>) listeners.get(key);
+        if (shared == null) {
+            shared = new SharedListener<>(key, source);
+            listeners.put(key, shared);
+        }
+        return shared;
+    }
+
+    private class SharedListener<T> {
+        final String key;
+        final Source<T> source;
+        final List<Subscription<T>> subscriptions = new ArrayList<>();
+        ListenerRegistration registration;
+        int activeCount;
+        boolean hasValue;
+        T lastValue;
+
+        SharedListener(String key, Source<T> source) {
+            this.key = key;
+            this.source = source;
+        }
+
+        void activate(Subscription<T> subscription) {
+            activeCount++;
+            if (registration == null) {
+                registration = source.listen(new EventDB.Callback<T>() {
+                    @Override
+                    public void onSuccess(T value) {
+                        lastValue = value;
+                        hasValue = true;
+                        for (Subscription<T> s : new ArrayList<>(subscriptions)) {
+                            if (s.active) {
+                                s.deliver(value);
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onError(@NonNull Exception e) {
+                        for (Subscription<T> s : new ArrayList<>(subscriptions)) {
+                            if (s.active) {
+                                s.observer.onError(e);
+                            }
+                        }
+                    }
+                });
+            } else if (hasValue) {
+                subscription.deliver(lastValue);
+            }
+        }
+
+        void deactivate() {
+            activeCount--;
+            if (activeCount == 0 && registration != null) {
+                registration.remove();
+                registration = null;
+                // The cached value goes stale once detached; the next attach delivers fresh data
+                hasValue = false;
+                lastValue = null;
+            }
+        }
+
+        void remove(Subscription<T> subscription) {
+            subscriptions.remove(subscription);
+            if (subscriptions.isEmpty()) {
+                listeners.remove(key);
+            }
+        }
+    }
+
+    private class Subscription<T> implements DefaultLifecycleObserver {
+        final SharedListener<T> shared;
+        final Observer<T> observer;
+        boolean active;
+        boolean restarted;
+        boolean disposed;
+
+        Subscription(SharedListener<T> shared, Observer<T> observer) {
+            this.shared = shared;
+            this.observer = observer;
+        }
+
+        void deliver(T value) {
+            boolean first = restarted;
+            restarted = false;
+            observer.onValue(value, first);
+        }
+
+        @Override
+        public void onStart(@NonNull LifecycleOwner owner) {
+            if (disposed || active) {
+                return;
+            }
+            active = true;
+            restarted = true;
+            shared.activate(this);
+        }
+
+        @Override
+        public void onStop(@NonNull LifecycleOwner owner) {
+            if (!active) {
+                return;
+            }
+            active = false;
+            shared.deactivate();
+        }
+
+        @Override
+        public void onDestroy(@NonNull LifecycleOwner owner) {
+            owner.getLifecycle().removeObserver(this);
+            dispose();
+        }
+
+        void dispose() {
+            if (disposed) {
+                return;
+            }
+            if (active) {
+                active = false;
+                shared.deactivate();
+            }
+            disposed = true;
+            shared.remove(this);
+        }
+    }
+}
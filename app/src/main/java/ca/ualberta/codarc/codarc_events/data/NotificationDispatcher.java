@@ -0,0 +1,235 @@
+/*
+ * Fans a notification out to many entrants with chunked transactions, bounded
+ * concurrency, retries and a single result object.
+ * Outstanding issues: Progress is kept in memory only; a dispatch interrupted by process
+ * death has to be started again (re-sending is safe because document ids are fixed).
+ */
+package ca.ualberta.codarc.codarc_events.data;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes one notification per recipient into {@code entrants/{id}/notifications}.
+ *
+ * <p>Recipients are packed into batches of up to {@link #MAX_BATCH_OPS} writes and at
+ * most {@code maxConcurrentBatches} commits are in flight. Every recipient's document id
+ * is {@link EntrantDB#notificationId(String, String, String)}, and each batch is a
+ * transaction that only creates the documents that do not exist yet, like
+ * {@link EntrantDB#addNotification(String, String, String, String, String, EntrantDB.Callback)}.
+ * A retried batch or a repeated dispatch therefore neither duplicates a notification nor
+ * rewrites one the entrant has already seen.</p>
+ *
+ * <p>A failing batch is retried with backoff. Once its attempts are used up it is split
+ * in half and each half is tried again, so a single bad recipient ends up reported on its
+ * own instead of failing everyone in its batch. All callbacks run on the main thread.</p>
+ */
+public class NotificationDispatcher {
+
+    /** Firestore's per-batch write limit. */
+    public static final int MAX_BATCH_OPS = 500;
+    public static final int DEFAULT_MAX_CONCURRENT_BATCHES = 4;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final long BASE_BACKOFF_MS = 500;
+
+    /** Produces the message for one recipient. */
+    public interface MessageTemplate {
+        String messageFor(String deviceId);
+    }
+
+    public interface Listener {
+        /** Called after every batch settles. */
+        void onProgress(int delivered, int failed, int total);
+
+        void onComplete(DispatchResult result);
+    }
+
+    private final FirebaseFirestore db;
+    private final int batchSize;
+    private final int maxConcurrentBatches;
+    private final int maxAttempts;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    public NotificationDispatcher() {
+        this(MAX_BATCH_OPS, DEFAULT_MAX_CONCURRENT_BATCHES, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public NotificationDispatcher(int batchSize, int maxConcurrentBatches, int maxAttempts) {
+        if (batchSize <= 0 || batchSize > MAX_BATCH_OPS) {
+            throw new IllegalArgumentException("batchSize must be between 1 and " + MAX_BATCH_OPS);
+        }
+        if (maxConcurrentBatches <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxConcurrentBatches and maxAttempts must be > 0");
+        }
+        this.db = FirebaseFirestore.getInstance();
+        this.batchSize = batchSize;
+        this.maxConcurrentBatches = maxConcurrentBatches;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /** Sends the same message to every recipient. */
+    public void dispatch(List<String> recipientIds, String eventId, String category,
+                         String round, String message, Listener listener) {
+        dispatch(recipientIds, eventId, category, round, deviceId -> message, listener);
+    }
+
+    /**
+     * Sends one notification per recipient.
+     *
+     * @param recipientIds device ids; duplicates and empty ids are dropped
+     * @param round identifies this send in the notification id, e.g. the draw time
+     */
+    public void dispatch(List<String> recipientIds, String eventId, String category,
+                         String round, MessageTemplate template, Listener listener) {
+        List<String> recipients = new ArrayList<>();
+        if (recipientIds != null) {
+            for (String id : new LinkedHashSet<>(recipientIds)) {
+                if (id != null && !id.isEmpty()) {
+                    recipients.add(id);
+                }
+            }
+        }
+        new Run(recipients, eventId, category, round, template, listener).start();
+    }
+
+    private static class Job {
+        final List<String> recipients;
+        final int attempt;
+
+        Job(List<String> recipients, int attempt) {
+            this.recipients = recipients;
+            this.attempt = attempt;
+        }
+    }
+
+    // State of one dispatch; only touched from the main thread
+    private class Run {
+        final List<String> recipients;
+        final String eventId;
+        final String category;
+        final String notificationId;
+        final MessageTemplate template;
+        final Listener listener;
+        final Deque<Job> queue = new ArrayDeque<>();
+        final Map<String, Exception> failures = new LinkedHashMap<>();
+        final long startedAt = System.currentTimeMillis();
+        int inFlight;
+        int delivered;
+        int batchesCommitted;
+        int retries;
+        int pendingRetries;
+        boolean finished;
+
+        Run(List<String> recipients, String eventId, String category, String round,
+            MessageTemplate template, Listener listener) {
+            this.recipients = recipients;
+            this.eventId = eventId;
+            this.category = category;
+            this.notificationId = EntrantDB.notificationId(eventId, category, round);
+            this.template = template;
+            this.listener = listener;
+        }
+
+        void start() {
+            for (int i = 0; i < recipients.size(); i += batchSize) {
+                queue.add(new Job(recipients.subList(i, Math.min(i + batchSize, recipients.size())), 1));
+            }
+            pump();
+        }
+
+        void pump() {
+            while (inFlight < maxConcurrentBatches && !queue.isEmpty()) {
+                commit(queue.poll());
+            }
+            if (inFlight == 0 && queue.isEmpty() && pendingRetries == 0 && !finished) {
+                finished = true;
+                listener.onComplete(new DispatchResult(recipients.size(), delivered, failures,
+                        batchesCommitted, retries, System.currentTimeMillis() - startedAt));
+            }
+        }
+
+        void commit(Job job) {
+            inFlight++;
+            List<DocumentReference> refs = new ArrayList<>();
+            List<Map<String, Object>> notifications = new ArrayList<>();
+            for (String deviceId : job.recipients) {
+                refs.add(db.collection("entrants").document(deviceId)
+                        .collection("notifications").document(notificationId));
+                Map<String, Object> data = new HashMap<>();
+                data.put("eventId", eventId);
+                data.put("message", template.messageFor(deviceId));
+                data.put("category", category);
+                // Fixed per dispatch so a retried batch writes identical documents
+                data.put("createdAt", startedAt);
+                data.put("read", false);
+                notifications.add(data);
+            }
+            db.runTransaction(transaction -> {
+                // All reads come before the writes
+                List<Boolean> exists = new ArrayList<>();
+                for (DocumentReference ref : refs) {
+                    exists.add(transaction.get(ref).exists());
+                }
+                for (int i = 0; i < refs.size(); i++) {
+                    if (!exists.get(i)) {
+                        transaction.set(refs.get(i), notifications.get(i));
+                    }
+                }
+                return null;
+            })
+                    .addOnSuccessListener(unused -> {
+                        inFlight--;
+                        batchesCommitted++;
+                        delivered += job.recipients.size();
+                        reportProgress();
+                        pump();
+                    })
+                    .addOnFailureListener(e -> {
+                        inFlight--;
+                        onBatchFailed(job, e);
+                        pump();
+                    });
+        }
+
+        void onBatchFailed(Job job, Exception e) {
+            if (job.attempt < maxAttempts) {
+                retries++;
+                pendingRetries++;
+                long delay = BASE_BACKOFF_MS << (job.attempt - 1);
+                handler.postDelayed(() -> {
+                    pendingRetries--;
+                    queue.add(new Job(job.recipients, job.attempt + 1));
+                    pump();
+                }, delay);
+                return;
+            }
+            if (job.recipients.size() > 1) {
+                // Isolate the failing recipients: each half gets one more try, then splits again
+                int mid = job.recipients.size() / 2;
+                queue.addFirst(new Job(job.recipients.subList(mid, job.recipients.size()), maxAttempts));
+                queue.addFirst(new Job(job.recipients.subList(0, mid), maxAttempts));
+                return;
+            }
+            String deviceId = job.recipients.get(0);
+            android.util.Log.e("NotificationDispatcher", "Failed to notify " + deviceId, e);
+            failures.put(deviceId, e);
+            reportProgress();
+        }
+
+        void reportProgress() {
+            listener.onProgress(delivered, failures.size(), recipients.size());
+        }
+    }
+}
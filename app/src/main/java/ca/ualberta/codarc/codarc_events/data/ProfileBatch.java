@@ -0,0 +1,77 @@
+/*
+ * Result of a batched entrant-profile lookup used by the organizer list screens.
+ * Outstanding issues: None.
+ */
+package ca.ualberta.codarc.codarc_events.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.ualberta.codarc.codarc_events.models.Entrant;
+
+/**
+ * Profiles returned by {@link EntrantDB#getProfiles}, in the order the ids were requested.
+ * Ids without a profile document and ids whose query failed are listed separately so
+ * callers can tell "no profile" apart from "could not load".
+ */
+public class ProfileBatch {
+
+    private final List<String> requestedIds;
+    private final Map<String, Entrant> profiles;
+    private final List<String> missingIds;
+    private final List<String> failedIds;
+
+    ProfileBatch(List<String> requestedIds, Map<String, Entrant> profiles,
+                 List<String> missingIds, List<String> failedIds) {
+        this.requestedIds = Collections.unmodifiableList(new ArrayList<>(requestedIds));
+        this.profiles = new HashMap<>(profiles);
+        this.missingIds = Collections.unmodifiableList(new ArrayList<>(missingIds));
+        this.failedIds = Collections.unmodifiableList(new ArrayList<>(failedIds));
+    }
+
+    /** A batch with no profiles, for callers that fall back to device ids. */
+    public static ProfileBatch empty() {
+        List<String> none = Collections.emptyList();
+        return new ProfileBatch(none, Collections.emptyMap(), none, none);
+    }
+
+    public List<String> getRequestedIds() {
+        return requestedIds;
+    }
+
+    /** Profile for the id, or null when it is missing or failed to load. */
+    public Entrant get(String deviceId) {
+        return profiles.get(deviceId);
+    }
+
+    /** Profiles aligned with {@link #getRequestedIds()}; entries are null where absent. */
+    public List<Entrant> getProfilesInOrder() {
+        List<Entrant> ordered = new ArrayList<>(requestedIds.size());
+        for (String id : requestedIds) {
+            ordered.add(profiles.get(id));
+        }
+        return ordered;
+    }
+
+    /** Ids that have no entrant document. */
+    public List<String> getMissingIds() {
+        return missingIds;
+    }
+
+    /** Ids whose chunk query failed. */
+    public List<String> getFailedIds() {
+        return failedIds;
+    }
+
+    /** The entrant's name, falling back to the device id when there is none. */
+    public String getDisplayName(String deviceId) {
+        Entrant entrant = profiles.get(deviceId);
+        if (entrant != null && entrant.getName() != null && !entrant.getName().isEmpty()) {
+            return entrant.getName();
+        }
+        return deviceId;
+    }
+}
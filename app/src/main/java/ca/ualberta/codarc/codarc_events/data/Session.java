@@ -0,0 +1,150 @@
+/*
+ * Application-wide session holding the device identity, the user's roles and the
+ * entrant's registration and ban status, loaded once and served without a round trip.
+ * Outstanding issues: Role flags are only refreshed when a screen that changes them calls
+ * reloadUser; only the entrant doc has a live listener.
+ */
+package ca.ualberta.codarc.codarc_events.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import ca.ualberta.codarc.codarc_events.models.Entrant;
+import ca.ualberta.codarc.codarc_events.models.User;
+import ca.ualberta.codarc.codarc_events.utils.Deferred;
+import ca.ualberta.codarc.codarc_events.utils.Identity;
+
+/**
+ * Process-wide session started from the launcher.
+ *
+ * <p>{@link #start(Context)} reads the device id on a background thread, loads (or creates)
+ * the user document and attaches one snapshot listener to the entrant document, which keeps
+ * registration and ban status current for as long as the process lives. Getters answer
+ * from memory; until the first entrant snapshot arrives {@link #isRegistered()} returns
+ * null and callers fall back to a read of their own.</p>
+ */
+public class Session {
+
+    private static final String TAG = "Session";
+
+    private static Session instance;
+
+    private final Context appContext;
+    private final Deferred<User> userLoad = new Deferred<>();
+    private String deviceId;
+    private volatile User user;
+    private volatile Boolean registered;
+    private volatile boolean banned;
+
+    private Session(Context appContext) {
+        this.appContext = appContext;
+    }
+
+    /**
+     * Starts the session on first call and returns it; later calls return the same one.
+     */
+    public static synchronized Session start(@NonNull Context context) {
+        if (instance == null) {
+            instance = new Session(context.getApplicationContext());
+            Thread loader = new Thread(instance::load, "session-load");
+            loader.setDaemon(true);
+            loader.start();
+        }
+        return instance;
+    }
+
+    /** Same as {@link #start(Context)}, for screens that may open before the launcher. */
+    public static Session get(@NonNull Context context) {
+        return start(context);
+    }
+
+    /** @return the started session, or null if {@link #start(Context)} has not run. */
+    public static synchronized Session getInstance() {
+        return instance;
+    }
+
+    /**
+     * Stable device id; read from preferences once, synchronously if it is asked for before
+     * the background load got to it.
+     */
+    public synchronized String getDeviceId() {
+        if (deviceId == null) {
+            deviceId = Identity.getOrCreateDeviceId(appContext);
+        }
+        return deviceId;
+    }
+
+    /** Completes once the user document has been loaded or created. */
+    public Deferred<User> userLoad() {
+        return userLoad;
+    }
+
+    /** @return true once the entrant has registered a profile, or null if not known yet. */
+    public Boolean isRegistered() {
+        return registered;
+    }
+
+    /** @return true if the entrant has been banned; false until known. */
+    public boolean isBanned() {
+        return banned;
+    }
+
+    public boolean isOrganizer() {
+        User current = user;
+        return current != null && current.isOrganizer();
+    }
+
+    public boolean isAdmin() {
+        User current = user;
+        return current != null && current.isAdmin();
+    }
+
+    /** Re-reads the user document after a screen changed the role flags. */
+    public void reloadUser() {
+        new UserDB().loadOrCreateUser(getDeviceId(), new UserDB.Callback<User>() {
+            @Override
+            public void onSuccess(User value) {
+                user = value;
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                Log.w(TAG, "Failed to reload user", e);
+            }
+        });
+    }
+
+    private void load() {
+        String id = getDeviceId();
+        new UserDB().loadOrCreateUser(id, new UserDB.Callback<User>() {
+            @Override
+            public void onSuccess(User value) {
+                user = value;
+                userLoad.complete(value);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                Log.e(TAG, "Failed to load user", e);
+                userLoad.fail(e);
+            }
+        });
+        // Lives as long as the process, like the session itself
+        new EntrantDB().listenToEntrant(id, new EntrantDB.Callback<Entrant>() {
+            @Override
+            public void onSuccess(Entrant entrant) {
+                registered = entrant != null && entrant.getIsRegistered();
+                banned = entrant != null && entrant.isBanned();
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                // Unknown again, so callers go back to reading the profile themselves
+                Log.w(TAG, "Entrant listener failed", e);
+                registered = null;
+            }
+        });
+    }
+}
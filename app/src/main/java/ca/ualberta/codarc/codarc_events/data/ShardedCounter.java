@@ -0,0 +1,116 @@
+/*
+ * Layout and capacity rules for the sharded waitlist counter, which spreads join
+ * increments over shard documents so a popular event's document is not written on every
+ * join.
+ * Outstanding issues: Room freed by a draw or by leaves on one shard is only spread back
+ * over the other shards by the next counter reconcile.
+ */
+package ca.ualberta.codarc.codarc_events.data;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Shards live at {@code events/{id}/counterShards/{index}} with a {@code count}, a
+ * {@code limit} and the {@code capacity} the limits were computed for. The waitlist size is
+ * the event's {@code waitlistCount} (entrants outside every shard) plus the count of
+ * every shard below the event's {@code counterShards}.
+ *
+ * <p>Each shard owns a slice of the remaining capacity, so a join only needs to read and
+ * write one shard to stay under {@code maxCapacity} exactly. A join starts at a random
+ * shard and moves on to the next one when its slice is used up. Leaving the waitlist or
+ * being drawn gives the seat back to the shard recorded in {@code shard} on the waitlist
+ * doc.</p>
+ *
+ * <p>Only a reconcile rewrites the shards. It holds {@code counterRecountAt} on the event
+ * while it counts, and joins and leaves on the event back off until it is released.</p>
+ */
+public final class ShardedCounter {
+
+    /** Subcollection holding the shard documents. */
+    public static final String COLLECTION = "counterShards";
+
+    public static final String FIELD_COUNT = "count";
+    public static final String FIELD_LIMIT = "limit";
+    public static final String FIELD_CAPACITY = "capacity";
+
+    /** Field on a waitlist doc recording the shard its join was counted in. */
+    public static final String FIELD_SHARD = "shard";
+
+    /** Upper bound on shards per event; each one costs a read when recounting. */
+    public static final int MAX_SHARDS = 50;
+
+    /** Limit stored on shards of an event without a capacity. */
+    public static final long UNLIMITED = -1L;
+
+    /** {@link #chooseShard} result when every shard is full. */
+    public static final int NO_ROOM = -1;
+    /** {@link #chooseShard} result when a shard is missing or its limits are out of date. */
+    public static final int STALE = -2;
+
+    /**
+     * Reads one shard for a join, e.g. inside the join transaction.
+     *
+     * @param <E> exception the read may throw
+     */
+    public interface ShardReader<E extends Exception> {
+        /**
+         * @return the shard's {@code {count, limit}}, or null when it is missing or its
+         *         limits were spread for another capacity
+         */
+        long[] read(int shard) throws E;
+    }
+
+    private ShardedCounter() { }
+
+    /**
+     * Picks the shard a join is counted in: the first one with room, starting from a random
+     * shard and moving on to the next one when a slice is used up.
+     *
+     * @param random source of the starting shard
+     * @return the shard, {@link #NO_ROOM} or {@link #STALE}
+     */
+    public static <E extends Exception> int chooseShard(int shards, Random random,
+                                                        ShardReader<E> reader) throws E {
+        int shard = random.nextInt(shards);
+        for (int tried = 0; tried < shards; tried++) {
+            long[] state = reader.read(shard);
+            if (state == null) {
+                return STALE;
+            }
+            if (hasRoom(state[0], state[1])) {
+                return shard;
+            }
+            shard = (shard + 1) % shards;
+        }
+        return NO_ROOM;
+    }
+
+    public static boolean hasRoom(long count, long limit) {
+        return limit == UNLIMITED || count < limit;
+    }
+
+    /**
+     * Spreads the room left under {@code capacity} over the shards. Each shard keeps what it
+     * already counts plus an even share of the room, and the first shards take the
+     * remainder, so the limits always add up to {@code capacity - total + sum(counts)}.
+     *
+     * @param capacity event capacity, or 0 or less for no limit
+     * @param total current waitlist size, including entrants not counted in any shard
+     * @param counts current count of each shard
+     */
+    public static long[] limitsFor(long capacity, long total, long[] counts) {
+        long[] limits = new long[counts.length];
+        if (capacity <= 0) {
+            Arrays.fill(limits, UNLIMITED);
+            return limits;
+        }
+        long room = Math.max(0, capacity - total);
+        long share = room / counts.length;
+        long extra = room % counts.length;
+        for (int i = 0; i < counts.length; i++) {
+            limits[i] = counts[i] + share + (i < extra ? 1 : 0);
+        }
+        return limits;
+    }
+}
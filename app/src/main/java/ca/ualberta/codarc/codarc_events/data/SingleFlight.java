@@ -0,0 +1,88 @@
+/*
+ * Coalesces identical Firestore reads that are in flight at the same time, so screens and
+ * adapters asking for the same document at once share one request.
+ * Outstanding issues: A caller joining a read that is about to finish gets data as old as
+ * the moment the first caller asked.
+ */
+package ca.ualberta.codarc.codarc_events.data;
+
+import com.google.android.gms.tasks.Task;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Single-flight table of running reads, keyed by document path or by collection path plus
+ * query. The first caller for a key starts the read; callers arriving before it finishes
+ * get the same {@link Task} and add their listeners to it, so one result fans out to all
+ * of them. The key is released as soon as the task completes, and the next call starts a
+ * fresh read.
+ */
+public class SingleFlight {
+
+    /** Starts the underlying read, for example {@code () -> ref.get()}. */
+    public interface Call<T> {
+        Task<T> start();
+    }
+
+    private static final SingleFlight INSTANCE = new SingleFlight();
+
+    // Releases keys on the completing thread, before the callers' main-thread listeners run
+    private static final Executor DIRECT = Runnable::run;
+
+    private final Map<String, Task<?>> inFlight = new HashMap<>();
+    private long requests;
+    private long coalesced;
+
+    /** @return the process-wide table shared by the data layer. */
+    public static SingleFlight getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the running read for {@code key}, or starts one with {@code call}.
+     *
+     * @param key identifies the read, for example {@code "events/E1"}; callers must use the
+     *            same key only for reads that return the same type
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Task<T> run(String key, Call<T> call) {
+        Task<T> task;
+        synchronized (this) {
+            requests++;
+            Task<?> running = inFlight.get(key);
+            if (running != null) {
+                coalesced++;
+                return (Task<T>) running;
+            }
+            task = call.start();
+            inFlight.put(key, task);
+        }
+        // Registered outside the lock: an already complete task runs the listener inline
+        task.addOnCompleteListener(DIRECT, finished -> release(key, finished));
+        return task;
+    }
+
+    /** Calls made through {@link #run}, coalesced or not. */
+    public synchronized long getRequestCount() {
+        return requests;
+    }
+
+    /** Calls that joined a read already in flight instead of starting their own. */
+    public synchronized long getCoalescedCount() {
+        return coalesced;
+    }
+
+    /** Reads currently running. */
+    public synchronized int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private synchronized void release(String key, Task<?> finished) {
+        // Only drop the entry if a newer read has not replaced it
+        if (inFlight.get(key) == finished) {
+            inFlight.remove(key);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Small in-memory cache used by the data layer to avoid repeated Firestore reads for
+ * documents that several screens request back to back.
+ * Outstanding issues: Entries are not persisted across process restarts.
+ */
+package ca.ualberta.codarc.codarc_events.data;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache with a per-entry time-to-live and hit/miss counters.
+ * All methods are synchronized so it can be shared between the main thread and
+ * Firestore callbacks.
+ *
+ * @param <K> key type, usually a document id
+ * @param <V> cached value type
+ */
+public class TtlLruCache<K, V> {
+
+    /** Time source, replaceable in tests. */
+    public interface Clock {
+        long now();
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long storedAt;
+
+        Entry(V value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Clock clock;
+    private int maxSize;
+    private long ttlMillis;
+    private long hits;
+    private long misses;
+
+    public TtlLruCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, System::currentTimeMillis);
+    }
+
+    public TtlLruCache(int maxSize, long ttlMillis, Clock clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be > 0");
+        }
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("ttlMillis must be > 0");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the cached value, or null when absent or expired.
+     * Expired entries are dropped on access.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (clock.now() - entry.storedAt > ttlMillis) {
+            entries.remove(key);
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /** Stores a value, evicting the least recently used entries past the size limit. */
+    public synchronized void put(K key, V value) {
+        if (key == null || value == null) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, clock.now()));
+        trimToSize();
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Changes the size limit and TTL at runtime. Shrinking evicts immediately.
+     */
+    public synchronized void configure(int maxSize, long ttlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be > 0");
+        }
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("ttlMillis must be > 0");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        trimToSize();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
@@ -66,6 +66,31 @@ public class UserDB {
         });
     }
     
+    /**
+     * Like {@link #ensureUserExists} but also returns the user, so the caller needs no
+     * second read to learn the role flags.
+     */
+    public void loadOrCreateUser(String deviceId, Callback<User> cb) {
+        if (deviceId == null || deviceId.isEmpty()) {
+            cb.onError(new IllegalArgumentException("deviceId is empty"));
+            return;
+        }
+
+        DocumentReference userRef = db.collection("users").document(deviceId);
+        userRef.get()
+            .addOnSuccessListener(snapshot -> {
+                if (snapshot != null && snapshot.exists()) {
+                    cb.onSuccess(snapshot.toObject(User.class));
+                    return;
+                }
+                User newUser = new User(deviceId);
+                userRef.set(newUser)
+                    .addOnSuccessListener(unused -> cb.onSuccess(newUser))
+                    .addOnFailureListener(cb::onError);
+            })
+            .addOnFailureListener(cb::onError);
+    }
+
     public void getUser(String deviceId, Callback<User> cb) {
         if (deviceId == null || deviceId.isEmpty()) {
             cb.onError(new IllegalArgumentException("deviceId is empty"));
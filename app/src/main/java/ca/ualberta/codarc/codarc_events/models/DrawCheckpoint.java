@@ -0,0 +1,159 @@
+/*
+ * Model for the persisted progress of a lottery draw, letting an interrupted draw resume
+ * where it stopped instead of drawing again.
+ * Outstanding issues: Only the latest draw per event is kept; earlier checkpoints are
+ * overwritten.
+ */
+package ca.ualberta.codarc.codarc_events.models;
+
+import com.google.firebase.firestore.Exclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Draw progress stored at {@code events/<eventId>/drawState/current}.
+ *
+ * <p>The selection is written once sampling finishes. Each committed chunk advances
+ * {@code committedWinners}/{@code committedReplacements} in the same batch as the moves,
+ * so the offsets always match what is in Firestore. Entrants who left the waitlist before
+ * their chunk was committed are recorded in {@code skipped} instead of being moved. The
+ * last chunk moves the draw to {@code notifying}, and it only becomes {@code done} once
+ * the winners were notified.</p>
+ */
+public class DrawCheckpoint {
+
+    public static final String STATUS_COMMITTING = "committing";
+    /** Every entrant is moved; the winners have not all been notified yet. */
+    public static final String STATUS_NOTIFYING = "notifying";
+    public static final String STATUS_DONE = "done";
+
+    private long drawId;
+    private String status;
+    private List<String> winners = new ArrayList<>();
+    private List<String> replacements = new ArrayList<>();
+    private int committedWinners;
+    private int committedReplacements;
+    private List<String> skipped = new ArrayList<>();
+    private long updatedAt;
+
+    public DrawCheckpoint() { }
+
+    /**
+     * Creates a checkpoint for a freshly sampled draw with nothing committed yet.
+     *
+     * @param drawId draw time, also used as invitedAt and as the notification round
+     */
+    public DrawCheckpoint(long drawId, List<String> winners, List<String> replacements) {
+        this.drawId = drawId;
+        this.status = STATUS_COMMITTING;
+        this.winners = new ArrayList<>(winners);
+        this.replacements = new ArrayList<>(replacements);
+        this.updatedAt = drawId;
+    }
+
+    public long getDrawId() {
+        return drawId;
+    }
+
+    public void setDrawId(long drawId) {
+        this.drawId = drawId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public List<String> getWinners() {
+        return winners;
+    }
+
+    public void setWinners(List<String> winners) {
+        this.winners = winners != null ? winners : new ArrayList<>();
+    }
+
+    public List<String> getReplacements() {
+        return replacements;
+    }
+
+    public void setReplacements(List<String> replacements) {
+        this.replacements = replacements != null ? replacements : new ArrayList<>();
+    }
+
+    public int getCommittedWinners() {
+        return committedWinners;
+    }
+
+    public void setCommittedWinners(int committedWinners) {
+        this.committedWinners = committedWinners;
+    }
+
+    public int getCommittedReplacements() {
+        return committedReplacements;
+    }
+
+    public void setCommittedReplacements(int committedReplacements) {
+        this.committedReplacements = committedReplacements;
+    }
+
+    /** Selected entrants that were no longer on the waitlist when their chunk committed. */
+    public List<String> getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(List<String> skipped) {
+        this.skipped = skipped != null ? skipped : new ArrayList<>();
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    /** True until the draw's entrants are moved and its winners notified. */
+    @Exclude
+    public boolean isInProgress() {
+        return STATUS_COMMITTING.equals(status) || STATUS_NOTIFYING.equals(status);
+    }
+
+    /** True once every entrant is moved but the winner notifications may be unsent. */
+    @Exclude
+    public boolean isNotifying() {
+        return STATUS_NOTIFYING.equals(status);
+    }
+
+    /** Winners that were actually moved, i.e. the selected winners minus the skipped ones. */
+    @Exclude
+    public List<String> getMovedWinners() {
+        return without(winners, skipped);
+    }
+
+    /** Replacements that were actually moved into the pool. */
+    @Exclude
+    public List<String> getMovedReplacements() {
+        return without(replacements, skipped);
+    }
+
+    private static List<String> without(List<String> ids, List<String> removed) {
+        List<String> kept = new ArrayList<>(ids);
+        kept.removeAll(removed);
+        return kept;
+    }
+
+    /** Total entrants selected by this draw. */
+    public int selectedCount() {
+        return winners.size() + replacements.size();
+    }
+
+    /** Entrants already moved out of the waitlist. */
+    public int committedCount() {
+        return committedWinners + committedReplacements;
+    }
+}
@@ -6,6 +6,8 @@
  */
 package ca.ualberta.codarc.codarc_events.models;
 
+import com.google.firebase.firestore.Exclude;
+
 import java.io.Serializable;
 
 /**
@@ -25,6 +27,14 @@ public class Event implements Serializable {
     private String qrCode;
     private Integer maxCapacity;
     private String location;
+    private boolean autoBackfill;
+    private Integer invitationTtlHours;
+    private int counterShards;
+    private Integer waitlistCount;
+    private Integer winnersCount;
+    private Integer acceptedCount;
+    private Integer cancelledCount;
+    private Integer replacementPoolCount;
 
     /**
      * Creates an empty event instance for use by Firestore deserializers.
@@ -115,6 +125,54 @@ public class Event implements Serializable {
      */
     public String getLocation() { return location; }
 
+    /**
+     * @return true if a declined seat is refilled from the replacement pool automatically.
+     */
+    public boolean isAutoBackfill() { return autoBackfill; }
+
+    /**
+     * @return hours a winner has to respond before the invitation expires, or null if never.
+     */
+    public Integer getInvitationTtlHours() { return invitationTtlHours; }
+
+    /**
+     * @return number of shards counting joins, or 0 if the event uses a single counter.
+     */
+    @Exclude
+    public int getCounterShards() { return counterShards; }
+
+    // Counters are maintained by EventDB with FieldValue.increment, so they are excluded
+    // from POJO serialization to keep event edits from overwriting them.
+    /**
+     * @return denormalized waitlist size or null if the event predates counters.
+     */
+    @Exclude
+    public Integer getWaitlistCount() { return waitlistCount; }
+
+    /**
+     * @return denormalized number of winners awaiting a response, or null if unknown.
+     */
+    @Exclude
+    public Integer getWinnersCount() { return winnersCount; }
+
+    /**
+     * @return denormalized number of accepted entrants, or null if unknown.
+     */
+    @Exclude
+    public Integer getAcceptedCount() { return acceptedCount; }
+
+    /**
+     * @return denormalized number of cancelled entrants, or null if unknown.
+     */
+    @Exclude
+    public Integer getCancelledCount() { return cancelledCount; }
+
+    /**
+     * @return denormalized replacement pool size, or null if unknown.
+     */
+    @Exclude
+    public Integer getReplacementPoolCount() { return replacementPoolCount; }
+
     // Setters
     /**
      * Sets the Firestore id assigned to this event.
@@ -192,5 +250,67 @@ public class Event implements Serializable {
      * @param location location string displayed to entrants
      */
     public void setLocation(String location) { this.location = location; }
-}
 
+    /**
+     * Sets whether declines promote the oldest replacement pool member automatically.
+     *
+     * @param autoBackfill true to refill declined seats without organizer action
+     */
+    public void setAutoBackfill(boolean autoBackfill) { this.autoBackfill = autoBackfill; }
+
+    /**
+     * Sets how long winners have to accept or decline before the expiry sweep cancels them.
+     *
+     * @param invitationTtlHours response window in hours or null for no expiry
+     */
+    public void setInvitationTtlHours(Integer invitationTtlHours) { this.invitationTtlHours = invitationTtlHours; }
+
+    /**
+     * Sets the waitlist shard count read from the event document; changed through
+     * EventDB.setCounterShards only.
+     *
+     * @param counterShards number of shards, 0 for a single counter
+     */
+    @Exclude
+    public void setCounterShards(int counterShards) { this.counterShards = counterShards; }
+
+    /**
+     * Sets the denormalized waitlist size read from the event document.
+     *
+     * @param waitlistCount counter value or null if absent
+     */
+    @Exclude
+    public void setWaitlistCount(Integer waitlistCount) { this.waitlistCount = waitlistCount; }
+
+    /**
+     * Sets the denormalized winners count read from the event document.
+     *
+     * @param winnersCount counter value or null if absent
+     */
+    @Exclude
+    public void setWinnersCount(Integer winnersCount) { this.winnersCount = winnersCount; }
+
+    /**
+     * Sets the denormalized accepted count read from the event document.
+     *
+     * @param acceptedCount counter value or null if absent
+     */
+    @Exclude
+    public void setAcceptedCount(Integer acceptedCount) { this.acceptedCount = acceptedCount; }
+
+    /**
+     * Sets the denormalized cancelled count read from the event document.
+     *
+     * @param cancelledCount counter value or null if absent
+     */
+    @Exclude
+    public void setCancelledCount(Integer cancelledCount) { this.cancelledCount = cancelledCount; }
+
+    /**
+     * Sets the denormalized replacement pool size read from the event document.
+     *
+     * @param replacementPoolCount counter value or null if absent
+     */
+    @Exclude
+    public void setReplacementPoolCount(Integer replacementPoolCount) { this.replacementPoolCount = replacementPoolCount; }
+}
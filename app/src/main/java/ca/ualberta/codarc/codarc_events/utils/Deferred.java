@@ -0,0 +1,483 @@
+/*
+ * Small future type over the data layer's callbacks, so independent Firestore reads can
+ * run side by side instead of one inside another's callback.
+ * Outstanding issues: Cancelling stops delivery only; a Firestore read already sent still
+ * completes in the background unless its source registered an onCancel hook.
+ */
+package ca.ualberta.codarc.codarc_events.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import ca.ualberta.codarc.codarc_events.data.EntrantDB;
+import ca.ualberta.codarc.codarc_events.data.EventDB;
+
+/**
+ * A value that arrives later: completed once with a value or an error, after which every
+ * registered callback is told. Calls that take an {@link EventDB.Callback} or
+ * {@link EntrantDB.Callback} are wrapped with {@link #ofEvent} and {@link #ofEntrant}.
+ *
+ * <p>Callbacks run on the thread that completes the value, which for Firestore is the main
+ * thread; use {@link #onMainThread()} where a timeout or a background source may complete
+ * it instead. Safe to complete and observe from any thread.</p>
+ *
+ * @param <T> value type
+ */
+public final class Deferred<T> {
+
+    /** Receives the outcome of a {@link Deferred}. */
+    public interface Callback<T> {
+        void onSuccess(T value);
+        void onError(@NonNull Exception e);
+    }
+
+    /** Starts an {@link EventDB} call, for example {@code cb -> eventDB.getEvent(id, cb)}. */
+    public interface EventCall<T> {
+        void start(EventDB.Callback<T> cb);
+    }
+
+    /** Starts an {@link EntrantDB} call, for example {@code cb -> entrantDB.getProfile(id, cb)}. */
+    public interface EntrantCall<T> {
+        void start(EntrantDB.Callback<T> cb);
+    }
+
+    // Fires timeouts; a daemon thread so it never keeps the process alive
+    private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+    private static volatile Executor mainThread;
+
+    private boolean done;
+    private T value;
+    private Exception error;
+    private List<Callback<? super T>> callbacks = new ArrayList<>();
+    private List<Runnable> cancelHooks = new ArrayList<>();
+
+    /** Creates an incomplete value; finish it with {@link #complete} or {@link #fail}. */
+    public Deferred() { }
+
+    public static <T> Deferred<T> completed(T value) {
+        Deferred<T> deferred = new Deferred<>();
+        deferred.complete(value);
+        return deferred;
+    }
+
+    public static <T> Deferred<T> failed(@NonNull Exception e) {
+        Deferred<T> deferred = new Deferred<>();
+        deferred.fail(e);
+        return deferred;
+    }
+
+    /** Starts {@code call} now and completes with whatever it reports. */
+    public static <T> Deferred<T> ofEvent(EventCall<T> call) {
+        Deferred<T> deferred = new Deferred<>();
+        try {
+            call.start(new EventDB.Callback<T>() {
+                @Override
+                public void onSuccess(T value) {
+                    deferred.complete(value);
+                }
+
+                @Override
+                public void onError(@NonNull Exception e) {
+                    deferred.fail(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            deferred.fail(e);
+        }
+        return deferred;
+    }
+
+    /** Starts {@code call} now and completes with whatever it reports. */
+    public static <T> Deferred<T> ofEntrant(EntrantCall<T> call) {
+        Deferred<T> deferred = new Deferred<>();
+        try {
+            call.start(new EntrantDB.Callback<T>() {
+                @Override
+                public void onSuccess(T value) {
+                    deferred.complete(value);
+                }
+
+                @Override
+                public void onError(@NonNull Exception e) {
+                    deferred.fail(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            deferred.fail(e);
+        }
+        return deferred;
+    }
+
+    /**
+     * Completes once every input has succeeded, or fails with the first error, cancelling
+     * the inputs still running. Read the values with {@link #getNow()} on each input.
+     */
+    public static Deferred<Void> allOf(Deferred<?>... inputs) {
+        Deferred<Void> all = new Deferred<>();
+        if (inputs.length == 0) {
+            all.complete(null);
+            return all;
+        }
+        AtomicInteger remaining = new AtomicInteger(inputs.length);
+        for (Deferred<?> input : inputs) {
+            input.whenDone(new Callback<Object>() {
+                @Override
+                public void onSuccess(Object value) {
+                    if (remaining.decrementAndGet() == 0) {
+                        all.complete(null);
+                    }
+                }
+
+                @Override
+                public void onError(@NonNull Exception e) {
+                    if (all.fail(e)) {
+                        for (Deferred<?> other : inputs) {
+                            other.cancel();
+                        }
+                    }
+                }
+            });
+        }
+        all.onCancel(() -> {
+            for (Deferred<?> input : inputs) {
+                input.cancel();
+            }
+        });
+        return all;
+    }
+
+    /**
+     * Completes with the first input to succeed and cancels the others. Fails with the
+     * last error only when every input has failed.
+     */
+    public static <T> Deferred<T> anyOf(List<Deferred<T>> inputs) {
+        Deferred<T> any = new Deferred<>();
+        if (inputs.isEmpty()) {
+            any.fail(new IllegalArgumentException("inputs is empty"));
+            return any;
+        }
+        AtomicInteger remaining = new AtomicInteger(inputs.size());
+        for (Deferred<T> input : inputs) {
+            input.whenDone(new Callback<T>() {
+                @Override
+                public void onSuccess(T value) {
+                    if (any.complete(value)) {
+                        for (Deferred<T> other : inputs) {
+                            other.cancel();
+                        }
+                    }
+                }
+
+                @Override
+                public void onError(@NonNull Exception e) {
+                    if (remaining.decrementAndGet() == 0) {
+                        any.fail(e);
+                    }
+                }
+            });
+        }
+        any.onCancel(() -> {
+            for (Deferred<T> input : inputs) {
+                input.cancel();
+            }
+        });
+        return any;
+    }
+
+    /** @return true if this call completed the value, false if it was already done */
+    public boolean complete(T value) {
+        return finish(value, null);
+    }
+
+    /** @return true if this call completed the value, false if it was already done */
+    public boolean fail(@NonNull Exception e) {
+        return finish(null, e);
+    }
+
+    /**
+     * Fails with a {@link CancellationException} and runs the {@link #onCancel} hooks.
+     * Callbacks see the cancellation as an error; a result arriving later is dropped.
+     *
+     * @return true if the value was still pending
+     */
+    public boolean cancel() {
+        List<Runnable> hooks;
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+            hooks = cancelHooks;
+        }
+        if (!fail(new CancellationException("Cancelled"))) {
+            return false;
+        }
+        for (Runnable hook : hooks) {
+            hook.run();
+        }
+        return true;
+    }
+
+    /** Runs {@code hook} if this value is cancelled or times out, e.g. to detach a listener. */
+    public Deferred<T> onCancel(Runnable hook) {
+        synchronized (this) {
+            if (!done) {
+                cancelHooks.add(hook);
+            }
+        }
+        return this;
+    }
+
+    /** Registers {@code cb}; runs it straight away if the value is already there. */
+    public Deferred<T> whenDone(Callback<? super T> cb) {
+        synchronized (this) {
+            if (!done) {
+                callbacks.add(cb);
+                return this;
+            }
+        }
+        deliver(cb);
+        return this;
+    }
+
+    /** Forwards the outcome to a data layer callback. */
+    public Deferred<T> deliverTo(EventDB.Callback<? super T> cb) {
+        return whenDone(new Callback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                cb.onSuccess(value);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+    }
+
+    /** Forwards the outcome to a data layer callback. */
+    public Deferred<T> deliverTo(EntrantDB.Callback<? super T> cb) {
+        return whenDone(new Callback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                cb.onSuccess(value);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                cb.onError(e);
+            }
+        });
+    }
+
+    /** Same outcome, with callbacks run on {@code executor}. Cancelling it cancels this. */
+    public Deferred<T> on(Executor executor) {
+        Deferred<T> next = new Deferred<>();
+        whenDone(new Callback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                executor.execute(() -> next.complete(value));
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                executor.execute(() -> next.fail(e));
+            }
+        });
+        next.onCancel(this::cancel);
+        return next;
+    }
+
+    /** Same outcome, with callbacks posted to the main thread. */
+    public Deferred<T> onMainThread() {
+        return on(mainThread());
+    }
+
+    /** Transforms the value; an exception thrown by {@code fn} fails the result. */
+    public <R> Deferred<R> map(Function<? super T, ? extends R> fn) {
+        return then(value -> Deferred.completed(fn.apply(value)));
+    }
+
+    /** Starts the next step once this value arrives; errors skip the step. */
+    public <R> Deferred<R> then(Function<? super T, Deferred<R>> fn) {
+        Deferred<R> next = new Deferred<>();
+        whenDone(new Callback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                Deferred<R> step;
+                try {
+                    step = fn.apply(value);
+                } catch (RuntimeException e) {
+                    next.fail(e);
+                    return;
+                }
+                next.onCancel(step::cancel);
+                step.whenDone(new Callback<R>() {
+                    @Override
+                    public void onSuccess(R result) {
+                        next.complete(result);
+                    }
+
+                    @Override
+                    public void onError(@NonNull Exception e) {
+                        next.fail(e);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                next.fail(e);
+            }
+        });
+        next.onCancel(this::cancel);
+        return next;
+    }
+
+    /** Replaces an error with the value of {@code fn}, for example a retry or a fallback. */
+    public Deferred<T> recover(Function<? super Exception, Deferred<T>> fn) {
+        Deferred<T> next = new Deferred<>();
+        whenDone(new Callback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                next.complete(value);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                Deferred<T> fallback;
+                try {
+                    fallback = fn.apply(e);
+                } catch (RuntimeException thrown) {
+                    next.fail(thrown);
+                    return;
+                }
+                next.onCancel(fallback::cancel);
+                fallback.whenDone(new Callback<T>() {
+                    @Override
+                    public void onSuccess(T value) {
+                        next.complete(value);
+                    }
+
+                    @Override
+                    public void onError(@NonNull Exception failure) {
+                        next.fail(failure);
+                    }
+                });
+            }
+        });
+        next.onCancel(this::cancel);
+        return next;
+    }
+
+    /**
+     * Same outcome, but fails with a {@link TimeoutException} and cancels this value if it
+     * has not arrived within {@code timeoutMillis}. The timeout fires on a background
+     * thread.
+     */
+    public Deferred<T> withTimeout(long timeoutMillis) {
+        Deferred<T> next = new Deferred<>();
+        ScheduledFuture<?> timer = TIMER.schedule(() -> {
+            if (next.fail(new TimeoutException("Timed out after " + timeoutMillis + " ms"))) {
+                cancel();
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        whenDone(new Callback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                timer.cancel(false);
+                next.complete(value);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                timer.cancel(false);
+                next.fail(e);
+            }
+        });
+        next.onCancel(this::cancel);
+        return next;
+    }
+
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    public synchronized boolean isCancelled() {
+        return error instanceof CancellationException;
+    }
+
+    /**
+     * @return the value of a successfully completed instance
+     * @throws IllegalStateException if it is still pending or failed
+     */
+    public synchronized T getNow() {
+        if (!done || error != null) {
+            throw new IllegalStateException(done ? "Failed: " + error : "Not completed yet", error);
+        }
+        return value;
+    }
+
+    private boolean finish(T result, Exception failure) {
+        List<Callback<? super T>> pending;
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+            done = true;
+            value = result;
+            error = failure;
+            pending = callbacks;
+            callbacks = null;
+            cancelHooks = new ArrayList<>();
+        }
+        for (Callback<? super T> cb : pending) {
+            deliver(cb);
+        }
+        return true;
+    }
+
+    private void deliver(Callback<? super T> cb) {
+        T result;
+        Exception failure;
+        synchronized (this) {
+            result = value;
+            failure = error;
+        }
+        if (failure != null) {
+            cb.onError(failure);
+        } else {
+            cb.onSuccess(result);
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "deferred-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private static Executor mainThread() {
+        if (mainThread == null) {
+            Handler handler = new Handler(Looper.getMainLooper());
+            mainThread = handler::post;
+        }
+        return mainThread;
+    }
+}
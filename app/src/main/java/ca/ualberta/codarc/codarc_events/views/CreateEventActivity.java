@@ -27,9 +27,11 @@ import ca.ualberta.codarc.codarc_events.R;
 import ca.ualberta.codarc.codarc_events.controllers.CreateEventController;
 import ca.ualberta.codarc.codarc_events.data.EventDB;
 import ca.ualberta.codarc.codarc_events.data.OrganizerDB;
+import ca.ualberta.codarc.codarc_events.data.Session;
 import ca.ualberta.codarc.codarc_events.data.UserDB;
 import ca.ualberta.codarc.codarc_events.models.Event;
 import ca.ualberta.codarc.codarc_events.utils.Identity;
+import ca.ualberta.codarc.codarc_events.workers.InvitationExpiryWorker;
 
 /**
  * Create Event screen that lets organizers fill event info.
@@ -212,6 +214,9 @@ public class CreateEventActivity extends AppCompatActivity {
                 userDB.setOrganizerRole(organizerId, true, new UserDB.Callback<Void>() {
                     @Override
                     public void onSuccess(Void v) {
+                        Session.get(CreateEventActivity.this).reloadUser();
+                        // Expires unanswered invitations on this organizer's events
+                        InvitationExpiryWorker.schedule(getApplicationContext());
                         // Now add event to organizer's events
                         addEventToOrganizer(event);
                     }
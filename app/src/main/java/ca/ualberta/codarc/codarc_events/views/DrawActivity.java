@@ -1,15 +1,18 @@
 /*
  * Activity controlling the draw experience for organizers, triggering DrawController and
  * presenting winners and waitlist updates.
- * Outstanding issues: Improve state restoration when the activity is backgrounded mid-draw.
+ * Outstanding issues: A draw left running when the activity is destroyed only resumes the
+ * next time the organizer runs it.
  */
 package ca.ualberta.codarc.codarc_events.views;
 
 import android.app.AlertDialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.view.View;
 import android.widget.EditText;
 import android.widget.ImageView;
+import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -18,10 +21,15 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.google.android.material.button.MaterialButton;
 
+import java.text.DateFormat;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 import ca.ualberta.codarc.codarc_events.R;
 import ca.ualberta.codarc.codarc_events.controllers.DrawController;
+import ca.ualberta.codarc.codarc_events.controllers.DrawSimulator;
+import ca.ualberta.codarc.codarc_events.data.DrawLease;
 import ca.ualberta.codarc.codarc_events.data.EventDB;
 import ca.ualberta.codarc.codarc_events.models.Event;
 import ca.ualberta.codarc.codarc_events.utils.Identity;
@@ -36,11 +44,15 @@ public class DrawActivity extends AppCompatActivity {
 
     private EditText etNumWinners;
     private TextView tvResultSummary, tvEntrantCount, tvEventName;
-    private MaterialButton btnRunDraw;
+    private MaterialButton btnRunDraw, btnCancelDraw, btnSimulateDraw;
+    private ProgressBar progressDraw;
     private ImageView ivBack;
 
     private DrawController drawController;
+    private DrawController.DrawHandle drawHandle;
     private String eventId, eventName;
+    // Pool size from the last suggestion; null keeps the default pool
+    private Integer suggestedPoolSize;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -65,6 +77,9 @@ public class DrawActivity extends AppCompatActivity {
         tvEventName = findViewById(R.id.tv_event_name);
         // Note: tv_replacement_info might not exist in layout - that's okay, we'll show info in summary
         btnRunDraw = findViewById(R.id.btn_run_draw);
+        btnCancelDraw = findViewById(R.id.btn_cancel_draw);
+        btnSimulateDraw = findViewById(R.id.btn_simulate_draw);
+        progressDraw = findViewById(R.id.progress_draw);
         ivBack = findViewById(R.id.iv_back);
 
         tvEventName.setText(eventName != null ? eventName : "Run Lottery Draw");
@@ -72,6 +87,14 @@ public class DrawActivity extends AppCompatActivity {
         loadEntrantCount();
 
         btnRunDraw.setOnClickListener(v -> showConfirmDialog());
+        btnSimulateDraw.setOnClickListener(v -> simulateDraw());
+        btnCancelDraw.setOnClickListener(v -> {
+            if (drawHandle != null) {
+                drawHandle.cancel();
+                btnCancelDraw.setEnabled(false);
+                tvResultSummary.setText("Pausing after the current step...");
+            }
+        });
 
         ivBack.setOnClickListener(v -> finish());
     }
@@ -102,7 +125,50 @@ public class DrawActivity extends AppCompatActivity {
         });
     }
 
+    private void simulateDraw() {
+        btnSimulateDraw.setEnabled(false);
+        tvResultSummary.setText("Simulating draws...");
+        drawController.simulateDraw(eventId, new DrawController.SimulationCallback() {
+            @Override
+            public void onSuccess(@NonNull DrawSimulator.Recommendation rec) {
+                btnSimulateDraw.setEnabled(true);
+                if (rec.getNumWinners() == 0) {
+                    tvResultSummary.setText("No open seats or no entrants to draw.");
+                    return;
+                }
+                suggestedPoolSize = rec.getReplacementPoolSize();
+                etNumWinners.setText(String.valueOf(rec.getNumWinners()));
+                DrawSimulator.Interval full = rec.getFullProbabilityInterval();
+                DrawSimulator.Interval filled = rec.getMeanFilledInterval();
+                tvResultSummary.setText(String.format(Locale.getDefault(),
+                        "Suggested: %d winners, replacement pool of %d\n"
+                                + "Accept rate used: %.0f%%\n"
+                                + "All seats filled: %.0f%% (%.0f-%.0f%%)\n"
+                                + "Seats filled on average: %.1f (%.1f-%.1f)\n"
+                                + "Over capacity: %.1f%% (%d simulated draws)",
+                        rec.getNumWinners(), rec.getReplacementPoolSize(),
+                        rec.getAcceptRate() * 100,
+                        rec.getFullProbability() * 100, full.getLow() * 100, full.getHigh() * 100,
+                        rec.getMeanFilled(), filled.getLow(), filled.getHigh(),
+                        rec.getOverflowProbability() * 100, rec.getRounds()));
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                btnSimulateDraw.setEnabled(true);
+                tvResultSummary.setText("");
+                Toast.makeText(DrawActivity.this,
+                        "Could not simulate draw: " + e.getMessage(),
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
     private void runDraw() {
+        if (drawHandle != null) {
+            // Already running; a second confirm from a double tap is ignored
+            return;
+        }
         String input = etNumWinners.getText().toString().trim();
         if (input.isEmpty()) {
             Toast.makeText(this, "Enter number of winners", Toast.LENGTH_SHORT).show();
@@ -117,27 +183,94 @@ public class DrawActivity extends AppCompatActivity {
             return;
         }
 
-        drawController.runDraw(eventId, numWinners, new DrawController.DrawCallback() {
+        setDrawRunning(true);
+        DrawController.DrawCallback callback = new DrawController.DrawCallback() {
             @Override
             public void onSuccess(List<String> winners, List<String> replacements) {
                 runOnUiThread(() -> {
+                    setDrawRunning(false);
                     String summary = String.format("✅ Winners drawn: %d\n📋 Replacement pool: %d\n📧 Notifications sent automatically", 
                             winners.size(), replacements.size());
                     tvResultSummary.setText(summary);
                     Toast.makeText(DrawActivity.this, 
                             "Lottery complete! " + winners.size() + " winners selected. Notifications sent automatically.", 
                             Toast.LENGTH_LONG).show();
+                    loadEntrantCount();
+                });
+            }
+
+            @Override
+            public void onProgress(@NonNull String stage, int done, int total) {
+                runOnUiThread(() -> showProgress(stage, done, total));
+            }
+
+            @Override
+            public void onCancelled() {
+                runOnUiThread(() -> {
+                    setDrawRunning(false);
+                    tvResultSummary.setText("Draw paused. Run the draw again to resume where it stopped.");
+                    loadEntrantCount();
                 });
             }
 
             @Override
             public void onError(@NonNull Exception e) {
-                runOnUiThread(() ->
-                        Toast.makeText(DrawActivity.this,
-                                "Error running draw: " + e.getMessage(),
-                                Toast.LENGTH_SHORT).show());
+                runOnUiThread(() -> {
+                    setDrawRunning(false);
+                    if (e instanceof DrawLease.HeldException) {
+                        long expiresAt = ((DrawLease.HeldException) e).getExpiresAt();
+                        tvResultSummary.setText("Another device is already running this draw. "
+                                + "If it stops, you can run the draw again after "
+                                + DateFormat.getTimeInstance(DateFormat.SHORT).format(new Date(expiresAt)) + ".");
+                        return;
+                    }
+                    tvResultSummary.setText("");
+                    Toast.makeText(DrawActivity.this,
+                            "Error running draw: " + e.getMessage(),
+                            Toast.LENGTH_SHORT).show();
+                });
             }
-        });
+        };
+        drawHandle = suggestedPoolSize != null
+                ? drawController.runDraw(eventId, numWinners, suggestedPoolSize, callback)
+                : drawController.runDraw(eventId, numWinners, callback);
+    }
+
+    private void setDrawRunning(boolean running) {
+        btnRunDraw.setEnabled(!running);
+        btnSimulateDraw.setEnabled(!running);
+        btnCancelDraw.setEnabled(running);
+        btnCancelDraw.setVisibility(running ? View.VISIBLE : View.GONE);
+        progressDraw.setVisibility(running ? View.VISIBLE : View.GONE);
+        if (running) {
+            progressDraw.setIndeterminate(true);
+        } else {
+            drawHandle = null;
+        }
+    }
+
+    private void showProgress(String stage, int done, int total) {
+        if (total > 0) {
+            progressDraw.setIndeterminate(false);
+            progressDraw.setMax(total);
+            progressDraw.setProgress(Math.min(done, total));
+        }
+        switch (stage) {
+            case DrawController.STAGE_RESUMING:
+                tvResultSummary.setText("Resuming an interrupted draw (" + done + " of " + total + " already placed)");
+                break;
+            case DrawController.STAGE_SAMPLING:
+                tvResultSummary.setText("Scanning waitlist: " + done + " of " + total);
+                break;
+            case DrawController.STAGE_COMMITTING:
+                tvResultSummary.setText("Saving results: " + done + " of " + total);
+                break;
+            case DrawController.STAGE_NOTIFYING:
+                tvResultSummary.setText("Notifying winners: " + done + " of " + total);
+                break;
+            default:
+                break;
+        }
     }
 
     private void verifyOrganizerAccess() {
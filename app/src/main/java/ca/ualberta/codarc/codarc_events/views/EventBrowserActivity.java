@@ -15,50 +15,53 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.google.firebase.firestore.QuerySnapshot;
 
 import ca.ualberta.codarc.codarc_events.R;
 import ca.ualberta.codarc.codarc_events.adapters.EventCardAdapter;
-import ca.ualberta.codarc.codarc_events.data.EntrantDB;
 import ca.ualberta.codarc.codarc_events.data.EventDB;
-import ca.ualberta.codarc.codarc_events.models.Event;
-import ca.ualberta.codarc.codarc_events.utils.Identity;
+import ca.ualberta.codarc.codarc_events.data.EventListIndex;
+import ca.ualberta.codarc.codarc_events.data.EventPager;
+import ca.ualberta.codarc.codarc_events.data.ListenerRegistry;
+import ca.ualberta.codarc.codarc_events.data.Session;
 
 /**
  * Displays the list of available events for entrants.
  *
  * <p>This activity:
  * <ul>
- *   <li>Initializes and subscribes to Firestore via {@link EventDB#getAllEvents(EventDB.Callback)}.</li>
- *   <li>Displays all events in a RecyclerView using {@link EventCardAdapter}.</li>
+ *   <li>Subscribes to the first page of event summaries via
+ *   {@link EventDB#listenFirstEventPage} through {@link ListenerRegistry}, so the listener
+ *   is shared with other open browsers and detached while none is started. Summaries
+ *   carry only the card fields; the details screen loads the full event.</li>
+ *   <li>Loads older pages with {@link EventPager} as the list nears its end, keeping the
+ *   next page prefetched.</li>
+ *   <li>Runs the one-off summary migration, so events created before summaries existed
+ *   are listed too.</li>
+ *   <li>Displays events in a RecyclerView using {@link EventCardAdapter}, notifying
+ *   only the rows reported by {@link EventListIndex}.</li>
  *   <li>Allows navigation to the profile screen (via iv_profile).</li>
  *   <li>Allows organizers to create a new event (via btn_plus).</li>
  * </ul></p>
  */
 public class EventBrowserActivity extends AppCompatActivity {
 
+    // Start loading the next page when this many rows remain below the last visible one
+    private static final int LOAD_MORE_THRESHOLD = 5;
+
     private RecyclerView rvEvents;
-    private final List<Event> eventList = new ArrayList<>();
+    private final EventListIndex eventIndex = new EventListIndex();
     private EventCardAdapter adapter;
     private EventDB eventDB;
+    private EventPager pager;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_event_browser);
 
-        // --- Ensure device has a unique ID (used as entrant identifier)
-        String deviceId = Identity.getOrCreateDeviceId(this);
-        new EntrantDB().getOrCreateEntrant(deviceId, new EntrantDB.Callback<Void>() {
-            @Override
-            public void onSuccess(Void value) { }
-
-            @Override
-            public void onError(@NonNull Exception e) {
-                android.util.Log.e("EventBrowserActivity", "Failed to ensure entrant profile", e);
-            }
-        });
+        // --- Identity, roles and profile status are loaded once by the session
+        Session.get(this);
 
         // --- RecyclerView setup for events
         rvEvents = findViewById(R.id.rv_events);
@@ -67,13 +70,66 @@ public class EventBrowserActivity extends AppCompatActivity {
             finish();
             return;
         }
-        rvEvents.setLayoutManager(new LinearLayoutManager(this));
-        adapter = new EventCardAdapter(this, eventList);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        rvEvents.setLayoutManager(layoutManager);
+        adapter = new EventCardAdapter(this, eventIndex.getEvents());
         rvEvents.setAdapter(adapter);
+        eventIndex.setListener(new EventListIndex.Listener() {
+            @Override
+            public void onInserted(int position) {
+                adapter.notifyItemInserted(position);
+            }
+
+            @Override
+            public void onChanged(int position) {
+                adapter.notifyItemChanged(position);
+            }
+
+            @Override
+            public void onRemoved(int position) {
+                adapter.notifyItemRemoved(position);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                adapter.notifyItemMoved(fromPosition, toPosition);
+            }
+
+            @Override
+            public void onReset() {
+                adapter.notifyDataSetChanged();
+            }
+        });
 
         eventDB = new EventDB();
+        pager = new EventPager(eventDB, eventIndex, EventPager.DEFAULT_PAGE_SIZE);
+        rvEvents.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0) {
+                    return;
+                }
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= adapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    pager.loadMore();
+                }
+            }
+        });
         loadEvents();
 
+        // --- Events created before summaries existed are listed once theirs is written
+        eventDB.migrateSummariesOnce(new EventDB.Callback<Integer>() {
+            @Override
+            public void onSuccess(Integer written) {
+                // The live first page picks up the new summaries by itself
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                android.util.Log.e("EventBrowserActivity", "Failed to migrate event summaries", e);
+            }
+        });
+
         // --- "+" icon: opens CreateEventActivity for organizers
         ImageView plusIcon = findViewById(R.id.btn_plus);
         if (plusIcon != null) {
@@ -103,25 +159,20 @@ public class EventBrowserActivity extends AppCompatActivity {
         }
     }
 
-    @Override
-    protected void onResume() {
-        super.onResume();
-        // Refresh events when returning to this activity
-        // This ensures waitlist counts are updated if user joined from EventDetailsActivity
-        loadEvents();
-    }
-
     /**
-     * Loads all events from Firestore and updates the adapter list.
+     * Observes the first page of events. The index notifies the adapter row by row and is
+     * rebuilt from the first snapshot after every start, so counts changed on other
+     * screens show up on return. Each applied snapshot also prefetches the following page.
      */
     private void loadEvents() {
-        eventDB.getAllEvents(new EventDB.Callback<List<Event>>() {
+        int pageSize = pager.getPageSize();
+        ListenerRegistry.getInstance().observe(this, EventDB.firstEventPageKey(pageSize),
+                cb -> eventDB.listenFirstEventPage(pageSize, cb),
+                new ListenerRegistry.Observer<QuerySnapshot>() {
             @Override
-            public void onSuccess(List<Event> value) {
-                if (value != null) {
-                    eventList.clear();
-                    eventList.addAll(value);
-                    adapter.notifyDataSetChanged();
+            public void onValue(QuerySnapshot snapshot, boolean restarted) {
+                if (eventDB.applyFirstEventPage(eventIndex, snapshot, pageSize, restarted)) {
+                    pager.prefetch();
                 }
             }
 
@@ -132,5 +183,3 @@ public class EventBrowserActivity extends AppCompatActivity {
         });
     }
 }
-
-
@@ -19,14 +19,16 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
+import java.util.concurrent.CancellationException;
 
 import ca.ualberta.codarc.codarc_events.R;
 import ca.ualberta.codarc.codarc_events.controllers.JoinWaitlistController;
 import ca.ualberta.codarc.codarc_events.controllers.LeaveWaitlistController;
 import ca.ualberta.codarc.codarc_events.data.EntrantDB;
 import ca.ualberta.codarc.codarc_events.data.EventDB;
+import ca.ualberta.codarc.codarc_events.data.Session;
 import ca.ualberta.codarc.codarc_events.models.Event;
-import ca.ualberta.codarc.codarc_events.utils.Identity;
+import ca.ualberta.codarc.codarc_events.utils.Deferred;
 import com.google.android.material.button.MaterialButton;
 import com.google.zxing.BarcodeFormat;
 import com.journeyapps.barcodescanner.BarcodeEncoder;
@@ -45,6 +47,10 @@ public class EventDetailsActivity extends AppCompatActivity {
     private MaterialButton leaveBtn;
     private ImageButton settingsBtn;
     private String deviceId;
+    private Deferred<Void> statusCheck;
+    private Deferred<Boolean> registration;
+
+    private static final long STATUS_TIMEOUT_MS = 10_000L;
 
     /**
      * Initializes the event details screen, populating UI from the Event passed via Intent.
@@ -68,18 +74,39 @@ public class EventDetailsActivity extends AppCompatActivity {
 
         this.eventDB = new EventDB();
         this.entrantDB = new EntrantDB();
-        this.deviceId = Identity.getOrCreateDeviceId(this);
+        this.deviceId = Session.get(this).getDeviceId();
         this.joinController = new JoinWaitlistController(eventDB, entrantDB);
         this.leaveController = new LeaveWaitlistController(eventDB);
         this.joinBtn = findViewById(R.id.btn_join_waitlist);
         this.leaveBtn = findViewById(R.id.btn_leave_waitlist);
 
-        // UI references
+        // The list hands over a card summary; the rest arrives with the full event
+        bindEvent();
+        loadFullEvent();
+
+        // Initially hide leave button
+        leaveBtn.setVisibility(View.GONE);
+
+        // Set up button handlers
+        joinBtn.setOnClickListener(v -> showJoinConfirmation());
+        leaveBtn.setOnClickListener(v -> showLeaveConfirmation());
+
+        // Check waitlist status on load; the profile check for a join runs alongside it
+        checkWaitlistStatus();
+        if (event.getOrganizerId() == null || !event.getOrganizerId().equals(deviceId)) {
+            registration();
+        }
+
+        // Show settings icon if organizer, hide join button
+        setupOrganizerSettings();
+    }
+
+    // Fills in the event text fields from the current event
+    private void bindEvent() {
         TextView title = findViewById(R.id.event_title);
         TextView desc = findViewById(R.id.event_desc);
         TextView dateTime = findViewById(R.id.event_datetime);
         TextView regWindow = findViewById(R.id.event_reg_window);
-        ImageView qrImage = findViewById(R.id.event_qr);
 
         title.setText(event.getName() != null ? event.getName() : "");
         desc.setText(event.getDescription() != null ? event.getDescription() : "");
@@ -93,8 +120,38 @@ public class EventDetailsActivity extends AppCompatActivity {
         String regOpen = event.getRegistrationOpen();
         String regClose = event.getRegistrationClose();
         regWindow.setText("Registration: " + (regOpen != null ? regOpen : "") + " → " + (regClose != null ? regClose : ""));
+    }
+
+    /**
+     * Loads the full event in place of the card summary passed by the list, then fills in
+     * the description, location and QR code it lacks. Read past the event cache, which no
+     * live listener refreshes, so the capacity and dates shown are current.
+     */
+    private void loadFullEvent() {
+        eventDB.refreshEvent(event.getId(), new EventDB.Callback<Event>() {
+            @Override
+            public void onSuccess(Event full) {
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+                event = full;
+                bindEvent();
+                bindQrCode();
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                Log.e("EventDetailsActivity", "Failed to load full event", e);
+                if (!isFinishing() && !isDestroyed()) {
+                    bindQrCode();
+                }
+            }
+        });
+    }
 
-        // Generate QR code with null safety
+    // Regenerates the QR code from stored data, with null safety
+    private void bindQrCode() {
+        ImageView qrImage = findViewById(R.id.event_qr);
         try {
             String qrData = event.getQrCode();
             if (qrData == null || qrData.isEmpty()) {
@@ -108,19 +165,6 @@ public class EventDetailsActivity extends AppCompatActivity {
             Log.e("EventDetailsActivity", "Failed to generate QR code", e);
             Toast.makeText(this, "Failed to display QR code", Toast.LENGTH_SHORT).show();
         }
-
-        // Initially hide leave button
-        leaveBtn.setVisibility(View.GONE);
-
-        // Set up button handlers
-        joinBtn.setOnClickListener(v -> showJoinConfirmation());
-        leaveBtn.setOnClickListener(v -> showLeaveConfirmation());
-
-        // Check waitlist status on load
-        checkWaitlistStatus();
-
-        // Show settings icon if organizer, hide join button
-        setupOrganizerSettings();
     }
 
     private void setupOrganizerSettings() {
@@ -158,64 +202,69 @@ public class EventDetailsActivity extends AppCompatActivity {
             return;
         }
 
-        eventDB.isEntrantOnWaitlist(event.getId(), deviceId, new EventDB.Callback<Boolean>() {
+        // Both lookups go out together instead of the second waiting on the first
+        if (statusCheck != null) {
+            statusCheck.cancel();
+        }
+        Deferred<Boolean> onWaitlist = Deferred.ofEvent(
+                cb -> eventDB.isEntrantOnWaitlist(event.getId(), deviceId, cb));
+        Deferred<Boolean> canJoin = Deferred.ofEvent(
+                cb -> eventDB.canJoinWaitlist(event.getId(), deviceId, cb));
+        statusCheck = Deferred.allOf(onWaitlist, canJoin)
+                .withTimeout(STATUS_TIMEOUT_MS)
+                .onMainThread();
+        statusCheck.whenDone(new Deferred.Callback<Void>() {
             @Override
-            public void onSuccess(Boolean isOnWaitlist) {
-                if (isOnWaitlist) {
-                    runOnUiThread(() -> {
-                        joinBtn.setVisibility(View.GONE);
-                        leaveBtn.setVisibility(View.VISIBLE);
-                    });
+            public void onSuccess(Void value) {
+                if (onWaitlist.getNow()) {
+                    joinBtn.setVisibility(View.GONE);
+                    leaveBtn.setVisibility(View.VISIBLE);
+                } else if (canJoin.getNow()) {
+                    joinBtn.setVisibility(View.VISIBLE);
+                    leaveBtn.setVisibility(View.GONE);
                 } else {
-                    eventDB.canJoinWaitlist(event.getId(), deviceId, new EventDB.Callback<Boolean>() {
-                        @Override
-                        public void onSuccess(Boolean canJoin) {
-                            runOnUiThread(() -> {
-                                if (canJoin) {
-                                    joinBtn.setVisibility(View.VISIBLE);
-                                    leaveBtn.setVisibility(View.GONE);
-                                } else {
-                                    joinBtn.setVisibility(View.GONE);
-                                    leaveBtn.setVisibility(View.GONE);
-                                }
-                            });
-                        }
-
-                        @Override
-                        public void onError(@NonNull Exception e) {
-                            Log.e("EventDetailsActivity", "Failed to check if can join", e);
-                            runOnUiThread(() -> {
-                                // Double-check organizer status before showing button
-                                if (event.getOrganizerId() != null && event.getOrganizerId().equals(deviceId)) {
-                                    joinBtn.setVisibility(View.GONE);
-                                    leaveBtn.setVisibility(View.GONE);
-                                } else {
-                                    joinBtn.setVisibility(View.VISIBLE);
-                                    leaveBtn.setVisibility(View.GONE);
-                                }
-                            });
-                        }
-                    });
+                    joinBtn.setVisibility(View.GONE);
+                    leaveBtn.setVisibility(View.GONE);
                 }
             }
 
             @Override
             public void onError(@NonNull Exception e) {
+                if (e instanceof CancellationException) {
+                    return;
+                }
                 Log.e("EventDetailsActivity", "Failed to check waitlist status", e);
-                runOnUiThread(() -> {
-                    // Double-check organizer status before showing button
-                    if (event.getOrganizerId() != null && event.getOrganizerId().equals(deviceId)) {
-                        joinBtn.setVisibility(View.GONE);
-                        leaveBtn.setVisibility(View.GONE);
-                    } else {
-                        joinBtn.setVisibility(View.VISIBLE);
-                        leaveBtn.setVisibility(View.GONE);
-                    }
-                });
+                // Double-check organizer status before showing button
+                if (event.getOrganizerId() != null && event.getOrganizerId().equals(deviceId)) {
+                    joinBtn.setVisibility(View.GONE);
+                    leaveBtn.setVisibility(View.GONE);
+                } else {
+                    joinBtn.setVisibility(View.VISIBLE);
+                    leaveBtn.setVisibility(View.GONE);
+                }
             }
         });
     }
 
+    // Profile registration check started ahead of a join; not needed for organizers
+    private Deferred<Boolean> registration() {
+        if (registration == null) {
+            registration = joinController.registrationCheck(deviceId);
+        }
+        return registration;
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (statusCheck != null) {
+            statusCheck.cancel();
+        }
+        if (registration != null) {
+            registration.cancel();
+        }
+    }
+
     /**
      * Shows confirmation dialog for joining waitlist.
      */
@@ -233,7 +282,7 @@ public class EventDetailsActivity extends AppCompatActivity {
      * Uses JoinWaitlistController to handle business logic.
      */
     private void performJoin() {
-        joinController.joinWaitlist(event, deviceId, new JoinWaitlistController.Callback() {
+        joinController.joinWaitlist(event, deviceId, registration(), new JoinWaitlistController.Callback() {
             @Override
             public void onResult(JoinWaitlistController.JoinResult result) {
                 runOnUiThread(() -> {
@@ -5,15 +5,24 @@
  */
 package ca.ualberta.codarc.codarc_events.views;
 
+import android.app.AlertDialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.InputType;
+import android.widget.EditText;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
+import java.util.Map;
+
 import com.google.android.material.button.MaterialButton;
+import com.google.android.material.switchmaterial.SwitchMaterial;
 
 import ca.ualberta.codarc.codarc_events.R;
+import ca.ualberta.codarc.codarc_events.data.EventDB;
+import ca.ualberta.codarc.codarc_events.data.ShardedCounter;
 import ca.ualberta.codarc.codarc_events.models.Event;
 import ca.ualberta.codarc.codarc_events.utils.Identity;
 
@@ -23,6 +32,10 @@ import ca.ualberta.codarc.codarc_events.utils.Identity;
 public class EventSettingsActivity extends AppCompatActivity {
 
     private Event event;
+    // Set while the switch is flipped back after a failed save
+    private boolean revertingAutoBackfill;
+    private MaterialButton invitationExpiryBtn;
+    private MaterialButton counterShardsBtn;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -78,5 +91,144 @@ public class EventSettingsActivity extends AppCompatActivity {
             intent.putExtra("eventId", event.getId());
             startActivity(intent);
         });
+
+        SwitchMaterial autoBackfillSwitch = findViewById(R.id.switch_auto_backfill);
+        autoBackfillSwitch.setChecked(event.isAutoBackfill());
+        autoBackfillSwitch.setOnCheckedChangeListener((button, checked) -> {
+            if (revertingAutoBackfill) {
+                return;
+            }
+            button.setEnabled(false);
+            new EventDB().setAutoBackfill(event.getId(), checked, new EventDB.Callback<Void>() {
+                @Override
+                public void onSuccess(Void value) {
+                    event.setAutoBackfill(checked);
+                    button.setEnabled(true);
+                }
+
+                @Override
+                public void onError(@NonNull Exception e) {
+                    revertingAutoBackfill = true;
+                    button.setChecked(!checked);
+                    revertingAutoBackfill = false;
+                    button.setEnabled(true);
+                    Toast.makeText(EventSettingsActivity.this,
+                            "Failed to update auto-fill: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                }
+            });
+        });
+
+        invitationExpiryBtn = findViewById(R.id.btn_invitation_expiry);
+        showInvitationExpiry();
+        invitationExpiryBtn.setOnClickListener(v -> showInvitationExpiryDialog());
+
+        counterShardsBtn = findViewById(R.id.btn_counter_shards);
+        showCounterShards();
+        counterShardsBtn.setOnClickListener(v -> showCounterShardsDialog());
+    }
+
+    private void showInvitationExpiry() {
+        Integer hours = event.getInvitationTtlHours();
+        invitationExpiryBtn.setText(hours != null
+                ? "Invitation Expiry: " + hours + " h"
+                : "Invitation Expiry: Never");
+    }
+
+    private void showInvitationExpiryDialog() {
+        EditText input = new EditText(this);
+        input.setInputType(InputType.TYPE_CLASS_NUMBER);
+        input.setHint("Hours (leave empty for never)");
+        if (event.getInvitationTtlHours() != null) {
+            input.setText(String.valueOf(event.getInvitationTtlHours()));
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Invitation Expiry")
+                .setMessage("Winners who do not respond within this many hours are moved to cancelled.")
+                .setView(input)
+                .setPositiveButton("Save", (d, w) -> saveInvitationExpiry(input.getText().toString().trim()))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void showCounterShards() {
+        int shards = event.getCounterShards();
+        counterShardsBtn.setText(shards > 0
+                ? "Join Counter Shards: " + shards
+                : "Join Counter Shards: Off");
+    }
+
+    private void showCounterShardsDialog() {
+        EditText input = new EditText(this);
+        input.setInputType(InputType.TYPE_CLASS_NUMBER);
+        input.setHint("Shards (0 for a single counter)");
+        if (event.getCounterShards() > 0) {
+            input.setText(String.valueOf(event.getCounterShards()));
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Join Counter Shards")
+                .setMessage("For events expecting many joins at once. Each shard takes about one join "
+                        + "per second; the waitlist is recounted when this changes.")
+                .setView(input)
+                .setPositiveButton("Save", (d, w) -> saveCounterShards(input.getText().toString().trim()))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void saveCounterShards(String text) {
+        int shards;
+        try {
+            shards = text.isEmpty() ? 0 : Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            Toast.makeText(this, "Invalid number", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (shards < 0 || shards > ShardedCounter.MAX_SHARDS) {
+            Toast.makeText(this, "Shards must be between 0 and " + ShardedCounter.MAX_SHARDS,
+                    Toast.LENGTH_SHORT).show();
+            return;
+        }
+        counterShardsBtn.setEnabled(false);
+        new EventDB().setCounterShards(event.getId(), shards, new EventDB.Callback<Map<String, Integer>>() {
+            @Override
+            public void onSuccess(Map<String, Integer> counts) {
+                event.setCounterShards(shards);
+                showCounterShards();
+                counterShardsBtn.setEnabled(true);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                counterShardsBtn.setEnabled(true);
+                Toast.makeText(EventSettingsActivity.this,
+                        "Failed to update counter shards: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void saveInvitationExpiry(String text) {
+        Integer hours;
+        try {
+            hours = text.isEmpty() ? null : Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            Toast.makeText(this, "Invalid number", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (hours != null && hours <= 0) {
+            Toast.makeText(this, "Hours must be greater than 0", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        new EventDB().setInvitationTtlHours(event.getId(), hours, new EventDB.Callback<Void>() {
+            @Override
+            public void onSuccess(Void value) {
+                event.setInvitationTtlHours(hours);
+                showInvitationExpiry();
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                Toast.makeText(EventSettingsActivity.this,
+                        "Failed to update invitation expiry: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 }
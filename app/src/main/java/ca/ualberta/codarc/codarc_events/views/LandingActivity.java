@@ -12,14 +12,16 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import com.google.android.material.button.MaterialButton;
 import ca.ualberta.codarc.codarc_events.R;
-import ca.ualberta.codarc.codarc_events.utils.Identity;
-import ca.ualberta.codarc.codarc_events.data.UserDB;
+import ca.ualberta.codarc.codarc_events.data.Session;
+import ca.ualberta.codarc.codarc_events.models.User;
+import ca.ualberta.codarc.codarc_events.utils.Deferred;
+import ca.ualberta.codarc.codarc_events.workers.InvitationExpiryWorker;
 
 /**
  * Launcher activity that verifies identity and routes to the event browser.
  * 
  * In the refactored structure:
- * - Creates a User document in the users collection (base identity)
+ * - Starts the app-wide Session, which creates a User document in the users collection (base identity)
  * - User document has role flags (all false by default)
  * - Entrants and Organizers documents are created later when user performs actions
  */
@@ -30,14 +32,21 @@ public class LandingActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_landing);
 
-        // Stage 0: device identification - create User document
-        String deviceId = Identity.getOrCreateDeviceId(this);
-        UserDB userDB = new UserDB();
-        userDB.ensureUserExists(deviceId, new UserDB.Callback<Void>() {
+        // Stage 0: device identification - the session creates the User document in the
+        // background and keeps the entrant's status for the rest of the app
+        Session.start(getApplicationContext()).userLoad().onMainThread().whenDone(new Deferred.Callback<User>() {
             @Override
-            public void onSuccess(Void value) {
+            public void onSuccess(User value) {
                 // Optional: brief confirmation toast per user story
                 // Toast.makeText(LandingActivity.this, "Identity verified", Toast.LENGTH_SHORT).show();
+
+                // Only organizers have invitations to expire; entrants drop any schedule
+                // left from earlier versions, which scheduled the sweep on every install
+                if (value.isOrganizer()) {
+                    InvitationExpiryWorker.schedule(getApplicationContext());
+                } else {
+                    InvitationExpiryWorker.cancel(getApplicationContext());
+                }
             }
 
             @Override
@@ -29,7 +29,7 @@ import ca.ualberta.codarc.codarc_events.R;
 import ca.ualberta.codarc.codarc_events.adapters.WaitlistAdapter;
 import ca.ualberta.codarc.codarc_events.data.EntrantDB;
 import ca.ualberta.codarc.codarc_events.data.EventDB;
-import ca.ualberta.codarc.codarc_events.models.Entrant;
+import ca.ualberta.codarc.codarc_events.data.ProfileBatch;
 
 /**
  * Displays list of entrants on the waitlist for an event.
@@ -72,7 +72,7 @@ public class ManageWaitlistActivity extends AppCompatActivity {
     }
 
     private void loadWaitlist() {
-        eventDB.getWaitlist(eventId, new EventDB.Callback<List<Map<String, Object>>>() {
+        eventDB.getEntrantsByStatus(eventId, EventDB.STATUS_WAITING, new EventDB.Callback<List<Map<String, Object>>>() {
             @Override
             public void onSuccess(List<Map<String, Object>> entries) {
                 if (entries == null || entries.isEmpty()) {
@@ -98,45 +98,40 @@ public class ManageWaitlistActivity extends AppCompatActivity {
             return;
         }
 
-        final int totalEntries = entries.size();
-        final int[] completed = {0};
-
+        List<String> deviceIds = new ArrayList<>();
         for (Map<String, Object> entry : entries) {
-            String deviceId = (String) entry.get("deviceId");
-            Object requestTimeObj = entry.get("requestTime");
-
-            entrantDB.getProfile(deviceId, new EntrantDB.Callback<Entrant>() {
-                @Override
-                public void onSuccess(Entrant entrant) {
-                    String name = deviceId;
-                    if (entrant != null && entrant.getName() != null && !entrant.getName().isEmpty()) {
-                        name = entrant.getName();
-                    }
-                    long timestamp = parseTimestamp(requestTimeObj);
-                    itemList.add(new WaitlistAdapter.WaitlistItem(deviceId, name, timestamp));
-                    
-                    checkAndUpdateUI(completed, totalEntries);
-                }
+            deviceIds.add((String) entry.get("deviceId"));
+        }
 
-                @Override
-                public void onError(@NonNull Exception e) {
-                    // use deviceId if can't get name
-                    long timestamp = parseTimestamp(requestTimeObj);
-                    itemList.add(new WaitlistAdapter.WaitlistItem(deviceId, deviceId, timestamp));
-                    
-                    checkAndUpdateUI(completed, totalEntries);
+        // One batched lookup instead of a read per entrant; names fall back to the device id
+        entrantDB.getProfiles(deviceIds, new EntrantDB.Callback<ProfileBatch>() {
+            @Override
+            public void onSuccess(ProfileBatch profiles) {
+                if (!profiles.getFailedIds().isEmpty()) {
+                    Log.w("ManageWaitlistActivity", "Failed to fetch " + profiles.getFailedIds().size() + " profiles");
                 }
-            });
-        }
+                showEntries(entries, profiles);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                Log.w("ManageWaitlistActivity", "Failed to fetch profiles", e);
+                showEntries(entries, ProfileBatch.empty());
+            }
+        });
     }
 
-    private void checkAndUpdateUI(int[] completed, int totalEntries) {
-        completed[0]++;
-        if (completed[0] == totalEntries) {
-            sortByTime();
-            adapter.notifyDataSetChanged();
-            hideEmptyState();
+    private void showEntries(List<Map<String, Object>> entries, ProfileBatch profiles) {
+        itemList.clear();
+        for (Map<String, Object> entry : entries) {
+            String deviceId = (String) entry.get("deviceId");
+            Object requestTimeObj = entry.get("joinedAt");
+            itemList.add(new WaitlistAdapter.WaitlistItem(deviceId, profiles.getDisplayName(deviceId),
+                    parseTimestamp(requestTimeObj)));
         }
+            sortByTime();
+        adapter.notifyDataSetChanged();
+        hideEmptyState();
     }
 
     private long parseTimestamp(Object requestTimeObj) {
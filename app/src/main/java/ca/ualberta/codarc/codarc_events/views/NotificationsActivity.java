@@ -61,7 +61,7 @@ public class NotificationsActivity extends AppCompatActivity {
 
         entrantDB = new EntrantDB();
         eventDB = new EventDB();
-        invitationController = new InvitationResponseController(eventDB, entrantDB);
+        invitationController = new InvitationResponseController(eventDB);
 
         recyclerView = findViewById(R.id.rv_notifications);
         emptyStateView = findViewById(R.id.tv_notifications_empty);
@@ -184,10 +184,17 @@ public class NotificationsActivity extends AppCompatActivity {
     }
 
     private void handleInvitationResponse(NotificationEntry entry, boolean accept) {
-        if (entry == null || entry.getId() == null) {
+        if (entry == null || entry.getId() == null || entry.isProcessing()) {
             return;
         }
+        // Show the answer right away and roll it back if the commit fails
+        boolean previousRead = entry.isRead();
+        String previousResponse = entry.getResponse();
+        long previousRespondedAt = entry.getRespondedAt();
         entry.setProcessing(true);
+        entry.setRead(true);
+        entry.setResponse(accept ? "accepted" : "declined");
+        entry.setRespondedAt(System.currentTimeMillis());
         adapter.updateItem(entry);
 
         InvitationResponseController.ResponseCallback callback = new InvitationResponseController.ResponseCallback() {
@@ -195,8 +202,6 @@ public class NotificationsActivity extends AppCompatActivity {
             public void onSuccess() {
                 runOnUiThread(() -> {
                     entry.setProcessing(false);
-                    entry.setRead(true);
-                    entry.setResponse(accept ? "accepted" : "declined");
                     adapter.updateItem(entry);
                     showResultDialog(accept);
                 });
@@ -206,6 +211,9 @@ public class NotificationsActivity extends AppCompatActivity {
             public void onError(@NonNull Exception e) {
                 runOnUiThread(() -> {
                     entry.setProcessing(false);
+                    entry.setRead(previousRead);
+                    entry.setResponse(previousResponse);
+                    entry.setRespondedAt(previousRespondedAt);
                     adapter.updateItem(entry);
                     Toast.makeText(NotificationsActivity.this, R.string.notification_response_error, Toast.LENGTH_SHORT).show();
                 });
@@ -19,6 +19,7 @@ import com.google.android.material.button.MaterialButton;
 
 import ca.ualberta.codarc.codarc_events.R;
 import ca.ualberta.codarc.codarc_events.data.EntrantDB;
+import ca.ualberta.codarc.codarc_events.data.Session;
 import ca.ualberta.codarc.codarc_events.data.UserDB;
 import ca.ualberta.codarc.codarc_events.models.Entrant;
 import ca.ualberta.codarc.codarc_events.utils.Identity;
@@ -184,6 +185,7 @@ public class ProfileCreationActivity extends AppCompatActivity {
                 userDB.setEntrantRole(deviceId, true, new UserDB.Callback<Void>() {
                     @Override
                     public void onSuccess(Void v) {
+                        Session.get(ProfileCreationActivity.this).reloadUser();
                         Toast.makeText(ProfileCreationActivity.this, "Profile created successfully", Toast.LENGTH_SHORT).show();
                         saveBtn.setEnabled(true);
                         finish();
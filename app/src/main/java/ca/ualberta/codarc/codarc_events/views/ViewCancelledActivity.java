@@ -20,7 +20,6 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.firebase.Timestamp;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -28,9 +27,13 @@ import java.util.Map;
 import ca.ualberta.codarc.codarc_events.R;
 import ca.ualberta.codarc.codarc_events.adapters.CancelledAdapter;
 import ca.ualberta.codarc.codarc_events.adapters.WaitlistAdapter;
+import ca.ualberta.codarc.codarc_events.controllers.DrawController;
+import ca.ualberta.codarc.codarc_events.data.DispatchResult;
+import ca.ualberta.codarc.codarc_events.data.DrawLease;
 import ca.ualberta.codarc.codarc_events.data.EntrantDB;
 import ca.ualberta.codarc.codarc_events.data.EventDB;
-import ca.ualberta.codarc.codarc_events.models.Entrant;
+import ca.ualberta.codarc.codarc_events.data.NotificationDispatcher;
+import ca.ualberta.codarc.codarc_events.data.ProfileBatch;
 import ca.ualberta.codarc.codarc_events.models.Event;
 import ca.ualberta.codarc.codarc_events.utils.Identity;
 
@@ -44,6 +47,7 @@ public class ViewCancelledActivity extends AppCompatActivity {
     private TextView emptyState;
     private EventDB eventDB;
     private EntrantDB entrantDB;
+    private DrawController drawController;
     private String eventId;
     private List<WaitlistAdapter.WaitlistItem> itemList;
     private Button notifyButton;
@@ -63,6 +67,7 @@ public class ViewCancelledActivity extends AppCompatActivity {
 
         eventDB = new EventDB();
         entrantDB = new EntrantDB();
+        drawController = new DrawController(eventDB, entrantDB);
         itemList = new ArrayList<>();
 
         recyclerView = findViewById(R.id.rv_entrants);
@@ -133,42 +138,39 @@ public class ViewCancelledActivity extends AppCompatActivity {
             return;
         }
 
-        final int totalEntries = entries.size();
-        final int[] completed = {0};
-
+        List<String> deviceIds = new ArrayList<>();
         for (Map<String, Object> entry : entries) {
-            String deviceId = (String) entry.get("deviceId");
-            Object invitedAtObj = entry.get("invitedAt");
+            deviceIds.add((String) entry.get("deviceId"));
+        }
 
-            entrantDB.getProfile(deviceId, new EntrantDB.Callback<Entrant>() {
-                @Override
-                public void onSuccess(Entrant entrant) {
-                    String name = deviceId;
-                    if (entrant != null && entrant.getName() != null && !entrant.getName().isEmpty()) {
-                        name = entrant.getName();
-                    }
-                    long timestamp = parseTimestamp(invitedAtObj);
-                    itemList.add(new WaitlistAdapter.WaitlistItem(deviceId, name, timestamp));
-
-                    checkAndUpdateUI(completed, totalEntries);
+        // One batched lookup instead of a read per entrant; names fall back to the device id
+        entrantDB.getProfiles(deviceIds, new EntrantDB.Callback<ProfileBatch>() {
+            @Override
+            public void onSuccess(ProfileBatch profiles) {
+                if (!profiles.getFailedIds().isEmpty()) {
+                    Log.w("ViewCancelledActivity", "Failed to fetch " + profiles.getFailedIds().size() + " profiles");
                 }
+                showEntries(entries, profiles);
+            }
 
-                @Override
-                public void onError(@NonNull Exception e) {
-                    long timestamp = parseTimestamp(invitedAtObj);
-                    itemList.add(new WaitlistAdapter.WaitlistItem(deviceId, deviceId, timestamp));
-                    checkAndUpdateUI(completed, totalEntries);
-                }
-            });
-        }
+            @Override
+            public void onError(@NonNull Exception e) {
+                Log.w("ViewCancelledActivity", "Failed to fetch profiles", e);
+                showEntries(entries, ProfileBatch.empty());
+            }
+        });
     }
 
-    private void checkAndUpdateUI(int[] completed, int totalEntries) {
-        completed[0]++;
-        if (completed[0] == totalEntries) {
-            adapter.notifyDataSetChanged();
-            hideEmptyState();
+    private void showEntries(List<Map<String, Object>> entries, ProfileBatch profiles) {
+        itemList.clear();
+        for (Map<String, Object> entry : entries) {
+            String deviceId = (String) entry.get("deviceId");
+            Object invitedAtObj = entry.get("invitedAt");
+            itemList.add(new WaitlistAdapter.WaitlistItem(deviceId, profiles.getDisplayName(deviceId),
+                    parseTimestamp(invitedAtObj)));
         }
+        adapter.notifyDataSetChanged();
+        hideEmptyState();
     }
 
     private long parseTimestamp(Object timestampObj) {
@@ -204,44 +206,25 @@ public class ViewCancelledActivity extends AppCompatActivity {
     }
 
     private void drawReplacement(String cancelledDeviceId) {
-        eventDB.getWaitlist(eventId, new EventDB.Callback<List<Map<String, Object>>>() {
+        // One indexed read on the random key, promoted and notified in one transaction
+        drawController.drawReplacement(eventId, new DrawController.ReplacementCallback() {
             @Override
-            public void onSuccess(List<Map<String, Object>> waitlist) {
-                if (waitlist == null || waitlist.isEmpty()) {
+            public void onSuccess(String replacementId) {
+                if (replacementId == null) {
                     Toast.makeText(ViewCancelledActivity.this, "No entrants available for replacement", Toast.LENGTH_SHORT).show();
                     return;
                 }
-
-                Collections.shuffle(waitlist);
-                if (waitlist.isEmpty() || waitlist.get(0) == null) {
-                    Toast.makeText(ViewCancelledActivity.this, "No valid entrants available", Toast.LENGTH_SHORT).show();
-                    return;
-                }
-
-                Object deviceIdObj = waitlist.get(0).get("deviceId");
-                if (deviceIdObj == null) {
-                    Toast.makeText(ViewCancelledActivity.this, "Invalid entrant data", Toast.LENGTH_SHORT).show();
-                    return;
-                }
-                String replacementId = deviceIdObj.toString();
-
-                eventDB.markReplacement(eventId, replacementId, new EventDB.Callback<Void>() {
-                    @Override
-                    public void onSuccess(Void ignore) {
-                        Toast.makeText(ViewCancelledActivity.this, "Replacement drawn successfully", Toast.LENGTH_SHORT).show();
-                        loadCancelled();
-                    }
-
-                    @Override
-                    public void onError(@NonNull Exception e) {
-                        Toast.makeText(ViewCancelledActivity.this, "Failed to draw replacement: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    }
-                });
+                Toast.makeText(ViewCancelledActivity.this, "Replacement drawn successfully", Toast.LENGTH_SHORT).show();
+                loadCancelled();
             }
 
             @Override
             public void onError(@NonNull Exception e) {
-                Toast.makeText(ViewCancelledActivity.this, "Failed to load waitlist: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                if (e instanceof DrawLease.HeldException) {
+                    Toast.makeText(ViewCancelledActivity.this, "A draw for this event is running on another device; try again later", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                Toast.makeText(ViewCancelledActivity.this, "Failed to draw replacement: " + e.getMessage(), Toast.LENGTH_SHORT).show();
             }
         });
     }
@@ -267,42 +250,36 @@ public class ViewCancelledActivity extends AppCompatActivity {
         isNotifying = true;
         updateNotifyButtonState();
 
-        final int total = itemList.size();
-        final int[] completed = {0};
-        final int[] failed = {0};
-        String message = getString(R.string.notification_message_cancelled);
-
+        List<String> recipients = new ArrayList<>();
         for (WaitlistAdapter.WaitlistItem item : itemList) {
-            entrantDB.addNotification(item.getDeviceId(), eventId, message, "cancelled", new EntrantDB.Callback<Void>() {
-                @Override
-                public void onSuccess(Void value) {
-                    handleNotificationCompletion(completed, failed, total, R.string.notification_sent_cancelled);
-                }
-
-                @Override
-                public void onError(@NonNull Exception e) {
-                    failed[0]++;
-                    handleNotificationCompletion(completed, failed, total, R.string.notification_sent_cancelled);
-                }
-            });
+            recipients.add(item.getDeviceId());
         }
+        String message = getString(R.string.notification_message_cancelled);
+        // Each press is its own round; retries inside one send reuse the same ids
+        String round = String.valueOf(System.currentTimeMillis());
+        new NotificationDispatcher().dispatch(recipients, eventId, "cancelled", round, message,
+                new NotificationDispatcher.Listener() {
+            @Override
+            public void onProgress(int delivered, int failed, int total) { }
+
+            @Override
+            public void onComplete(DispatchResult result) {
+                handleNotificationCompletion(result, R.string.notification_sent_cancelled);
+            }
+        });
     }
 
-    private void handleNotificationCompletion(int[] completed, int[] failed, int total, int successMessageRes) {
-        completed[0]++;
-        if (completed[0] == total) {
-            runOnUiThread(() -> {
-                isNotifying = false;
-                updateNotifyButtonState();
-                if (failed[0] == 0) {
-                    Toast.makeText(ViewCancelledActivity.this, successMessageRes, Toast.LENGTH_SHORT).show();
-                } else if (failed[0] == total) {
-                    Toast.makeText(ViewCancelledActivity.this, R.string.notification_all_failed, Toast.LENGTH_SHORT).show();
-                } else {
-                    String message = getString(R.string.notification_partial_failure, failed[0]);
-                    Toast.makeText(ViewCancelledActivity.this, message, Toast.LENGTH_SHORT).show();
-                }
-            });
+    private void handleNotificationCompletion(DispatchResult result, int successMessageRes) {
+        isNotifying = false;
+        updateNotifyButtonState();
+        int failed = result.getFailedCount();
+        if (failed == 0) {
+            Toast.makeText(ViewCancelledActivity.this, successMessageRes, Toast.LENGTH_SHORT).show();
+        } else if (failed == result.getTotal()) {
+            Toast.makeText(ViewCancelledActivity.this, R.string.notification_all_failed, Toast.LENGTH_SHORT).show();
+        } else {
+            String message = getString(R.string.notification_partial_failure, failed);
+            Toast.makeText(ViewCancelledActivity.this, message, Toast.LENGTH_SHORT).show();
         }
     }
 
@@ -26,7 +26,7 @@ import ca.ualberta.codarc.codarc_events.R;
 import ca.ualberta.codarc.codarc_events.adapters.WinnersAdapter;
 import ca.ualberta.codarc.codarc_events.data.EntrantDB;
 import ca.ualberta.codarc.codarc_events.data.EventDB;
-import ca.ualberta.codarc.codarc_events.models.Entrant;
+import ca.ualberta.codarc.codarc_events.data.ProfileBatch;
 import ca.ualberta.codarc.codarc_events.models.Event;
 import ca.ualberta.codarc.codarc_events.utils.Identity;
 
@@ -96,7 +96,7 @@ public class ViewWinnersActivity extends AppCompatActivity {
     }
 
     private void loadWinners() {
-        eventDB.getWinners(eventId, new EventDB.Callback<List<Map<String, Object>>>() {
+        eventDB.getEntrantsByStatus(eventId, EventDB.STATUS_WINNER, new EventDB.Callback<List<Map<String, Object>>>() {
             @Override
             public void onSuccess(List<Map<String, Object>> entries) {
                 if (entries == null || entries.isEmpty()) {
@@ -121,41 +121,41 @@ public class ViewWinnersActivity extends AppCompatActivity {
             return;
         }
 
-        final int totalEntries = entries.size();
-        final int[] completed = {0};
-
+        List<String> deviceIds = new ArrayList<>();
         for (Map<String, Object> entry : entries) {
-            String deviceId = (String) entry.get("deviceId");
-            Object invitedAtObj = entry.get("invitedAt");
-            Object isEnrolledObj = entry.get("is_enrolled");
-            final Boolean isEnrolled = (isEnrolledObj instanceof Boolean) ? (Boolean) isEnrolledObj : null;
-
-            entrantDB.getProfile(deviceId, new EntrantDB.Callback<Entrant>() {
-                @Override
-                public void onSuccess(Entrant entrant) {
-                    String name = (entrant != null && entrant.getName() != null && !entrant.getName().isEmpty())
-                            ? entrant.getName() : deviceId;
-                    long timestamp = parseTimestamp(invitedAtObj);
-                    itemList.add(new WinnersAdapter.WinnerItem(deviceId, name, timestamp, isEnrolled));
-                    checkAndUpdateUI(completed, totalEntries);
-                }
+            deviceIds.add((String) entry.get("deviceId"));
+        }
 
-                @Override
-                public void onError(@NonNull Exception e) {
-                    long timestamp = parseTimestamp(invitedAtObj);
-                    itemList.add(new WinnersAdapter.WinnerItem(deviceId, deviceId, timestamp, isEnrolled));
-                    checkAndUpdateUI(completed, totalEntries);
+        // One batched lookup instead of a read per entrant; names fall back to the device id
+        entrantDB.getProfiles(deviceIds, new EntrantDB.Callback<ProfileBatch>() {
+            @Override
+            public void onSuccess(ProfileBatch profiles) {
+                if (!profiles.getFailedIds().isEmpty()) {
+                    Log.w("ViewWinnersActivity", "Failed to fetch " + profiles.getFailedIds().size() + " profiles");
                 }
-            });
-        }
+                showEntries(entries, profiles);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                Log.w("ViewWinnersActivity", "Failed to fetch profiles", e);
+                showEntries(entries, ProfileBatch.empty());
+            }
+        });
     }
 
-    private void checkAndUpdateUI(int[] completed, int totalEntries) {
-        completed[0]++;
-        if (completed[0] == totalEntries) {
-            adapter.notifyDataSetChanged();
-            hideEmptyState();
+    private void showEntries(List<Map<String, Object>> entries, ProfileBatch profiles) {
+        itemList.clear();
+        for (Map<String, Object> entry : entries) {
+            String deviceId = (String) entry.get("deviceId");
+            Object invitedAtObj = entry.get("invitedAt");
+            Object isEnrolledObj = entry.get("is_enrolled");
+            Boolean isEnrolled = (isEnrolledObj instanceof Boolean) ? (Boolean) isEnrolledObj : null;
+            itemList.add(new WinnersAdapter.WinnerItem(deviceId, profiles.getDisplayName(deviceId),
+                    parseTimestamp(invitedAtObj), isEnrolled));
         }
+        adapter.notifyDataSetChanged();
+        hideEmptyState();
     }
 
     private long parseTimestamp(Object timestampObj) {
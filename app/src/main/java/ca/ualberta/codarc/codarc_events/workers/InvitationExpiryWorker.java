@@ -0,0 +1,96 @@
+/*
+ * Background job that periodically runs the invitation expiry sweep for events organized
+ * on this device.
+ * Outstanding issues: None currently identified.
+ */
+package ca.ualberta.codarc.codarc_events.workers;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import ca.ualberta.codarc.codarc_events.controllers.InvitationExpirySweeper;
+import ca.ualberta.codarc.codarc_events.data.EventDB;
+import ca.ualberta.codarc.codarc_events.utils.Identity;
+
+/**
+ * Runs {@link InvitationExpirySweeper} about once an hour, only on a network connection
+ * and when the battery is not low. WorkManager retries the run with backoff if any
+ * event failed to sweep.
+ */
+public class InvitationExpiryWorker extends Worker {
+
+    static final String UNIQUE_WORK_NAME = "invitation-expiry-sweep";
+    private static final long INTERVAL_HOURS = 1;
+    // WorkManager stops a worker after 10 minutes; give up a little before that
+    private static final long SWEEP_TIMEOUT_MINUTES = 8;
+
+    public InvitationExpiryWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /** Schedules the periodic sweep; keeps the existing schedule if one is queued. */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                InvitationExpiryWorker.class, INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 10, TimeUnit.MINUTES)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                UNIQUE_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /** Removes the periodic sweep, e.g. on a device whose user organizes no events. */
+    public static void cancel(Context context) {
+        WorkManager.getInstance(context).cancelUniqueWork(UNIQUE_WORK_NAME);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String deviceId = Identity.getOrCreateDeviceId(getApplicationContext());
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicBoolean succeeded = new AtomicBoolean(false);
+
+        // Firestore callbacks arrive on the main thread; this worker thread just waits
+        new InvitationExpirySweeper(new EventDB()).sweep(deviceId, new InvitationExpirySweeper.SweepCallback() {
+            @Override
+            public void onComplete(int expired, int backfilled, int failedEvents) {
+                succeeded.set(failedEvents == 0);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                android.util.Log.e("InvitationExpiryWorker", "Invitation expiry sweep failed", e);
+                done.countDown();
+            }
+        });
+
+        try {
+            if (!done.await(SWEEP_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                return Result.retry();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+        return succeeded.get() ? Result.success() : Result.retry();
+    }
+}
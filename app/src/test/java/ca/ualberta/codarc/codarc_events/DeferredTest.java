@@ -0,0 +1,175 @@
+package ca.ualberta.codarc.codarc_events;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import ca.ualberta.codarc.codarc_events.utils.Deferred;
+
+/**
+ * Unit tests for the async composition helpers used by the join and status flows.
+ */
+public class DeferredTest {
+
+    // Records the outcome delivered to a callback
+    private static class Outcome<T> implements Deferred.Callback<T> {
+        final CountDownLatch done = new CountDownLatch(1);
+        T value;
+        Exception error;
+
+        @Override
+        public void onSuccess(T value) {
+            this.value = value;
+            done.countDown();
+        }
+
+        @Override
+        public void onError(@NonNull Exception e) {
+            this.error = e;
+            done.countDown();
+        }
+    }
+
+    @Test
+    public void ofEvent_deliversCallbackResult() {
+        Outcome<String> outcome = new Outcome<>();
+
+        Deferred.<String>ofEvent(cb -> cb.onSuccess("E1")).whenDone(outcome);
+
+        assertEquals("E1", outcome.value);
+    }
+
+    @Test
+    public void allOf_waitsForEveryInput() {
+        Deferred<String> first = new Deferred<>();
+        Deferred<Integer> second = new Deferred<>();
+        Outcome<Void> outcome = new Outcome<>();
+        Deferred.allOf(first, second).whenDone(outcome);
+
+        first.complete("E1");
+        assertEquals(1, outcome.done.getCount());
+        second.complete(3);
+
+        assertEquals(0, outcome.done.getCount());
+        assertNull(outcome.error);
+        assertEquals(Integer.valueOf(3), second.getNow());
+    }
+
+    @Test
+    public void allOf_failsFastAndCancelsTheRest() {
+        Deferred<String> slow = new Deferred<>();
+        Deferred<String> failing = new Deferred<>();
+        AtomicBoolean slowCancelled = new AtomicBoolean();
+        slow.onCancel(() -> slowCancelled.set(true));
+        Outcome<Void> outcome = new Outcome<>();
+        Deferred.allOf(slow, failing).whenDone(outcome);
+
+        failing.fail(new IllegalStateException("offline"));
+
+        assertEquals("offline", outcome.error.getMessage());
+        assertTrue(slow.isCancelled());
+        assertTrue(slowCancelled.get());
+        assertFalse(slow.complete("late"));
+    }
+
+    @Test
+    public void anyOf_takesFirstSuccessAndIgnoresEarlierFailures() {
+        Deferred<String> failing = new Deferred<>();
+        Deferred<String> winner = new Deferred<>();
+        Deferred<String> loser = new Deferred<>();
+        Outcome<String> outcome = new Outcome<>();
+        Deferred.anyOf(Arrays.asList(failing, winner, loser)).whenDone(outcome);
+
+        failing.fail(new IllegalStateException("offline"));
+        winner.complete("cache");
+
+        assertEquals("cache", outcome.value);
+        assertTrue(loser.isCancelled());
+    }
+
+    @Test
+    public void anyOf_failsWhenEveryInputFails() {
+        Deferred<String> first = new Deferred<>();
+        Deferred<String> second = new Deferred<>();
+        Outcome<String> outcome = new Outcome<>();
+        Deferred.anyOf(Arrays.asList(first, second)).whenDone(outcome);
+
+        first.fail(new IllegalStateException("one"));
+        assertEquals(1, outcome.done.getCount());
+        second.fail(new IllegalStateException("two"));
+
+        assertEquals("two", outcome.error.getMessage());
+    }
+
+    @Test
+    public void thenAndMap_chainSteps() {
+        Deferred<Integer> source = new Deferred<>();
+        Outcome<String> outcome = new Outcome<>();
+        source.then(count -> Deferred.completed(count + 1))
+                .map(count -> "count=" + count)
+                .whenDone(outcome);
+
+        source.complete(41);
+
+        assertEquals("count=42", outcome.value);
+    }
+
+    @Test
+    public void recover_replacesError() {
+        Outcome<Boolean> outcome = new Outcome<>();
+
+        Deferred.<Boolean>failed(new IllegalStateException("offline"))
+                .recover(e -> Deferred.completed(false))
+                .whenDone(outcome);
+
+        assertEquals(Boolean.FALSE, outcome.value);
+    }
+
+    @Test
+    public void withTimeout_failsAndCancelsSource() throws InterruptedException {
+        Deferred<String> never = new Deferred<>();
+        CountDownLatch hookRan = new CountDownLatch(1);
+        never.onCancel(hookRan::countDown);
+        Outcome<String> outcome = new Outcome<>();
+
+        never.withTimeout(20).whenDone(outcome);
+
+        assertTrue(outcome.done.await(5, TimeUnit.SECONDS));
+        assertTrue(outcome.error instanceof TimeoutException);
+        assertTrue(hookRan.await(5, TimeUnit.SECONDS));
+        assertTrue(never.isCancelled());
+    }
+
+    @Test
+    public void withTimeout_passesValueArrivingInTime() {
+        Deferred<String> source = new Deferred<>();
+        Outcome<String> outcome = new Outcome<>();
+        source.withTimeout(5000).whenDone(outcome);
+
+        source.complete("E1");
+
+        assertEquals("E1", outcome.value);
+    }
+
+    @Test
+    public void cancel_dropsLateResult() {
+        Deferred<String> source = new Deferred<>();
+        Outcome<String> outcome = new Outcome<>();
+        source.whenDone(outcome);
+
+        assertTrue(source.cancel());
+        assertFalse(source.complete("late"));
+
+        assertTrue(outcome.error instanceof CancellationException);
+        assertNull(outcome.value);
+        assertFalse(source.cancel());
+    }
+}
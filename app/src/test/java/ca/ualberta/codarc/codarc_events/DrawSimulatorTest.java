@@ -0,0 +1,75 @@
+package ca.ualberta.codarc.codarc_events;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import ca.ualberta.codarc.codarc_events.controllers.DrawSimulator;
+
+/**
+ * Unit tests for the Monte Carlo draw sizing.
+ */
+public class DrawSimulatorTest {
+
+    private static DrawSimulator simulator(long seed) {
+        return new DrawSimulator(ForkJoinPool.commonPool(), seed, 20000,
+                DrawSimulator.DEFAULT_TARGET_FILL_PROBABILITY,
+                DrawSimulator.DEFAULT_MAX_OVERFLOW_PROBABILITY);
+    }
+
+    @Test
+    public void params_smoothsAcceptRate() {
+        assertEquals(0.5, new DrawSimulator.Params(10, 5, 0, 0).getAcceptRate(), 1e-9);
+        assertEquals(9.0 / 12.0, new DrawSimulator.Params(10, 5, 8, 2).getAcceptRate(), 1e-9);
+    }
+
+    @Test
+    public void recommend_certainAcceptsNeedNoOverbookingOrPool() {
+        DrawSimulator.Recommendation rec = simulator(1).recommend(new DrawSimulator.Params(200, 20, 5000, 0));
+
+        assertEquals(20, rec.getNumWinners());
+        assertEquals(0, rec.getReplacementPoolSize());
+        assertTrue(rec.getFullProbability() >= DrawSimulator.DEFAULT_TARGET_FILL_PROBABILITY);
+    }
+
+    @Test
+    public void recommend_lowAcceptRateOverbooksAndKeepsPool() {
+        DrawSimulator.Recommendation rec = simulator(2).recommend(new DrawSimulator.Params(500, 20, 40, 60));
+
+        assertTrue(rec.getNumWinners() > 20);
+        assertTrue(rec.getOverflowProbability() <= DrawSimulator.DEFAULT_MAX_OVERFLOW_PROBABILITY);
+        assertTrue(rec.getReplacementPoolSize() > 0);
+        assertTrue(rec.getFullProbability() >= DrawSimulator.DEFAULT_TARGET_FILL_PROBABILITY);
+        assertTrue(rec.getNumWinners() + rec.getReplacementPoolSize() <= 500);
+    }
+
+    @Test
+    public void recommend_intervalsContainEstimates() {
+        DrawSimulator.Recommendation rec = simulator(3).recommend(new DrawSimulator.Params(100, 30, 10, 10));
+
+        DrawSimulator.Interval full = rec.getFullProbabilityInterval();
+        assertTrue(full.getLow() <= rec.getFullProbability() && rec.getFullProbability() <= full.getHigh());
+        DrawSimulator.Interval filled = rec.getMeanFilledInterval();
+        assertTrue(filled.getLow() <= rec.getMeanFilled() && rec.getMeanFilled() <= filled.getHigh());
+        assertTrue(rec.getMeanFilled() <= 30);
+    }
+
+    @Test
+    public void recommend_isReproducibleWithSameSeed() {
+        DrawSimulator.Params params = new DrawSimulator.Params(300, 25, 12, 8);
+        DrawSimulator.Recommendation first = simulator(7).recommend(params);
+        DrawSimulator.Recommendation second = simulator(7).recommend(params);
+
+        assertEquals(first.getNumWinners(), second.getNumWinners());
+        assertEquals(first.getReplacementPoolSize(), second.getReplacementPoolSize());
+        assertEquals(first.getMeanFilled(), second.getMeanFilled(), 0.0);
+    }
+
+    @Test
+    public void recommend_noSeatsDrawsNobody() {
+        DrawSimulator.Recommendation rec = simulator(4).recommend(new DrawSimulator.Params(50, 0, 3, 1));
+        assertEquals(0, rec.getNumWinners());
+        assertEquals(0, rec.getReplacementPoolSize());
+    }
+}
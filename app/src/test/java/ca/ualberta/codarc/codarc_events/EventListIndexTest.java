@@ -0,0 +1,156 @@
+package ca.ualberta.codarc.codarc_events;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.ualberta.codarc.codarc_events.data.EventListIndex;
+import ca.ualberta.codarc.codarc_events.models.Event;
+
+/**
+ * Unit tests for incremental event-list updates.
+ */
+public class EventListIndexTest {
+
+    private final List<String> calls = new ArrayList<>();
+
+    private EventListIndex newIndex(String... ids) {
+        EventListIndex index = new EventListIndex();
+        List<Event> events = new ArrayList<>();
+        List<Map<String, Object>> data = new ArrayList<>();
+        for (String id : ids) {
+            events.add(event(id));
+            data.add(data(id, 0));
+        }
+        index.reset(events, data);
+        index.setListener(new EventListIndex.Listener() {
+            @Override
+            public void onInserted(int position) { calls.add("insert " + position); }
+
+            @Override
+            public void onChanged(int position) { calls.add("change " + position); }
+
+            @Override
+            public void onRemoved(int position) { calls.add("remove " + position); }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                calls.add("move " + fromPosition + "->" + toPosition);
+            }
+
+            @Override
+            public void onReset() { calls.add("reset"); }
+        });
+        return index;
+    }
+
+    private static Event event(String id) {
+        Event e = new Event();
+        e.setId(id);
+        return e;
+    }
+
+    private static Map<String, Object> data(String id, int waitlist) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("name", id);
+        map.put("waitlistCount", waitlist);
+        return map;
+    }
+
+    @Test
+    public void added_insertsAtReportedIndex() {
+        EventListIndex index = newIndex("E1", "E3");
+        assertTrue(index.apply(EventListIndex.ChangeType.ADDED, -1, 1, "E2", event("E2"), data("E2", 0)));
+
+        assertEquals("E2", index.getEvents().get(1).getId());
+        assertEquals(Collections.singletonList("insert 1"), calls);
+    }
+
+    @Test
+    public void modified_withSameData_isIgnored() {
+        EventListIndex index = newIndex("E1", "E2");
+        assertTrue(index.apply(EventListIndex.ChangeType.MODIFIED, 1, 1, "E2", event("E2"), data("E2", 0)));
+        assertTrue(calls.isEmpty());
+
+        assertTrue(index.apply(EventListIndex.ChangeType.MODIFIED, 1, 1, "E2", event("E2"), data("E2", 5)));
+        assertEquals(Collections.singletonList("change 1"), calls);
+    }
+
+    @Test
+    public void modified_withNewIndex_moves() {
+        EventListIndex index = newIndex("E1", "E2", "E3");
+        assertTrue(index.apply(EventListIndex.ChangeType.MODIFIED, 0, 2, "E1", event("E1"), data("E1", 1)));
+
+        assertEquals("E1", index.getEvents().get(2).getId());
+        assertEquals(Arrays.asList("move 0->2", "change 2"), calls);
+    }
+
+    @Test
+    public void removed_dropsEntry() {
+        EventListIndex index = newIndex("E1", "E2");
+        assertTrue(index.apply(EventListIndex.ChangeType.REMOVED, 0, -1, "E1", null, null));
+
+        assertEquals(1, index.size());
+        assertFalse(index.contains("E1"));
+        assertEquals(Collections.singletonList("remove 0"), calls);
+    }
+
+    @Test
+    public void mismatchedIndex_isRejected() {
+        EventListIndex index = newIndex("E1", "E2");
+        assertFalse(index.apply(EventListIndex.ChangeType.REMOVED, 0, -1, "E2", null, null));
+        assertEquals(2, index.size());
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    public void appendPage_skipsKnownEventsAndKeepsLiveSize() {
+        EventListIndex index = newIndex("E1", "E2");
+        int appended = index.appendPage(Arrays.asList(event("E2"), event("E3")),
+                Arrays.asList(data("E2", 0), data("E3", 0)));
+
+        assertEquals(1, appended);
+        assertEquals(3, index.size());
+        assertEquals(2, index.getLiveSize());
+        assertEquals(Collections.singletonList("insert 2"), calls);
+    }
+
+    @Test
+    public void added_fromAppendedPage_movesIntoLivePage() {
+        EventListIndex index = newIndex("E1", "E2");
+        index.appendPage(Collections.singletonList(event("E3")),
+                Collections.singletonList(data("E3", 0)));
+        calls.clear();
+
+        assertTrue(index.apply(EventListIndex.ChangeType.ADDED, -1, 2, "E3", event("E3"), data("E3", 1)));
+        assertEquals(3, index.size());
+        assertEquals(3, index.getLiveSize());
+        assertEquals(Arrays.asList("remove 2", "insert 2"), calls);
+    }
+
+    @Test
+    public void pushedOutOfLivePage_staysAheadOfAppendedPages() {
+        EventListIndex index = newIndex("E1", "E2");
+        index.appendPage(Collections.singletonList(event("E3")),
+                Collections.singletonList(data("E3", 0)));
+        calls.clear();
+
+        // A newer E0 fills the limited page: E2 is dropped from it, then E0 is added
+        assertTrue(index.pushOutOfLivePage(1, "E2"));
+        assertTrue(index.apply(EventListIndex.ChangeType.ADDED, -1, 0, "E0", event("E0"), data("E0", 0)));
+
+        List<String> ids = new ArrayList<>();
+        for (Event e : index.getEvents()) {
+            ids.add(e.getId());
+        }
+        assertEquals(Arrays.asList("E0", "E1", "E2", "E3"), ids);
+        assertEquals(2, index.getLiveSize());
+        assertEquals(Collections.singletonList("insert 0"), calls);
+    }
+}
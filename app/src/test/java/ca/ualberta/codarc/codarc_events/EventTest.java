@@ -76,4 +76,32 @@ public class EventTest {
         event.setDescription(null);
         assertNull(event.getDescription());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void countersAreNullUntilSet() {
+        Event event = new Event();
+        assertNull(event.getWaitlistCount());
+        assertNull(event.getWinnersCount());
+
+        event.setWaitlistCount(12);
+        event.setWinnersCount(3);
+        event.setAcceptedCount(2);
+        event.setCancelledCount(1);
+        event.setReplacementPoolCount(0);
+
+        assertEquals(Integer.valueOf(12), event.getWaitlistCount());
+        assertEquals(Integer.valueOf(3), event.getWinnersCount());
+        assertEquals(Integer.valueOf(2), event.getAcceptedCount());
+        assertEquals(Integer.valueOf(1), event.getCancelledCount());
+        assertEquals(Integer.valueOf(0), event.getReplacementPoolCount());
+    }
+
+    @Test
+    public void autoBackfillIsOffByDefault() {
+        Event event = new Event();
+        assertFalse(event.isAutoBackfill());
+
+        event.setAutoBackfill(true);
+        assertTrue(event.isAutoBackfill());
+    }
+}
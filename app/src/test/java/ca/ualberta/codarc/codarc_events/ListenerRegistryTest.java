@@ -0,0 +1,177 @@
+package ca.ualberta.codarc.codarc_events;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ca.ualberta.codarc.codarc_events.data.EventDB;
+import ca.ualberta.codarc.codarc_events.data.ListenerRegistry;
+
+/**
+ * Unit tests for lifecycle-bound listener sharing.
+ */
+public class ListenerRegistryTest {
+
+    /** Minimal lifecycle that forwards start/stop/destroy to its observers. */
+    private static class FakeOwner extends Lifecycle implements LifecycleOwner {
+        private final List<DefaultLifecycleObserver> observers = new ArrayList<>();
+        private State state = State.CREATED;
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return this;
+        }
+
+        @Override
+        public void addObserver(@NonNull LifecycleObserver observer) {
+            DefaultLifecycleObserver o = (DefaultLifecycleObserver) observer;
+            observers.add(o);
+            if (state.isAtLeast(State.STARTED)) {
+                o.onStart(this);
+            }
+        }
+
+        @Override
+        public void removeObserver(@NonNull LifecycleObserver observer) {
+            observers.remove(observer);
+        }
+
+        @NonNull
+        @Override
+        public State getCurrentState() {
+            return state;
+        }
+
+        void start() {
+            state = State.STARTED;
+            for (DefaultLifecycleObserver o : new ArrayList<>(observers)) o.onStart(this);
+        }
+
+        void stop() {
+            state = State.CREATED;
+            for (DefaultLifecycleObserver o : new ArrayList<>(observers)) o.onStop(this);
+        }
+
+        void destroy() {
+            state = State.DESTROYED;
+            for (DefaultLifecycleObserver o : new ArrayList<>(observers)) o.onDestroy(this);
+        }
+    }
+
+    /** Source that counts attached listeners and lets the test push values. */
+    private static class FakeSource implements ListenerRegistry.Source<String> {
+        int attached;
+        int removed;
+        EventDB.Callback<String> current;
+
+        @Override
+        public com.google.firebase.firestore.ListenerRegistration listen(EventDB.Callback<String> cb) {
+            attached++;
+            current = cb;
+            return () -> {
+                removed++;
+                current = null;
+            };
+        }
+    }
+
+    private static class Recorder implements ListenerRegistry.Observer<String> {
+        final List<String> values = new ArrayList<>();
+        final List<Boolean> restarts = new ArrayList<>();
+
+        @Override
+        public void onValue(String value, boolean restarted) {
+            values.add(value);
+            restarts.add(restarted);
+        }
+
+        @Override
+        public void onError(@NonNull Exception e) { }
+    }
+
+    @Test
+    public void sameKey_sharesOneListener() {
+        ListenerRegistry registry = ListenerRegistry.getInstance();
+        FakeSource source = new FakeSource();
+        FakeOwner first = new FakeOwner();
+        FakeOwner second = new FakeOwner();
+        Recorder a = new Recorder();
+        Recorder b = new Recorder();
+
+        first.start();
+        registry.observe(first, "shared", source, a);
+        source.current.onSuccess("v1");
+        second.start();
+        registry.observe(second, "shared", source, b);
+        source.current.onSuccess("v2");
+
+        assertEquals(1, source.attached);
+        assertEquals(Arrays.asList("v1", "v2"), a.values);
+        assertEquals(Arrays.asList(true, false), a.restarts);
+        // The late observer gets the last value replayed as its restart value
+        assertEquals(Arrays.asList("v1", "v2"), b.values);
+        assertEquals(Arrays.asList(true, false), b.restarts);
+
+        first.destroy();
+        assertEquals(0, source.removed);
+        second.destroy();
+        assertEquals(1, source.removed);
+    }
+
+    @Test
+    public void restartedObserver_getsReplayMarkedAsRestart() {
+        ListenerRegistry registry = ListenerRegistry.getInstance();
+        FakeSource source = new FakeSource();
+        FakeOwner first = new FakeOwner();
+        FakeOwner second = new FakeOwner();
+        Recorder a = new Recorder();
+        Recorder b = new Recorder();
+
+        first.start();
+        second.start();
+        registry.observe(first, "restart", source, a);
+        registry.observe(second, "restart", source, b);
+        source.current.onSuccess("v1");
+        second.stop();
+        source.current.onSuccess("v2");
+        second.start();
+
+        assertEquals(1, source.attached);
+        assertEquals(Arrays.asList("v1", "v2"), b.values);
+        assertEquals(Arrays.asList(true, true), b.restarts);
+
+        first.destroy();
+        second.destroy();
+        assertEquals(1, source.removed);
+    }
+
+    @Test
+    public void stop_detachesAndStart_reattaches() {
+        ListenerRegistry registry = ListenerRegistry.getInstance();
+        FakeSource source = new FakeSource();
+        FakeOwner owner = new FakeOwner();
+        Recorder recorder = new Recorder();
+
+        registry.observe(owner, "paused", source, recorder);
+        assertEquals(0, source.attached);
+
+        owner.start();
+        owner.stop();
+        assertEquals(1, source.removed);
+
+        owner.start();
+        assertEquals(2, source.attached);
+        owner.destroy();
+        assertEquals(2, source.removed);
+    }
+}
@@ -0,0 +1,167 @@
+package ca.ualberta.codarc.codarc_events;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import ca.ualberta.codarc.codarc_events.controllers.AliasTable;
+import ca.ualberta.codarc.codarc_events.controllers.LotteryEngine;
+
+/**
+ * Unit tests for the partial Fisher-Yates lottery and its weighted alias-table mode.
+ */
+public class LotteryEngineTest {
+
+    private static String[] ids(int n) {
+        String[] ids = new String[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = "D" + i;
+        }
+        return ids;
+    }
+
+    @Test
+    public void draw_picksDistinctWinnersAndReplacements() {
+        LotteryEngine engine = new LotteryEngine(new Random(42));
+        LotteryEngine.Result result = engine.draw(ids(100), 10, 3);
+
+        Set<String> picked = new HashSet<>(result.getWinners());
+        picked.addAll(result.getReplacements());
+        assertEquals(10, result.getWinners().size());
+        assertEquals(3, result.getReplacements().size());
+        assertEquals(13, picked.size());
+    }
+
+    @Test
+    public void draw_clampsToAvailableEntrants() {
+        LotteryEngine engine = new LotteryEngine(new Random(1));
+        LotteryEngine.Result result = engine.draw(ids(4), 3, 5);
+
+        assertEquals(3, result.getWinners().size());
+        assertEquals(1, result.getReplacements().size());
+    }
+
+    @Test
+    public void draw_isReproducibleWithSameSeed() {
+        List<String> first = new LotteryEngine(new Random(7)).draw(ids(50), 5, 0).getWinners();
+        List<String> second = new LotteryEngine(new Random(7)).draw(ids(50), 5, 0).getWinners();
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void draw_isRoughlyUniform() {
+        LotteryEngine engine = new LotteryEngine(new Random(3));
+        int[] hits = new int[10];
+        int rounds = 20000;
+        for (int r = 0; r < rounds; r++) {
+            for (String id : engine.draw(ids(10), 1, 0).getWinners()) {
+                hits[Integer.parseInt(id.substring(1))]++;
+            }
+        }
+        for (int count : hits) {
+            assertEquals(rounds / 10.0, count, rounds * 0.01);
+        }
+    }
+
+    @Test
+    public void reservoir_keepsAtMostCapacity() {
+        LotteryEngine.Reservoir reservoir = new LotteryEngine(new Random(5)).newReservoir(3);
+        for (String id : ids(1000)) {
+            reservoir.offer(id);
+        }
+        assertEquals(1000, reservoir.getSeen());
+        assertEquals(3, reservoir.sample().length);
+        assertEquals(3, new HashSet<>(Arrays.asList(reservoir.sample())).size());
+    }
+
+    @Test
+    public void reservoir_isRoughlyUniform() {
+        LotteryEngine engine = new LotteryEngine(new Random(11));
+        int[] hits = new int[20];
+        int rounds = 20000;
+        for (int r = 0; r < rounds; r++) {
+            LotteryEngine.Reservoir reservoir = engine.newReservoir(2);
+            for (String id : ids(20)) {
+                reservoir.offer(id);
+            }
+            for (String id : reservoir.sample()) {
+                hits[Integer.parseInt(id.substring(1))]++;
+            }
+        }
+        for (int count : hits) {
+            assertEquals(rounds * 2 / 20.0, count, rounds * 0.01);
+        }
+    }
+
+    @Test
+    public void aliasTable_matchesWeights() {
+        AliasTable table = new AliasTable(new double[]{1, 2, 0, 7});
+        Random random = new Random(13);
+        int[] hits = new int[4];
+        int rounds = 100000;
+        for (int r = 0; r < rounds; r++) {
+            hits[table.sample(random)]++;
+        }
+        assertEquals(0.1, hits[0] / (double) rounds, 0.01);
+        assertEquals(0.2, hits[1] / (double) rounds, 0.01);
+        assertEquals(0, hits[2]);
+        assertEquals(0.7, hits[3] / (double) rounds, 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void aliasTable_rejectsAllZeroWeights() {
+        new AliasTable(new double[]{0, 0});
+    }
+
+    @Test
+    public void drawWeighted_picksDistinctAndSkipsZeroWeights() {
+        double[] weights = new double[20];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = i % 2 == 0 ? 0 : i;
+        }
+        LotteryEngine.Result result = new LotteryEngine(new Random(17)).drawWeighted(ids(20), weights, 6, 10);
+
+        Set<String> picked = new HashSet<>(result.getWinners());
+        picked.addAll(result.getReplacements());
+        assertEquals(6, result.getWinners().size());
+        assertEquals(4, result.getReplacements().size());
+        assertEquals(10, picked.size());
+        for (String id : picked) {
+            assertEquals(1, Integer.parseInt(id.substring(1)) % 2);
+        }
+    }
+
+    @Test
+    public void drawWeighted_favoursHeavierEntrants() {
+        LotteryEngine engine = new LotteryEngine(new Random(19));
+        double[] weights = {3, 1, 1, 1, 1, 1, 1, 1, 1, 1};
+        int[] hits = new int[10];
+        int rounds = 20000;
+        for (int r = 0; r < rounds; r++) {
+            for (String id : engine.drawWeighted(ids(10), weights, 1, 0).getWinners()) {
+                hits[Integer.parseInt(id.substring(1))]++;
+            }
+        }
+        assertEquals(rounds * 3 / 12.0, hits[0], rounds * 0.01);
+        assertEquals(rounds / 12.0, hits[5], rounds * 0.01);
+    }
+
+    @Test
+    public void drawWeighted_handlesLargeWaitlist() {
+        int n = 100000;
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = 1 + (i % 4);
+        }
+        LotteryEngine.Result result = new LotteryEngine(new Random(23)).drawWeighted(ids(n), weights, 5000, 500);
+
+        Set<String> picked = new HashSet<>(result.getWinners());
+        picked.addAll(result.getReplacements());
+        assertEquals(5500, picked.size());
+    }
+}
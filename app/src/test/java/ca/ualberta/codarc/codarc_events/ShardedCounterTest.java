@@ -0,0 +1,196 @@
+package ca.ualberta.codarc.codarc_events;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import ca.ualberta.codarc.codarc_events.data.ShardedCounter;
+
+/**
+ * Unit and load tests for the sharded waitlist counter. Joins go through
+ * {@link ShardedCounter#chooseShard}, as in EventDB.tryJoinWaitlist, against in-memory
+ * shards. The throughput test runs on a virtual clock where each shard document takes one
+ * write per second, with a seeded starting shard, so its result is the same on every
+ * machine. The contention test commits joins like Firestore transactions on real threads
+ * and asserts on counts only.
+ */
+public class ShardedCounterTest {
+
+    // Time one write holds a shard: Firestore's ~1 write/s per document, scaled down
+    private static final long WRITE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int THREADS = 32;
+
+    /** Shards that accept one commit at a time, joined the way EventDB.tryJoinWaitlist does. */
+    private static class SimulatedShards {
+        final AtomicLongArray counts;
+        final long[] limits;
+        final ReentrantLock[] locks;
+        final long writeNanos;
+
+        SimulatedShards(long capacity, int shards, long writeNanos) {
+            this.writeNanos = writeNanos;
+            counts = new AtomicLongArray(shards);
+            limits = ShardedCounter.limitsFor(capacity, 0, new long[shards]);
+            locks = new ReentrantLock[shards];
+            for (int i = 0; i < shards; i++) {
+                locks[i] = new ReentrantLock();
+            }
+        }
+
+        // Reads through chooseShard, then commits only if the chosen shard was not written
+        // since it was read, and runs the join again otherwise, like a Firestore transaction
+        boolean join() {
+            int shards = counts.length();
+            while (true) {
+                long[] seen = new long[shards];
+                int shard = ShardedCounter.chooseShard(shards, ThreadLocalRandom.current(), i -> {
+                    seen[i] = counts.get(i);
+                    return new long[] {seen[i], limits[i]};
+                });
+                if (shard == ShardedCounter.NO_ROOM) {
+                    return false;
+                }
+                locks[shard].lock();
+                try {
+                    if (counts.get(shard) == seen[shard]) {
+                        holdForWrite();
+                        counts.incrementAndGet(shard);
+                        return true;
+                    }
+                } finally {
+                    locks[shard].unlock();
+                }
+            }
+        }
+
+        long[] counts() {
+            long[] snapshot = new long[counts.length()];
+            for (int i = 0; i < snapshot.length; i++) {
+                snapshot[i] = counts.get(i);
+            }
+            return snapshot;
+        }
+
+        long total() {
+            long total = 0;
+            for (long count : counts()) {
+                total += count;
+            }
+            return total;
+        }
+
+        private void holdForWrite() {
+            if (writeNanos > 0) {
+                LockSupport.parkNanos(writeNanos);
+            }
+        }
+    }
+
+    /**
+     * Joins per second for a burst of joins on a virtual clock where each shard document
+     * takes one write per second: the burst is done when the busiest shard has written all
+     * of its joins.
+     */
+    private static double burstThroughput(int shards, int joins) {
+        long[] counts = new long[shards];
+        long[] limits = ShardedCounter.limitsFor(0, 0, counts);
+        Random random = new Random(42);
+        for (int j = 0; j < joins; j++) {
+            int shard = ShardedCounter.chooseShard(shards, random,
+                    i -> new long[] {counts[i], limits[i]});
+            counts[shard]++;
+        }
+        long busiest = 0;
+        for (long count : counts) {
+            busiest = Math.max(busiest, count);
+        }
+        return (double) joins / busiest;
+    }
+
+    // Runs the joins on THREADS threads
+    private static void runJoins(SimulatedShards shards, int joins, AtomicInteger admitted)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger tickets = new AtomicInteger(joins);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    while (tickets.getAndDecrement() > 0) {
+                        if (shards.join()) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+
+    @Test
+    public void limitsFor_splitsRemainingRoomAndKeepsCounts() {
+        // 4 on the waitlist, 2 of them outside any shard
+        long[] limits = ShardedCounter.limitsFor(10, 4, new long[] {1, 1, 0});
+
+        assertArrayEquals(new long[] {3, 3, 2}, limits);
+    }
+
+    @Test
+    public void limitsFor_fullEventLeavesNoRoom() {
+        long[] limits = ShardedCounter.limitsFor(5, 7, new long[] {3, 4});
+
+        assertArrayEquals(new long[] {3, 4}, limits);
+        assertFalse(ShardedCounter.hasRoom(3, limits[0]));
+    }
+
+    @Test
+    public void limitsFor_noCapacityIsUnlimited() {
+        long[] limits = ShardedCounter.limitsFor(0, 100, new long[] {50, 50});
+
+        assertEquals(ShardedCounter.UNLIMITED, limits[0]);
+        assertTrue(ShardedCounter.hasRoom(Long.MAX_VALUE - 1, limits[1]));
+    }
+
+    @Test
+    public void load_joinThroughputScalesWithShards() {
+        int joins = 4000;
+        double one = burstThroughput(1, joins);
+        double four = burstThroughput(4, joins);
+        double sixteen = burstThroughput(16, joins);
+
+        assertEquals(1.0, one, 0.0);
+        // Ideal scaling is linear; random starting shards keep it well above 3/4 of that
+        assertTrue("4 shards: " + four + " joins/s", four >= 3.0);
+        assertTrue("16 shards: " + sixteen + " joins/s", sixteen >= 12.0);
+    }
+
+    @Test
+    public void load_capacityIsExactUnderContention() throws InterruptedException {
+        SimulatedShards shards = new SimulatedShards(300, 8, WRITE_NANOS);
+        AtomicInteger admitted = new AtomicInteger();
+
+        runJoins(shards, 500, admitted);
+
+        assertEquals(300, admitted.get());
+        assertEquals(300, shards.total());
+        assertArrayEquals(shards.limits, shards.counts());
+    }
+}
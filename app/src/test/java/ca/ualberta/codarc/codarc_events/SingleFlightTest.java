@@ -0,0 +1,87 @@
+package ca.ualberta.codarc.codarc_events;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import ca.ualberta.codarc.codarc_events.data.SingleFlight;
+
+/**
+ * Unit tests for coalescing identical in-flight reads.
+ */
+public class SingleFlightTest {
+
+    // Listeners run inline so the tests need no main looper
+    private static final Executor DIRECT = Runnable::run;
+
+    private final List<TaskCompletionSource<String>> started = new ArrayList<>();
+
+    private Task<String> startRead() {
+        TaskCompletionSource<String> source = new TaskCompletionSource<>();
+        started.add(source);
+        return source.getTask();
+    }
+
+    @Test
+    public void run_sharesReadBetweenConcurrentCallers() {
+        SingleFlight flights = new SingleFlight();
+        List<String> delivered = new ArrayList<>();
+
+        Task<String> first = flights.run("events/E1", this::startRead);
+        Task<String> second = flights.run("events/E1", this::startRead);
+        first.addOnSuccessListener(DIRECT, delivered::add);
+        second.addOnSuccessListener(DIRECT, delivered::add);
+        started.get(0).setResult("Event one");
+
+        assertSame(first, second);
+        assertEquals(1, started.size());
+        assertEquals(2, delivered.size());
+        assertEquals(2, flights.getRequestCount());
+        assertEquals(1, flights.getCoalescedCount());
+    }
+
+    @Test
+    public void run_keepsDifferentKeysApart() {
+        SingleFlight flights = new SingleFlight();
+
+        flights.run("events/E1", this::startRead);
+        flights.run("events/E2", this::startRead);
+        flights.run("events/E1/waitingList?count", this::startRead);
+
+        assertEquals(3, started.size());
+        assertEquals(3, flights.getInFlightCount());
+        assertEquals(0, flights.getCoalescedCount());
+    }
+
+    @Test
+    public void run_startsFreshReadAfterCompletion() {
+        SingleFlight flights = new SingleFlight();
+
+        flights.run("events/E1", this::startRead);
+        started.get(0).setResult("stale");
+        assertEquals(0, flights.getInFlightCount());
+        flights.run("events/E1", this::startRead);
+
+        assertEquals(2, started.size());
+        assertEquals(0, flights.getCoalescedCount());
+    }
+
+    @Test
+    public void run_fansOutFailures() {
+        SingleFlight flights = new SingleFlight();
+        List<Exception> errors = new ArrayList<>();
+
+        flights.run("events/E1", this::startRead).addOnFailureListener(DIRECT, errors::add);
+        flights.run("events/E1", this::startRead).addOnFailureListener(DIRECT, errors::add);
+        started.get(0).setException(new IllegalStateException("offline"));
+
+        assertEquals(2, errors.size());
+        assertEquals(0, flights.getInFlightCount());
+    }
+}
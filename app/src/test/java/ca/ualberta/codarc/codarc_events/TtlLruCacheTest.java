@@ -0,0 +1,72 @@
+package ca.ualberta.codarc.codarc_events;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import ca.ualberta.codarc.codarc_events.data.TtlLruCache;
+
+/**
+ * Unit tests for the data layer's LRU/TTL cache.
+ */
+public class TtlLruCacheTest {
+
+    private long now = 0L;
+
+    private TtlLruCache<String, String> newCache(int maxSize, long ttl) {
+        return new TtlLruCache<>(maxSize, ttl, () -> now);
+    }
+
+    @Test
+    public void get_countsHitsAndMisses() {
+        TtlLruCache<String, String> cache = newCache(10, 1000);
+        assertNull(cache.get("E1"));
+        cache.put("E1", "Event one");
+        assertEquals("Event one", cache.get("E1"));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void get_dropsExpiredEntries() {
+        TtlLruCache<String, String> cache = newCache(10, 1000);
+        cache.put("E1", "Event one");
+
+        now = 1001;
+        assertNull(cache.get("E1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() {
+        TtlLruCache<String, String> cache = newCache(2, 1000);
+        cache.put("E1", "one");
+        cache.put("E2", "two");
+        cache.get("E1");
+        cache.put("E3", "three");
+
+        assertEquals("one", cache.get("E1"));
+        assertNull(cache.get("E2"));
+        assertEquals("three", cache.get("E3"));
+    }
+
+    @Test
+    public void configure_shrinksImmediately() {
+        TtlLruCache<String, String> cache = newCache(3, 1000);
+        cache.put("E1", "one");
+        cache.put("E2", "two");
+        cache.put("E3", "three");
+
+        cache.configure(1, 1000);
+        assertEquals(1, cache.size());
+        assertEquals("three", cache.get("E3"));
+    }
+
+    @Test
+    public void invalidate_removesEntry() {
+        TtlLruCache<String, String> cache = newCache(3, 1000);
+        cache.put("E1", "one");
+        cache.invalidate("E1");
+        assertNull(cache.get("E1"));
+    }
+}